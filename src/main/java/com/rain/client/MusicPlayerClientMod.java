@@ -1,10 +1,14 @@
 package com.rain.client;
 
+import com.rain.client.audio.AudioCache;
 import com.rain.client.audio.AudioManager;
+import com.rain.client.audio.LoudnessStore;
 import com.rain.client.command.MusicCommands;
 import com.rain.client.gui.KeyBindings;
 import com.rain.client.gui.MusicHudRenderer;
 import com.rain.client.manager.*;
+import com.rain.client.model.MusicTrack;
+import com.rain.client.network.ApiExecutor;
 import com.rain.client.network.MusicAPIClient;
 import com.rain.client.network.handler.ClientNetworkHandler;
 import com.rain.common.config.ModConfig;
@@ -13,7 +17,11 @@ import net.fabricmc.fabric.api.client.command.v2.ClientCommandRegistrationCallba
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Stream;
 
 /**
  * 音乐播放器模组主类
@@ -59,11 +67,15 @@ public final class MusicPlayerClientMod implements ClientModInitializer {
             // 初始化持久化管理器
             persistenceManager = new DataPersistenceManager();
             // 初始化核心组件
-            audioManager = new AudioManager();
+            audioManager = new AudioManager(new AudioCache(persistenceManager.getDataDirectory()),
+                    new LoudnessStore(persistenceManager));
             // 创建音乐管理器（管理播放列表）
             musicManager = new MusicManager(audioManager);
             // 创建API客户端
             apiClient = new MusicAPIClient();
+            // 播放前按当前音质重新获取播放地址
+            audioManager.setTrackUrlResolver((track, quality, background) -> apiClient.getTrackUrl(track.getId(), quality,
+                    background ? ApiExecutor.Priority.PREFETCH : ApiExecutor.Priority.PLAYBACK));
             // 创建歌词管理器（解析和管理歌词）
             lyricManager = new LyricManager(apiClient);
             // 创建HUD渲染器（在游戏界面显示歌词）
@@ -77,6 +89,8 @@ public final class MusicPlayerClientMod implements ClientModInitializer {
             shareManager = new ClientMusicShareManager();
             // 初始化Cookie管理器并加载数据
             CookieManager.getInstance().initialize(persistenceManager);
+            // 初始化播放设置
+            SettingsManager.getInstance().initialize(persistenceManager);
             // 初始化音乐管理器并加载播放列表
             musicManager.initialize(persistenceManager);
             // 设置回调
@@ -85,11 +99,16 @@ public final class MusicPlayerClientMod implements ClientModInitializer {
                     musicManager.playNext();
                 }
             });
-            // 设置播放开始回调，自动加载歌词
+            // 临近结束时按播放模式预取下一首，结束后无缝切换
+            audioManager.setNextTrackSupplier(musicManager::peekNext);
+            audioManager.setOnTrackHandoverCallback(musicManager::confirmNext);
+            // 设置播放开始回调，自动加载歌词，提前刷新后续几首的播放地址并下载开头片段
             audioManager.setOnTrackStartCallback(() -> {
                 if (!Objects.isNull(audioManager.getCurrentTrack())) {
                     lyricManager.loadLyric(audioManager.getCurrentTrack());
                 }
+                refreshUpcomingUrls();
+                warmHeadSegments();
             });
             // 注册命令和键位
             ClientCommandRegistrationCallback.EVENT
@@ -102,6 +121,40 @@ public final class MusicPlayerClientMod implements ClientModInitializer {
         }
     }
 
+    /**
+     * 按当前音质在后台刷新接下来几首的播放地址，切歌时无需等待接口；离线模式下不刷新
+     */
+    private void refreshUpcomingUrls() {
+        if (SettingsManager.getInstance().isOfflineMode()) {
+            return;
+        }
+        List<String> upcomingIds = musicManager.peekUpcoming(ModConfig.URL_REFRESH_AHEAD_TRACKS).stream()
+                .map(MusicTrack::getId)
+                .filter(id -> !Objects.isNull(id))
+                .toList();
+        if (upcomingIds.isEmpty()) {
+            return;
+        }
+        String quality = audioManager.getCurrentQuality();
+        apiClient.refreshTrackUrls(upcomingIds, Objects.isNull(quality) ? ModConfig.AUDIO_QUALITY : quality);
+    }
+
+    /**
+     * 在后台下载播放列表接下来几首的开头片段，不足时以收藏的前几首补足，点播这些歌曲时可立即开始
+     */
+    private void warmHeadSegments() {
+        MusicTrack current = audioManager.getCurrentTrack();
+        Map<String, MusicTrack> candidates = new LinkedHashMap<>();
+        Stream.concat(musicManager.peekUpcoming(ModConfig.HEAD_SEGMENT_TRACKS).stream(),
+                        favoriteManager.getFavoriteTracks().stream().limit(ModConfig.HEAD_SEGMENT_TRACKS))
+                .filter(track -> !Objects.isNull(track.getId()))
+                .filter(track -> Objects.isNull(current) || !track.getId().equals(current.getId()))
+                .forEach(track -> candidates.putIfAbsent(track.getId(), track));
+        if (!candidates.isEmpty()) {
+            audioManager.warmHeadSegments(candidates.values().stream().limit(ModConfig.HEAD_SEGMENT_TRACKS).toList());
+        }
+    }
+
     /**
      * 获取音乐模组实例
      */
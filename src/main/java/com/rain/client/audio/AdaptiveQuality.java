@@ -0,0 +1,189 @@
+package com.rain.client.audio;
+
+import com.rain.client.MusicPlayerClientMod;
+import com.rain.common.config.ModConfig;
+import com.rain.common.enums.AudioQualityEnum;
+
+import java.util.Objects;
+
+/**
+ * 自适应音质选择
+ * <p>
+ * 吞吐量按墙钟时间计算：只统计解码线程在等网络的区间（PCM缓冲区低于高水位，解码线程不会因缓冲区满而停读），
+ * 以“读到的字节数 / 相邻两次读取之间经过的时间”累计，每个统计窗口折算一次并做指数平滑。
+ * 缓冲区已满时读取速度受播放速度限制而不是网络，这段时间不计入。
+ * </p>
+ * <p>
+ * 每首音轨开始下载前选择一次音质：缓冲区反复欠载时降一级并在之后几首内不再升级；
+ * 吞吐量不足以支撑当前码率时直接降到能支撑的等级。
+ * 升级更保守：上一首必须完整播放过、没有发生欠载，并且期间测得过新的吞吐量，才可能升一级。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+final class AdaptiveQuality {
+
+    /**
+     * 吞吐量需达到码率的倍数才认为能稳定播放
+     */
+    private static final double THROUGHPUT_HEADROOM = 2.0;
+
+    private static final double SMOOTHING = 0.3;
+
+    private static final long WINDOW_BYTES = 256 * 1024;
+
+    private static final long WINDOW_NANOS = 2_000_000_000L;
+
+    /**
+     * 一首音轨内欠载达到该次数时降级
+     */
+    private static final long UNDERRUN_STEP_DOWN = 2;
+
+    /**
+     * 因欠载降级后保持不升级的音轨数
+     */
+    private static final int HOLD_TRACKS = 3;
+
+    private final AudioQualityEnum ceiling;
+
+    private AudioQualityEnum current;
+
+    private double throughputKbps;
+
+    private long windowBytes;
+
+    private long windowNanos;
+
+    private StreamPlayer observedPlayer;
+
+    private long observedUnderruns;
+
+    private long recentUnderruns;
+
+    private int holdTracks;
+
+    /**
+     * 上次选择之后是否观察到有音轨在播放
+     */
+    private boolean observedTrack;
+
+    /**
+     * 上次选择之后完成的吞吐量统计窗口数
+     */
+    private int freshWindows;
+
+    AdaptiveQuality() {
+        AudioQualityEnum configured = AudioQualityEnum.fromLevel(ModConfig.ADAPTIVE_QUALITY_CEILING);
+        this.ceiling = Objects.isNull(configured) ? AudioQualityEnum.EXHIGH : configured;
+        AudioQualityEnum initial = AudioQualityEnum.fromLevel(ModConfig.AUDIO_QUALITY);
+        this.current = Objects.isNull(initial) || initial.compareTo(ceiling) > 0 ? ceiling : initial;
+    }
+
+    /**
+     * 记录一段等待网络期间的读取
+     *
+     * @param bytes 读到的字节数
+     * @param nanos 读到这些字节经过的墙钟时间
+     */
+    synchronized void recordTransfer(long bytes, long nanos) {
+        windowBytes += bytes;
+        windowNanos += nanos;
+        if (windowBytes < WINDOW_BYTES && windowNanos < WINDOW_NANOS) {
+            return;
+        }
+        double kbps = windowBytes * 8_000_000.0 / Math.max(1, windowNanos);
+        throughputKbps = throughputKbps <= 0 ? kbps : throughputKbps + SMOOTHING * (kbps - throughputKbps);
+        windowBytes = 0;
+        windowNanos = 0;
+        freshWindows++;
+    }
+
+    /**
+     * 累计播放器自上次观察以来新增的欠载次数
+     */
+    synchronized void observeUnderruns(StreamPlayer player) {
+        if (Objects.isNull(player)) {
+            return;
+        }
+        long total = player.getUnderruns();
+        recentUnderruns += player == observedPlayer ? total - observedUnderruns : total;
+        observedTrack = true;
+        observedPlayer = player;
+        observedUnderruns = total;
+    }
+
+    /**
+     * 为下一首音轨选择音质
+     *
+     * @return 接口使用的等级名
+     */
+    synchronized String select() {
+        AudioQualityEnum next = current;
+        if (recentUnderruns >= UNDERRUN_STEP_DOWN) {
+            next = step(current, -1);
+            holdTracks = HOLD_TRACKS;
+        } else if (throughputKbps > 0) {
+            AudioQualityEnum affordable = affordable();
+            if (affordable.compareTo(current) < 0) {
+                next = affordable;
+            } else if (affordable.compareTo(current) > 0 && holdTracks == 0 && healthy()) {
+                next = step(current, 1);
+            }
+        }
+        if (holdTracks > 0 && next == current) {
+            holdTracks--;
+        }
+        if (next != current) {
+            MusicPlayerClientMod.LOGGER.info("自适应音质: {} -> {} (吞吐量 {} kbps, 欠载 {} 次)",
+                    current.getLevel(), next.getLevel(), Math.round(throughputKbps), recentUnderruns);
+        }
+        recentUnderruns = 0;
+        observedTrack = false;
+        freshWindows = 0;
+        current = next;
+        return current.getLevel();
+    }
+
+    /**
+     * 当前选定的音质，不改变选择状态，供预先下载等不算作一次选曲的场合使用
+     *
+     * @return 接口使用的等级名
+     */
+    synchronized String current() {
+        return current.getLevel();
+    }
+
+    /**
+     * 平滑后的吞吐量估计（kbps），尚无数据时为0
+     */
+    synchronized double throughputKbps() {
+        return throughputKbps;
+    }
+
+    /**
+     * 自上次选择以来是否有音轨无欠载地播放过，且吞吐量是在这期间重新测得的
+     */
+    private boolean healthy() {
+        return observedTrack && recentUnderruns == 0 && freshWindows > 0;
+    }
+
+    /**
+     * 吞吐量能够支撑的最高等级，至少为最低等级
+     */
+    private AudioQualityEnum affordable() {
+        AudioQualityEnum result = AudioQualityEnum.STANDARD;
+        for (AudioQualityEnum quality : AudioQualityEnum.values()) {
+            if (quality.compareTo(ceiling) <= 0 && quality.getBitrateKbps() * THROUGHPUT_HEADROOM <= throughputKbps) {
+                result = quality;
+            }
+        }
+        return result;
+    }
+
+    private AudioQualityEnum step(AudioQualityEnum quality, int delta) {
+        int index = Math.clamp(quality.ordinal() + delta, 0, ceiling.ordinal());
+        return AudioQualityEnum.values()[index];
+    }
+}
@@ -0,0 +1,232 @@
+package com.rain.client.audio;
+
+import com.rain.client.MusicPlayerClientMod;
+import com.rain.common.config.ModConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * 音频磁盘缓存
+ * <p>
+ * 以“歌曲ID + 音质”为键，将播放过的音频完整保存到数据目录下，
+ * 总大小超过预算时按最近最少使用（LRU）顺序淘汰。
+ * 边播边写：下载中的数据先写入临时文件，完整读取后才会转正为缓存。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+public final class AudioCache {
+
+    private static final String CACHE_DIR = "audio_cache";
+
+    private static final String CACHE_SUFFIX = ".cache";
+
+    private static final String PART_SUFFIX = ".part";
+
+    private final Path cacheDirectory;
+
+    private final long maxBytes;
+
+    /**
+     * 缓存键 -> 文件大小，按访问顺序排列，队首即最久未使用
+     */
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalBytes;
+
+    public AudioCache(Path dataDirectory) {
+        this(dataDirectory.resolve(CACHE_DIR), ModConfig.AUDIO_CACHE_MAX_BYTES);
+    }
+
+    public AudioCache(Path cacheDirectory, long maxBytes) {
+        this.cacheDirectory = cacheDirectory;
+        this.maxBytes = maxBytes;
+        loadEntries();
+    }
+
+    /**
+     * 生成缓存键
+     *
+     * @param trackId 歌曲ID
+     * @param quality 音质等级
+     */
+    public static String key(String trackId, String quality) {
+        return sanitize(trackId) + "_" + sanitize(quality);
+    }
+
+    /**
+     * 查找缓存文件，命中时刷新其访问顺序
+     *
+     * @return 缓存文件路径，未命中返回null
+     */
+    public synchronized Path lookup(String key) {
+        if (!entries.containsKey(key)) {
+            return null;
+        }
+        Path file = resolve(key);
+        if (!Files.isRegularFile(file)) {
+            totalBytes -= entries.remove(key);
+            return null;
+        }
+        touch(file);
+        return file;
+    }
+
+    /**
+     * 判断是否已完整缓存（不刷新访问顺序）
+     */
+    public synchronized boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * 包装网络流，读取的同时写入临时文件，流完整读完后提交为缓存
+     *
+     * @param key            缓存键
+     * @param source         原始网络流
+     * @param expectedLength 期望长度，未知时传-1
+     */
+    public InputStream wrap(String key, InputStream source, long expectedLength) {
+        if (expectedLength > maxBytes) {
+            return source;
+        }
+        try {
+            Files.createDirectories(cacheDirectory);
+            Path partFile = Files.createTempFile(cacheDirectory, key + "-", PART_SUFFIX);
+            return new CachingInputStream(source, partFile, expectedLength,
+                    (file, length) -> commit(key, file, length));
+        } catch (IOException e) {
+            MusicPlayerClientMod.LOGGER.warn("创建音频缓存临时文件失败，本次不缓存: {}", key, e);
+            return source;
+        }
+    }
+
+    /**
+     * 清空全部缓存
+     */
+    public synchronized void clear() {
+        for (String key : new ArrayList<>(entries.keySet())) {
+            delete(resolve(key));
+        }
+        entries.clear();
+        totalBytes = 0;
+        MusicPlayerClientMod.LOGGER.info("音频缓存已清空");
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 将完整下载的临时文件提交为缓存
+     */
+    private synchronized void commit(String key, Path partFile, long length) {
+        Path target = resolve(key);
+        try {
+            Files.move(partFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            MusicPlayerClientMod.LOGGER.warn("提交音频缓存失败: {}", key, e);
+            delete(partFile);
+            return;
+        }
+        Long previous = entries.put(key, length);
+        totalBytes += length - (Objects.isNull(previous) ? 0 : previous);
+        MusicPlayerClientMod.LOGGER.info("音频已缓存: {} ({} KB)", key, length / 1024);
+        evict();
+    }
+
+    /**
+     * 超出预算时淘汰最久未使用的缓存
+     */
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            delete(resolve(eldest.getKey()));
+            totalBytes -= eldest.getValue();
+            iterator.remove();
+            MusicPlayerClientMod.LOGGER.info("淘汰音频缓存: {}", eldest.getKey());
+        }
+    }
+
+    /**
+     * 启动时扫描缓存目录，按最后访问时间重建LRU顺序，并清理残留的临时文件
+     */
+    private void loadEntries() {
+        if (!Files.isDirectory(cacheDirectory)) {
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(cacheDirectory)) {
+            stream.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.endsWith(PART_SUFFIX)) {
+                    delete(file);
+                } else if (name.endsWith(CACHE_SUFFIX)) {
+                    files.add(file);
+                }
+            });
+        } catch (IOException e) {
+            MusicPlayerClientMod.LOGGER.error("扫描音频缓存目录失败", e);
+            return;
+        }
+        files.sort(Comparator.comparing(AudioCache::lastModified));
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            try {
+                long length = Files.size(file);
+                entries.put(name.substring(0, name.length() - CACHE_SUFFIX.length()), length);
+                totalBytes += length;
+            } catch (IOException e) {
+                delete(file);
+            }
+        }
+        evict();
+        MusicPlayerClientMod.LOGGER.info("音频缓存已加载，共 {} 首，{} MB", entries.size(), totalBytes / (1024 * 1024));
+    }
+
+    private Path resolve(String key) {
+        return cacheDirectory.resolve(key + CACHE_SUFFIX);
+    }
+
+    private static String sanitize(String value) {
+        return Objects.isNull(value) ? "" : value.replaceAll("[^A-Za-z0-9_-]", "");
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+            // 访问时间仅影响重启后的淘汰顺序
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            MusicPlayerClientMod.LOGGER.warn("删除缓存文件失败: {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.rain.client.audio;
+
+import javazoom.jl.decoder.JavaLayerException;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * 音频格式解码后端
+ * <p>
+ * 逐帧把音频流解码为交错的16位PCM，写入后端自己持有、逐帧复用的缓冲区；
+ * 同时负责根据已解析的信息把播放位置换算成字节偏移，供跳转时发起Range请求。
+ * 解码错误统一以 {@link JavaLayerException} 报告，与播放流水线其余部分一致。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+interface AudioDecoder {
+
+    int ID3V2_HEADER_SIZE = 10;
+
+    /**
+     * 跳转目标：从该字节偏移开始解码，对应的播放位置为positionMillis（估算时为近似值）
+     */
+    record SeekPoint(long byteOffset, long positionMillis) {
+    }
+
+    /**
+     * 解码下一帧
+     *
+     * @return 音轨已读到末尾返回false
+     */
+    boolean decodeFrame() throws JavaLayerException;
+
+    /**
+     * 当前帧的交错采样，数组在下一次解码时被覆盖
+     */
+    short[] samples();
+
+    /**
+     * 当前帧的采样数（各声道合计）
+     */
+    int sampleCount();
+
+    /**
+     * 当前帧每个声道的采样数，用于累计播放位置
+     */
+    int frameLength();
+
+    int sampleRate();
+
+    int channels();
+
+    /**
+     * 换算跳转目标，尚未解析到足够信息时返回null
+     */
+    SeekPoint locate(long positionMillis);
+
+    /**
+     * 从跳转目标处的新输入流继续解码
+     *
+     * @param stream 从 point 的字节偏移开始的输入流
+     * @return 实际跳转到的位置（毫秒）
+     */
+    long restart(InputStream stream, SeekPoint point) throws JavaLayerException;
+
+    void close();
+
+    /**
+     * 根据文件头的魔数选择解码后端，无法识别时按MP3处理
+     * <p>
+     * 文件开头的ID3v2标签会被跳过后再判断，只预读不消费。
+     * </p>
+     */
+    static AudioDecoder open(InputStream stream) throws IOException {
+        InputStream in = stream.markSupported() ? stream : new BufferedInputStream(stream);
+        byte[] header = new byte[ID3V2_HEADER_SIZE];
+        in.mark(ID3V2_HEADER_SIZE);
+        int length = in.readNBytes(header, 0, ID3V2_HEADER_SIZE);
+        in.reset();
+        long tagSize = id3TagSize(header, length);
+        byte[] magic = new byte[FlacDecoder.MAGIC.length];
+        in.mark((int) tagSize + magic.length);
+        try {
+            in.skipNBytes(tagSize);
+            length = in.readNBytes(magic, 0, magic.length);
+        } catch (EOFException e) {
+            length = 0;
+        }
+        in.reset();
+        if (length == magic.length && Arrays.equals(magic, FlacDecoder.MAGIC)) {
+            return new FlacDecoder(in, tagSize);
+        }
+        return new Mp3Decoder(in);
+    }
+
+    /**
+     * 根据文件开头的字节计算ID3v2标签（含标签头）的总长度
+     *
+     * @param header 文件开头的字节
+     * @param length header中的有效字节数
+     * @return 没有ID3v2标签时返回0
+     */
+    static long id3TagSize(byte[] header, int length) {
+        if (length < ID3V2_HEADER_SIZE || header[0] != 'I' || header[1] != 'D' || header[2] != '3') {
+            return 0;
+        }
+        return ID3V2_HEADER_SIZE + ((header[6] & 0x7F) << 21 | (header[7] & 0x7F) << 14
+                | (header[8] & 0x7F) << 7 | (header[9] & 0x7F));
+    }
+}
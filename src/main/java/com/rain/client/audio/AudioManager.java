@@ -1,28 +1,55 @@
 package com.rain.client.audio;
 
 import com.rain.client.MusicPlayerClientMod;
+import com.rain.client.manager.SettingsManager;
 import com.rain.client.model.MusicTrack;
 import com.rain.common.config.ModConfig;
-import javazoom.jl.player.advanced.AdvancedPlayer;
-import javazoom.jl.player.advanced.PlaybackEvent;
-import javazoom.jl.player.advanced.PlaybackListener;
+import com.rain.common.enums.AudioQualityEnum;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.text.Text;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 /**
  * 音频管理器
  * <p>
- * 基于JLayer库实现MP3音频播放功能。
+ * 按文件头选择解码后端（MP3基于JLayer库，无损音质为内置的FLAC解码器），优先通过游戏的OpenAL音频引擎输出。
+ * 播放过的音频会写入本地缓存，再次播放时直接读取本地文件；
+ * 暂停时保留解码状态和输出线路，恢复后从暂停的帧继续播放；
+ * 跳转时通过HTTP Range请求（或本地缓存文件定位）从目标帧开始读取；
+ * 临近结束时预取下一首，结束后在同一条输出线路上无缝衔接；
+ * 可能接下来播放的音轨预先下载开头几秒保存在内存中，点播时无需等待连接即可开始。
+ * </p>
+ * <p>
+ * 试听只请求音轨开头一小段的字节范围，有歌曲正在播放时叠加到同一条输出线路上并压低歌曲音量，
+ * 不打断当前播放；点播、暂停或停止时结束试听。
+ * </p>
+ * <p>
+ * 播放状态、当前音轨、播放器和音频流合在一个不可变快照中，只通过CAS整体替换。
+ * 每次切歌或停止都会开启新的一代，被取代的一代由发起替换的一方负责释放；
+ * 音频线程上仍在进行的旧任务和旧回调发现自己已过期后，只关闭自己打开的资源，不再改动状态。
  * </p>
  *
  * @author 落雨川
@@ -35,148 +62,925 @@ public final class AudioManager {
 
     private static final String THREAD_NAME = "MusicPlayer-Audio";
 
-    private AdvancedPlayer player;
+    private static final String PREVIEW_THREAD_NAME = "MusicPlayer-Preview";
+
+    /**
+     * 试听请求的字节范围中为文件开头的ID3标签（可能含封面）预留的字节数
+     */
+    private static final long PREVIEW_TAG_ALLOWANCE = 256 * 1024;
+
+    private static final int HTTP_PARTIAL_CONTENT = 206;
+
+    /**
+     * PCM缓冲区低于该填充比例时解码线程在等网络，这段时间的读取计入吞吐量
+     */
+    private static final float NETWORK_BOUND_FILL = 0.9f;
+
+    /**
+     * 按音质获取播放地址的方法，在音频、预取或开头片段线程上同步调用
+     */
+    @FunctionalInterface
+    public interface UrlResolver {
+
+        /**
+         * @param background 是否为后台调用（预取下一首、下载开头片段），后台请求让位于当前播放的请求
+         * @return 获取失败时返回null
+         */
+        String resolve(MusicTrack track, String quality, boolean background);
+    }
+
+    /**
+     * 一首音轨本次播放使用的音质与地址，跳转重新打开时必须沿用，否则字节偏移对不上
+     *
+     * @param quality 音质等级
+     * @param url     播放地址，命中缓存时可以为null
+     */
+    private record TrackLocation(String quality, String url) {
+    }
+
+    /**
+     * 某一代播放的状态快照
+     *
+     * @param generation 每次切歌或停止时递增，过期的任务与回调据此丢弃自己的结果
+     * @param state      播放状态
+     * @param track      当前音轨，无缝切换后为下一首
+     * @param quality    当前音轨本次播放使用的音质等级，打开音频流之前为null
+     * @param player     播放器，进入缓冲状态之前为null
+     * @param stream     最近打开的音频流，播放结束或被取代时关闭
+     */
+    private record Playback(long generation, PlaybackState state, MusicTrack track, String quality,
+                            StreamPlayer player, InputStream stream) {
+
+        Playback withState(PlaybackState next) {
+            return new Playback(generation, next, track, quality, player, stream);
+        }
+
+        Playback withStream(InputStream next) {
+            return new Playback(generation, state, track, quality, player, next);
+        }
+
+        /**
+         * 结束本代播放，保留音轨与音质以便界面继续显示
+         */
+        Playback idle() {
+            return new Playback(generation, PlaybackState.IDLE, track, quality, null, null);
+        }
+    }
+
+    /**
+     * 试听的状态快照
+     *
+     * @param generation 每次开始或停止试听时递增
+     * @param track      试听的音轨，没有试听时为null
+     * @param channel    试听声道，连接期间为null
+     */
+    private record Preview(long generation, MusicTrack track, PreviewChannel channel) {
+    }
+
+    /**
+     * 尚未结束的播放
+     */
+    private static final Set<PlaybackState> LIVE = EnumSet.of(PlaybackState.CONNECTING, PlaybackState.BUFFERING,
+            PlaybackState.PLAYING, PlaybackState.PAUSED);
+
+    /**
+     * 播放器已创建的播放
+     */
+    private static final Set<PlaybackState> STARTED = EnumSet.of(PlaybackState.BUFFERING, PlaybackState.PLAYING,
+            PlaybackState.PAUSED);
+
+    private final AtomicReference<Playback> playback =
+            new AtomicReference<>(new Playback(0, PlaybackState.IDLE, null, null, null, null));
+
+    private final AtomicReference<Preview> preview = new AtomicReference<>(new Preview(0, null, null));
 
     private final ExecutorService audioThread;
 
-    private Future<?> playbackTask;
+    private final ExecutorService previewThread;
 
-    private final AtomicBoolean isPlaying = new AtomicBoolean(false);
+    private final AudioCache audioCache;
 
-    private final AtomicBoolean isPaused = new AtomicBoolean(false);
+    private final TrackPrefetcher<TrackLocation> prefetcher;
 
-    private MusicTrack currentTrack;
+    private final HeadSegmentCache headSegments;
 
-    private Runnable onTrackEndCallback;
+    private final LoudnessStore loudnessStore;
 
-    private InputStream currentStream;
+    private final AdaptiveQuality adaptiveQuality = new AdaptiveQuality();
 
-    private long playStartTime;
+    private final AudioMetrics metrics = new AudioMetrics();
 
-    private long pausedPosition;
+    private final SpectrumAnalyzer spectrum = new SpectrumAnalyzer();
+
+    private Runnable onTrackEndCallback;
 
     private Runnable onTrackStartCallback;
 
-    public AudioManager() {
+    private Supplier<MusicTrack> nextTrackSupplier;
+
+    private Consumer<MusicTrack> onTrackHandoverCallback;
+
+    private UrlResolver trackUrlResolver;
+
+    public AudioManager(AudioCache audioCache, LoudnessStore loudnessStore) {
+        this.audioCache = audioCache;
+        this.loudnessStore = loudnessStore;
+        this.prefetcher = new TrackPrefetcher<>(track -> {
+            TrackLocation location = locate(track, true, true);
+            return new TrackPrefetcher.Opened<>(openTrackStream(track, location, 0), location);
+        });
+        this.headSegments = new HeadSegmentCache(this::loadHeadSegment, ModConfig.HEAD_SEGMENT_MAX_BYTES);
         this.audioThread = Executors.newSingleThreadExecutor(r -> new Thread(r, THREAD_NAME));
-        MusicPlayerClientMod.LOGGER.info("音频管理器已使用JLayer初始化");
+        this.previewThread = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, PREVIEW_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        MusicPlayerClientMod.LOGGER.info("音频管理器已初始化");
     }
 
     public void playTrack(MusicTrack track) {
-        stop();
-        this.currentTrack = track;
-        this.pausedPosition = 0;
-        playbackTask = audioThread.submit(() -> {
+        stopPreview();
+        // 保留预取：若手动切到的正是已预取的音轨，可直接复用
+        Playback previous = supersede(PlaybackState.CONNECTING, track);
+        release(previous);
+        long generation = previous.generation() + 1,
+                requestedAt = System.nanoTime();
+        audioThread.submit(() -> runPlayback(generation, track, requestedAt));
+    }
+
+    /**
+     * 在音频线程上连接并播放一代音轨，直到播放完毕、出错或被取代
+     *
+     * @param requestedAt 点播时刻（纳秒），用于统计首帧耗时
+     */
+    private void runPlayback(long generation, MusicTrack track, long requestedAt) {
+        if (!isCurrent(generation)) {
+            // 排队期间已被后续的切歌或停止取代，连接都不必建立
+            return;
+        }
+        InputStream stream = null;
+        StreamPlayer trackPlayer = null;
+        try {
+            TrackPrefetcher.Opened<TrackLocation> prefetched = prefetcher.take(track);
+            TrackLocation location;
+            if (Objects.isNull(prefetched)) {
+                prefetcher.cancel();
+                location = locate(track, true, false);
+                stream = openTrackStream(track, location, 0);
+            } else {
+                location = prefetched.location();
+                stream = prefetched.stream();
+            }
+            StreamPlayer.Source source = sourceOf(track, location, stream,
+                    () -> onTrackStarted(generation, track, requestedAt));
+            trackPlayer = new StreamPlayer(source, new PrefetchHandover(generation), spectrum, metrics);
+            StreamPlayer created = trackPlayer;
+            InputStream opened = stream;
+            String quality = location.quality();
+            if (Objects.isNull(transition(generation, EnumSet.of(PlaybackState.CONNECTING),
+                    p -> new Playback(generation, PlaybackState.BUFFERING, track, quality, created, opened)))) {
+                // 连接期间已被取代，释放刚建立的连接
+                created.close();
+                closeStream(opened);
+                return;
+            }
+            if (!trackPlayer.play()) {
+                // 被取代或停止，资源已由发起方释放
+                return;
+            }
+            Playback ended = transition(generation, LIVE, Playback::idle);
+            if (Objects.isNull(ended)) {
+                return;
+            }
+            release(ended);
+            MinecraftClient.getInstance().execute(() -> {
+                if (isCurrent(generation) && !Objects.isNull(onTrackEndCallback)) {
+                    onTrackEndCallback.run();
+                }
+            });
+        } catch (Exception e) {
+            Playback failed = transition(generation, LIVE, Playback::idle);
+            if (!Objects.isNull(trackPlayer)) {
+                trackPlayer.close();
+            }
+            closeStream(stream);
+            if (Objects.isNull(failed)) {
+                // 已被取代，读取中断属于正常情况
+                return;
+            }
+            release(failed);
+            MusicPlayerClientMod.LOGGER.error("播放结束", e);
+            MinecraftClient.getInstance().execute(() -> {
+                if (!Objects.isNull(MinecraftClient.getInstance().player)) {
+                    MinecraftClient.getInstance().player.sendMessage(Text.literal("§c播放结束..."), false);
+                }
+            });
+        }
+    }
+
+    /**
+     * 第一帧开始输出：缓冲结束，提示正在播放
+     */
+    private void onTrackStarted(long generation, MusicTrack track, long requestedAt) {
+        if (!Objects.isNull(transition(generation, EnumSet.of(PlaybackState.BUFFERING),
+                p -> p.withState(PlaybackState.PLAYING)))) {
+            metrics.recordTimeToFirstAudio(System.nanoTime() - requestedAt);
+        }
+        notifyTrackStarted(generation, track);
+    }
+
+    /**
+     * 在客户端线程上提示正在播放并触发播放开始回调，已过期的一代不再提示
+     */
+    private void notifyTrackStarted(long generation, MusicTrack track) {
+        MinecraftClient.getInstance().execute(() -> {
+            if (!isCurrent(generation)) {
+                return;
+            }
+            if (!Objects.isNull(MinecraftClient.getInstance().player)) {
+                MinecraftClient.getInstance().player.sendMessage(
+                        net.minecraft.text.Text.literal("§a正在播放: §f" + track.getTitle() + " - " + track.getArtist()), true
+                );
+            }
+            // 触发播放开始回调
+            if (!Objects.isNull(onTrackStartCallback)) {
+                onTrackStartCallback.run();
+            }
+        });
+    }
+
+    /**
+     * 以新的一代替换当前快照
+     *
+     * @return 被替换的快照，由调用方释放其资源
+     */
+    private Playback supersede(PlaybackState state, MusicTrack track) {
+        return playback.getAndUpdate(p -> new Playback(p.generation() + 1, state, track, null, null, null));
+    }
+
+    /**
+     * 仅当快照仍属于指定一代且处于允许的状态时，以CAS更新快照
+     *
+     * @return 更新前的快照，未更新时返回null
+     */
+    private Playback transition(long generation, Set<PlaybackState> from, UnaryOperator<Playback> update) {
+        while (true) {
+            Playback current = playback.get();
+            if (current.generation() != generation || !from.contains(current.state())) {
+                return null;
+            }
+            if (playback.compareAndSet(current, update.apply(current))) {
+                return current;
+            }
+        }
+    }
+
+    private boolean isCurrent(long generation) {
+        return playback.get().generation() == generation;
+    }
+
+    /**
+     * 关闭被取代或已结束的一代持有的播放器和音频流
+     */
+    private void release(Playback previous) {
+        StreamPlayer previousPlayer = previous.player();
+        if (!Objects.isNull(previousPlayer)) {
+            adaptiveQuality.observeUnderruns(previousPlayer);
+            metrics.recordUnderruns(previousPlayer.getUnderruns());
             try {
-                URL url = new URL(track.getUrl());
-                URLConnection connection = url.openConnection();
-                connection.setConnectTimeout(ModConfig.CONNECT_TIMEOUT);
-                connection.setReadTimeout(ModConfig.READ_TIMEOUT);
-                connection.setRequestProperty("User-Agent", USER_AGENT);
-                currentStream = new BufferedInputStream(connection.getInputStream());
-                player = new AdvancedPlayer(currentStream);
-                player.setPlayBackListener(new PlaybackListener() {
-                    @Override
-                    public void playbackFinished(PlaybackEvent evt) {
-                        isPlaying.set(false);
-                        MinecraftClient.getInstance().execute(() -> {
-                            if (!Objects.isNull(onTrackEndCallback)) {
-                                onTrackEndCallback.run();
-                            }
-                        });
-                    }
-                });
-                isPlaying.set(true);
-                playStartTime = System.currentTimeMillis();
-                MinecraftClient.getInstance().execute(() -> {
-                    if (!Objects.isNull(MinecraftClient.getInstance().player)) {
-                        MinecraftClient.getInstance().player.sendMessage(
-                                net.minecraft.text.Text.literal("§a正在播放: §f" + track.getTitle() + " - " + track.getArtist()), true
-                        );
-                    }
-                    // 触发播放开始回调
-                    if (!Objects.isNull(onTrackStartCallback)) {
-                        onTrackStartCallback.run();
-                    }
-                });
-                player.play();
+                previousPlayer.close();
             } catch (Exception e) {
-                MusicPlayerClientMod.LOGGER.error("播放结束", e);
-                isPlaying.set(false);
+                MusicPlayerClientMod.LOGGER.error("关闭播放器时出错", e);
+            }
+        }
+        closeStream(previous.stream());
+    }
+
+    /**
+     * 组装音轨的音频来源：已测得响度时按设置应用均衡增益，否则在本次播放中测量
+     * <p>
+     * 跳转时按打开该流时确定的音质与地址重新打开，字节偏移才与已解析的帧位置对应。
+     * </p>
+     */
+    private StreamPlayer.Source sourceOf(MusicTrack track, TrackLocation location, InputStream stream,
+                                         Runnable onStart) {
+        String trackId = track.getId();
+        SettingsManager settings = SettingsManager.getInstance();
+        float gain = settings.isLoudnessNormalization() ? loudnessStore.gainFor(trackId) : 1.0f;
+        LoudnessAnalyzer analyzer = loudnessStore.contains(trackId)
+                ? null : new LoudnessAnalyzer(measurement -> loudnessStore.record(trackId, measurement));
+        return new StreamPlayer.Source(stream, offset -> openTrackStream(track, location, offset), track.getDuration(),
+                onStart, gain, analyzer);
+    }
+
+    /**
+     * 开始试听一首音轨，取代正在进行的试听
+     */
+    public void previewTrack(MusicTrack track) {
+        Preview previous = preview.getAndUpdate(p -> new Preview(p.generation() + 1, track, null));
+        closePreview(previous);
+        long generation = previous.generation() + 1;
+        previewThread.execute(() -> runPreview(generation, track));
+    }
+
+    /**
+     * 停止试听，被压低的歌曲音量随后恢复
+     */
+    public void stopPreview() {
+        closePreview(preview.getAndUpdate(p -> new Preview(p.generation() + 1, null, null)));
+    }
+
+    /**
+     * 正在试听（或正在连接试听）的音轨，没有试听时返回null
+     */
+    public MusicTrack getPreviewTrack() {
+        Preview current = preview.get();
+        return Objects.isNull(current.channel()) || !current.channel().isFinished() ? current.track() : null;
+    }
+
+    /**
+     * 在试听线程上连接并开始试听：有歌曲正在播放时挂接到其输出线路，否则单独输出直到试听结束
+     */
+    private void runPreview(long generation, MusicTrack track) {
+        if (preview.get().generation() != generation) {
+            return;
+        }
+        InputStream stream = null;
+        PreviewChannel channel = null;
+        try {
+            stream = openPreviewStream(track);
+            SettingsManager settings = SettingsManager.getInstance();
+            float gain = settings.isLoudnessNormalization() ? loudnessStore.gainFor(track.getId()) : 1.0f;
+            channel = new PreviewChannel(new StreamPlayer.Source(stream, AudioManager::unseekable, track.getDuration(),
+                    null, gain, null), metrics);
+            Preview connecting = preview.get();
+            if (connecting.generation() != generation
+                    || !preview.compareAndSet(connecting, new Preview(generation, track, channel))) {
+                // 连接期间已被取代
+                channel.close();
+                return;
+            }
+            channel.start();
+            Playback current = playback.get();
+            if (current.state() == PlaybackState.PLAYING && current.player().attachPreview(channel)) {
+                MusicPlayerClientMod.LOGGER.info("试听叠加到正在播放的歌曲: {}", track.getTitle());
+                return;
+            }
+            MusicPlayerClientMod.LOGGER.info("试听: {}", track.getTitle());
+            channel.play();
+        } catch (Exception e) {
+            if (Objects.isNull(channel)) {
+                closeStream(stream);
+            } else {
+                channel.close();
+            }
+            if (preview.get().generation() == generation) {
+                MusicPlayerClientMod.LOGGER.warn("试听失败: {}", track.getTitle(), e);
+            }
+        }
+    }
+
+    private static InputStream unseekable(long byteOffset) throws IOException {
+        throw new IOException("试听不支持跳转");
+    }
+
+    private static void closePreview(Preview previous) {
+        if (!Objects.isNull(previous.channel())) {
+            previous.channel().close();
+        }
+    }
+
+    /**
+     * 打开试听片段：按自适应音质当前的等级定位，试听不算作一次选曲；
+     * 已缓存时读取本地文件，否则只请求按码率换算的开头一段字节范围，不写入缓存
+     */
+    private InputStream openPreviewStream(MusicTrack track) throws IOException {
+        TrackLocation location = locate(track, false, false);
+        Path cachedFile = audioCache.lookup(AudioCache.key(track.getId(), location.quality()));
+        if (!Objects.isNull(cachedFile)) {
+            return new BufferedInputStream(Files.newInputStream(cachedFile));
+        }
+        if (Objects.isNull(location.url()) || location.url().isEmpty()) {
+            throw new IOException("无法获取试听地址: " + track.getTitle());
+        }
+        AudioQualityEnum quality = Objects.requireNonNullElse(AudioQualityEnum.fromLevel(location.quality()),
+                AudioQualityEnum.EXHIGH);
+        long length = quality.getBitrateKbps() * 125L * (ModConfig.PREVIEW_SECONDS + 1) + PREVIEW_TAG_ALLOWANCE;
+        URLConnection connection = openConnection(location.url(), 0);
+        connection.setRequestProperty("Range", "bytes=0-" + (length - 1));
+        return new BufferedInputStream(connection.getInputStream());
+    }
+
+    /**
+     * 预取并交接下一首
+     * <p>
+     * 下一首由客户端线程上的供应者决定（与播放列表的播放模式一致），
+     * 预取在独立线程上进行；交接时若预取尚未完成则等待，失败则退回普通的结束流程。
+     * 开启淡入淡出时交接提前到当前音轨的最后几秒。
+     * </p>
+     */
+    private final class PrefetchHandover implements StreamPlayer.Handover {
+
+        private final long generation;
+
+        PrefetchHandover(long generation) {
+            this.generation = generation;
+        }
+
+        @Override
+        public void prepare() {
+            MinecraftClient.getInstance().execute(() -> {
+                if (isCurrent(generation)) {
+                    requestPrefetch();
+                }
+            });
+        }
+
+        @Override
+        public StreamPlayer.Source next() {
+            MusicTrack next = prefetcher.pendingTrack();
+            if (Objects.isNull(next)) {
+                return null;
+            }
+            TrackPrefetcher.Opened<TrackLocation> prefetched = prefetcher.take(next);
+            if (Objects.isNull(prefetched)) {
+                return null;
+            }
+            InputStream stream = prefetched.stream();
+            TrackLocation location = prefetched.location();
+            // 上一首的流由播放器在解码完毕（或淡出结束）后关闭
+            if (Objects.isNull(transition(generation, STARTED, p -> p.withStream(stream)))) {
+                closeStream(stream);
+                return null;
+            }
+            // 缓冲区中还有上一首的尾巴，等输出级真正播放到下一首时再切换当前音轨
+            return sourceOf(next, location, stream, () -> {
+                if (Objects.isNull(transition(generation, STARTED,
+                        p -> new Playback(generation, p.state(), next, location.quality(), p.player(), p.stream())))) {
+                    return;
+                }
+                MusicPlayerClientMod.LOGGER.info("无缝切换到下一首: {}", next.getTitle());
                 MinecraftClient.getInstance().execute(() -> {
-                    if (!Objects.isNull(MinecraftClient.getInstance().player)) {
-                        MinecraftClient.getInstance().player.sendMessage(Text.literal("§c播放结束..."), false);
+                    if (isCurrent(generation) && !Objects.isNull(onTrackHandoverCallback)) {
+                        onTrackHandoverCallback.accept(next);
                     }
                 });
+                notifyTrackStarted(generation, next);
+            });
+        }
+
+        @Override
+        public long crossfadeMillis() {
+            return SettingsManager.getInstance().getCrossfadeMillis();
+        }
+    }
+
+    /**
+     * 按当前播放模式确定下一首并开始预取（客户端线程）
+     */
+    private void requestPrefetch() {
+        if (Objects.isNull(nextTrackSupplier) || Objects.isNull(playback.get().player())) {
+            return;
+        }
+        MusicTrack next = nextTrackSupplier.get();
+        if (Objects.isNull(next)) {
+            prefetcher.cancel();
+            return;
+        }
+        prefetcher.prefetch(next);
+    }
+
+    /**
+     * 播放列表或播放模式变化后重新决定要预取的下一首
+     */
+    public void invalidatePrefetch() {
+        if (Objects.isNull(prefetcher.pendingTrack())) {
+            return;
+        }
+        prefetcher.cancel();
+        requestPrefetch();
+    }
+
+    /**
+     * 打开音轨的音频流，优先使用本地缓存
+     *
+     * @param location 本次播放的音质与地址，同一次播放的跳转必须沿用
+     * @param offset   起始字节偏移，跳转时大于0
+     */
+    private InputStream openTrackStream(MusicTrack track, TrackLocation location, long offset) throws IOException {
+        String cacheKey = AudioCache.key(track.getId(), location.quality());
+        Path cachedFile = audioCache.lookup(cacheKey);
+        if (!Objects.isNull(cachedFile)) {
+            MusicPlayerClientMod.LOGGER.info("命中音频缓存: {}", track.getTitle());
+            if (offset == 0) {
+                metrics.recordCacheHit();
             }
-        });
+            SeekableByteChannel channel = Files.newByteChannel(cachedFile);
+            channel.position(offset);
+            return new BufferedInputStream(Channels.newInputStream(channel));
+        }
+        if (Objects.isNull(location.url()) || location.url().isEmpty()) {
+            throw new IOException((SettingsManager.getInstance().isOfflineMode()
+                    ? "离线模式下没有缓存: " : "无法获取播放地址: ") + track.getTitle());
+        }
+        String url = location.url();
+        HeadSegmentCache.Segment head = offset > 0 ? null : headSegments.get(cacheKey);
+        if (!Objects.isNull(head)) {
+            MusicPlayerClientMod.LOGGER.info("命中开头片段，立即开始播放: {}", track.getTitle());
+            metrics.recordHeadSegmentHit();
+            // 先解码内存中的开头，剩余部分同时在后台连接，按字节接在片段之后
+            long headLength = head.data().length,
+                    length = head.totalLength();
+            InputStream rest = headLength == length ? InputStream.nullInputStream()
+                    : headSegments.deferred(() -> openRemainder(cacheKey, url, headLength, length));
+            InputStream in = new SequenceInputStream(new ByteArrayInputStream(head.data()), rest);
+            return new BufferedInputStream(audioCache.wrap(cacheKey, in, length));
+        }
+        if (offset == 0) {
+            metrics.recordNetworkOpen();
+        }
+        long requestStart = System.nanoTime();
+        URLConnection connection = openConnection(url, offset);
+        InputStream body = openBody(connection, offset);
+        metrics.recordTimeToFirstByte(System.nanoTime() - requestStart);
+        long length = connection.getContentLengthLong(),
+                end = length < 0 ? -1 : isPartial(connection) ? offset + length : length;
+        InputStream in = resumable(url, body, offset, end);
+        if (offset > 0) {
+            // 从中间开始读取的数据不完整，不写入缓存
+            return new BufferedInputStream(in);
+        }
+        return new BufferedInputStream(audioCache.wrap(cacheKey, in, length));
     }
 
-    public void pause() {
-        stop();
+    /**
+     * 断流时按已读到的偏移续传，对解码线程和缓存都是同一条连续的流
+     */
+    private InputStream resumable(String url, InputStream body, long offset, long end) {
+        return new MeteredInputStream(new ResumableHttpInputStream(body, offset, end,
+                position -> openBody(openConnection(url, position), position), metrics), adaptiveQuality, metrics,
+                this::isNetworkBound);
     }
 
-    public void resume() {
-        // 缺省的方法
+    /**
+     * 读取音频流的一方是否在等网络：尚未创建播放器（连接、起播缓冲）或PCM缓冲区低于高水位
+     */
+    private boolean isNetworkBound() {
+        StreamPlayer player = playback.get().player();
+        return Objects.isNull(player) || player.getBufferFill() < NETWORK_BOUND_FILL;
     }
 
-    public void stop() {
-        isPlaying.set(false);
-        isPaused.set(false);
-        pausedPosition = 0;
-        playStartTime = 0;
-        if (!Objects.isNull(player)) {
-            try {
-                player.close();
-            } catch (Exception e) {
-                MusicPlayerClientMod.LOGGER.error("关闭播放器时出错", e);
+    /**
+     * 打开开头片段之后的剩余部分（后台线程），文件长度与片段记录的不一致时丢弃片段并报错
+     */
+    private InputStream openRemainder(String cacheKey, String url, long offset, long length) throws IOException {
+        long requestStart = System.nanoTime();
+        URLConnection connection = openConnection(url, offset);
+        InputStream body = openBody(connection, offset);
+        metrics.recordTimeToFirstByte(System.nanoTime() - requestStart);
+        long remaining = connection.getContentLengthLong(),
+                end = remaining < 0 ? -1 : isPartial(connection) ? offset + remaining : remaining;
+        if (end >= 0 && length >= 0 && end != length) {
+            body.close();
+            headSegments.remove(cacheKey);
+            throw new IOException("音频文件与开头片段不一致，长度 " + end + " != " + length);
+        }
+        return resumable(url, body, offset, length);
+    }
+
+    /**
+     * 在后台下载可能接下来播放的音轨的开头片段，已完整缓存或离线模式下不下载
+     *
+     * @param tracks 按可能性从高到低排列的候选音轨
+     */
+    public void warmHeadSegments(List<MusicTrack> tracks) {
+        if (SettingsManager.getInstance().isOfflineMode()) {
+            return;
+        }
+        headSegments.warm(tracks.stream().filter(track -> !isCachedLocally(track)).toList());
+    }
+
+    /**
+     * 下载一首音轨开头几秒的原始数据（开头片段线程）
+     * <p>
+     * 按自适应音质当前的等级（不改变其选择状态）与对应地址下载，字节数由标称码率换算，文件开头的ID3标签另计，
+     * 读够后即断开连接；同时记录完整文件的长度，接续时据此核对。
+     * </p>
+     */
+    private void loadHeadSegment(MusicTrack track) throws IOException {
+        TrackLocation location = locate(track, false, true);
+        String url = location.url();
+        String cacheKey = AudioCache.key(track.getId(), location.quality());
+        if (Objects.isNull(url) || url.isEmpty() || headSegments.contains(cacheKey)) {
+            // 已缓存或无法获取地址
+            return;
+        }
+        AudioQualityEnum quality = Objects.requireNonNullElse(AudioQualityEnum.fromLevel(location.quality()),
+                AudioQualityEnum.EXHIGH);
+        URLConnection connection = openConnection(url, 0);
+        try (InputStream in = connection.getInputStream()) {
+            byte[] header = in.readNBytes(AudioDecoder.ID3V2_HEADER_SIZE);
+            long wanted = quality.getBitrateKbps() * 125L * ModConfig.HEAD_SEGMENT_SECONDS
+                    + AudioDecoder.id3TagSize(header, header.length);
+            byte[] data = Arrays.copyOf(header,
+                    (int) Math.min(wanted, ModConfig.HEAD_SEGMENT_MAX_BYTES / ModConfig.HEAD_SEGMENT_TRACKS));
+            int length = header.length + in.readNBytes(data, header.length, data.length - header.length);
+            metrics.recordDownload(length);
+            headSegments.put(cacheKey, new HeadSegmentCache.Segment(Arrays.copyOf(data, length),
+                    connection.getContentLengthLong()));
+            MusicPlayerClientMod.LOGGER.info("已下载开头片段 {} KB: {}", length / 1024, track.getTitle());
+        }
+    }
+
+    /**
+     * 建立到音频地址的连接，读取超时取断流判定时长
+     *
+     * @param offset 起始字节偏移，大于0时发送Range请求
+     */
+    private URLConnection openConnection(String url, long offset) throws IOException {
+        URLConnection connection = new URL(url).openConnection();
+        connection.setConnectTimeout(ModConfig.CONNECT_TIMEOUT);
+        connection.setReadTimeout(ModConfig.STREAM_STALL_TIMEOUT_MILLIS);
+        connection.setRequestProperty("User-Agent", USER_AGENT);
+        if (offset > 0) {
+            connection.setRequestProperty("Range", "bytes=" + offset + "-");
+        }
+        return connection;
+    }
+
+    /**
+     * 取得响应体并定位到指定偏移
+     */
+    private InputStream openBody(URLConnection connection, long offset) throws IOException {
+        InputStream in = connection.getInputStream();
+        if (offset > 0 && !isPartial(connection)) {
+            // 服务器不支持Range，只能从头读取并丢弃前面的数据
+            MusicPlayerClientMod.LOGGER.warn("服务器不支持Range请求，跳过 {} 字节", offset);
+            in.skipNBytes(offset);
+        }
+        return in;
+    }
+
+    private static boolean isPartial(URLConnection connection) throws IOException {
+        return connection instanceof HttpURLConnection http && http.getResponseCode() == HTTP_PARTIAL_CONTENT;
+    }
+
+    /**
+     * 确定本次播放的音质与地址
+     * <p>
+     * 目标音质由设置决定，自适应时根据吞吐量与欠载情况选择。
+     * 已缓存目标音质或更高音质时直接使用缓存；否则按目标音质重新获取地址，
+     * 获取失败时退回较低音质的缓存，仍没有时地址为空，由打开音频流时报告错误。
+     * 离线模式下只在缓存中选择最高的音质，不请求接口，没有缓存时地址为空。
+     * </p>
+     *
+     * @param commit     是否算作一次选曲：为true时自适应音质据欠载与吞吐量重新选择，
+     *                   为false时只读取当前音质（预先下载开头片段等），不改变自适应状态
+     * @param background 是否为后台调用（预取下一首、下载开头片段），地址请求走低优先级通道
+     */
+    private TrackLocation locate(MusicTrack track, boolean commit, boolean background) {
+        SettingsManager settings = SettingsManager.getInstance();
+        AudioQualityEnum[] levels = AudioQualityEnum.values();
+        if (settings.isOfflineMode()) {
+            for (int i = levels.length - 1; i >= 0; i--) {
+                if (isCached(track, levels[i])) {
+                    return new TrackLocation(levels[i].getLevel(), null);
+                }
             }
-            player = null;
+            return new TrackLocation(ModConfig.AUDIO_QUALITY, null);
         }
-        if (!Objects.isNull(currentStream)) {
-            try {
-                currentStream.close();
-            } catch (Exception e) {
-                MusicPlayerClientMod.LOGGER.error("关闭音频流时出错", e);
+        String quality;
+        if (settings.isAdaptiveQuality() && commit) {
+            adaptiveQuality.observeUnderruns(playback.get().player());
+            quality = adaptiveQuality.select();
+        } else if (settings.isAdaptiveQuality()) {
+            quality = adaptiveQuality.current();
+        } else {
+            quality = settings.getAudioQuality();
+        }
+        AudioQualityEnum target = AudioQualityEnum.fromLevel(quality);
+        for (int i = levels.length - 1; i >= 0; i--) {
+            if (levels[i].compareTo(target) >= 0 && isCached(track, levels[i])) {
+                return new TrackLocation(levels[i].getLevel(), null);
             }
-            currentStream = null;
         }
-        if (!Objects.isNull(playbackTask) && !playbackTask.isDone()) {
-            playbackTask.cancel(true);
+        String url = Objects.isNull(trackUrlResolver) ? null : trackUrlResolver.resolve(track, quality, background);
+        if (!Objects.isNull(url) && !url.isEmpty()) {
+            return new TrackLocation(quality, url);
+        }
+        MusicPlayerClientMod.LOGGER.warn("按音质 {} 获取播放地址失败: {}", quality, track.getTitle());
+        for (int i = target.ordinal() - 1; i >= 0; i--) {
+            if (isCached(track, levels[i])) {
+                return new TrackLocation(levels[i].getLevel(), null);
+            }
         }
-        currentTrack = null;
+        MusicPlayerClientMod.LOGGER.error("无法获取播放地址，也没有可用的缓存: {}", track.getTitle());
+        return new TrackLocation(quality, null);
+    }
+
+    private boolean isCached(MusicTrack track, AudioQualityEnum quality) {
+        return !Objects.isNull(audioCache.lookup(AudioCache.key(track.getId(), quality.getLevel())));
+    }
+
+    /**
+     * 判断音轨是否已有任一音质的完整缓存，不刷新缓存的访问顺序，可在渲染时逐行调用
+     */
+    public boolean isCachedLocally(MusicTrack track) {
+        if (Objects.isNull(track.getId())) {
+            return false;
+        }
+        for (AudioQualityEnum quality : AudioQualityEnum.values()) {
+            if (audioCache.contains(AudioCache.key(track.getId(), quality.getLevel()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 关闭音频流，读完的流会在此时提交到缓存
+     */
+    private void closeStream(InputStream stream) {
+        if (Objects.isNull(stream)) {
+            return;
+        }
+        try {
+            stream.close();
+        } catch (Exception e) {
+            MusicPlayerClientMod.LOGGER.error("关闭音频流时出错", e);
+        }
+    }
+
+    /**
+     * 暂停播放，保留解码状态和已缓冲的数据
+     */
+    public void pause() {
+        stopPreview();
+        Playback current = playback.get();
+        Playback paused = transition(current.generation(), EnumSet.of(PlaybackState.BUFFERING, PlaybackState.PLAYING),
+                p -> p.withState(PlaybackState.PAUSED));
+        if (Objects.isNull(paused)) {
+            return;
+        }
+        paused.player().pause();
+        MusicPlayerClientMod.LOGGER.info("播放已暂停，位置: {} ms", paused.player().getPositionMillis());
+    }
+
+    /**
+     * 从暂停的帧继续播放
+     */
+    public void resume() {
+        Playback current = playback.get();
+        Playback resumed = transition(current.generation(), EnumSet.of(PlaybackState.PAUSED),
+                p -> p.withState(PlaybackState.PLAYING));
+        if (Objects.isNull(resumed)) {
+            return;
+        }
+        resumed.player().resume();
+        MusicPlayerClientMod.LOGGER.info("播放已恢复");
+    }
+
+    /**
+     * 跳转到指定位置（毫秒），暂停状态下跳转后仍保持暂停
+     */
+    public void seek(long positionMillis) {
+        StreamPlayer current = playback.get().player();
+        if (Objects.isNull(current)) {
+            return;
+        }
+        long duration = getDuration();
+        long target = duration > 0 ? Math.min(positionMillis, duration) : positionMillis;
+        current.seek(Math.max(0, target));
+        MusicPlayerClientMod.LOGGER.info("请求跳转到 {} ms", target);
+    }
+
+    /**
+     * 停止播放：以新的一代进入停止状态，释放上一代的资源后回到空闲
+     */
+    public void stop() {
+        stopPreview();
+        prefetcher.cancel();
+        Playback previous = supersede(PlaybackState.STOPPING, null);
+        release(previous);
+        transition(previous.generation() + 1, EnumSet.of(PlaybackState.STOPPING), p -> p.withState(PlaybackState.IDLE));
         MusicPlayerClientMod.LOGGER.info("播放已停止");
     }
 
+    public PlaybackState getState() {
+        return playback.get().state();
+    }
+
     public boolean isPlaying() {
-        return isPlaying.get();
+        return playback.get().state().isPlaying();
     }
 
     public boolean isPaused() {
-        return isPaused.get();
+        return playback.get().state() == PlaybackState.PAUSED;
     }
 
     public MusicTrack getCurrentTrack() {
-        return currentTrack;
+        return playback.get().track();
     }
 
+    /**
+     * 获取播放位置（毫秒），由输出设备实际播放的帧数推算，可在渲染线程上每帧调用
+     */
     public long getPosition() {
-        if (isPlaying.get() && playStartTime > 0) {
-            return System.currentTimeMillis() - playStartTime + pausedPosition;
-        }
-        return pausedPosition;
+        StreamPlayer current = playback.get().player();
+        return Objects.isNull(current) ? 0 : current.getPositionMillis();
+    }
+
+    /**
+     * PCM缓冲区填充比例（0~1），未播放时为0
+     */
+    public float getBufferFill() {
+        StreamPlayer current = playback.get().player();
+        return Objects.isNull(current) ? 0 : current.getBufferFill();
+    }
+
+    /**
+     * 当前音轨播放过程中的缓冲区欠载次数
+     */
+    public long getUnderrunCount() {
+        StreamPlayer current = playback.get().player();
+        return Objects.isNull(current) ? 0 : current.getUnderruns();
+    }
+
+    /**
+     * 当前音轨使用的音质等级，未播放时返回null
+     */
+    public String getCurrentQuality() {
+        return playback.get().quality();
+    }
+
+    /**
+     * 自适应音质测得的网络吞吐量（kbps），尚无数据时为0
+     */
+    public long getThroughputKbps() {
+        return Math.round(adaptiveQuality.throughputKbps());
+    }
+
+    /**
+     * 音频流断流后重连的累计次数
+     */
+    public long getReconnectCount() {
+        return metrics.reconnects();
+    }
+
+    /**
+     * 音频流因断流停滞的累计时长（毫秒）
+     */
+    public long getStallMillis() {
+        return metrics.stallTime().totalNanos() / 1_000_000;
+    }
+
+    /**
+     * 单次停滞的最长时长（毫秒）
+     */
+    public long getLongestStallMillis() {
+        return metrics.stallTime().maxNanos() / 1_000_000;
+    }
+
+    /**
+     * 音频链路指标，供 /music stats 与调试面板显示
+     */
+    public AudioMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 所有播放累计的缓冲区欠载次数，包括当前音轨
+     */
+    public long getTotalUnderrunCount() {
+        return metrics.finishedUnderruns() + getUnderrunCount();
     }
 
     public long getDuration() {
-        return !Objects.isNull(currentTrack) ? currentTrack.getDuration() : 0;
+        MusicTrack track = playback.get().track();
+        return !Objects.isNull(track) ? track.getDuration() : 0;
     }
 
     public void shutdown() {
         MusicPlayerClientMod.LOGGER.info("正在关闭音频管理器");
         stop();
+        prefetcher.shutdown();
+        headSegments.shutdown();
+        previewThread.shutdownNow();
         audioThread.shutdown();
     }
 
+    /**
+     * 当前播放内容的频谱，供HUD绘制
+     */
+    public SpectrumAnalyzer getSpectrum() {
+        return spectrum;
+    }
+
+    public AudioCache getAudioCache() {
+        return audioCache;
+    }
+
     public void setOnTrackEndCallback(Runnable callback) {
         this.onTrackEndCallback = callback;
     }
@@ -185,6 +989,27 @@ public final class AudioManager {
         this.onTrackStartCallback = callback;
     }
 
+    /**
+     * 设置下一首的供应者，用于临近结束时预取
+     */
+    public void setNextTrackSupplier(Supplier<MusicTrack> supplier) {
+        this.nextTrackSupplier = supplier;
+    }
+
+    /**
+     * 设置按音质获取播放地址的方法
+     */
+    public void setTrackUrlResolver(UrlResolver resolver) {
+        this.trackUrlResolver = resolver;
+    }
+
+    /**
+     * 设置无缝切换到下一首时的回调
+     */
+    public void setOnTrackHandoverCallback(Consumer<MusicTrack> callback) {
+        this.onTrackHandoverCallback = callback;
+    }
+
     public void onTrackEnded() {
         if (!Objects.isNull(onTrackEndCallback)) {
             onTrackEndCallback.run();
@@ -0,0 +1,168 @@
+package com.rain.client.audio;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 音频链路指标
+ * <p>
+ * 由网络、解码、输出各线程并发累计：计数使用 {@link LongAdder}，耗时记入 {@link LatencyHistogram}，
+ * 记录时不加锁也不分配内存。读取到的是近似一致的快照，供 /music stats 与调试面板显示。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+public final class AudioMetrics {
+
+    /**
+     * 从发起请求到收到响应头的耗时
+     */
+    private final LatencyHistogram timeToFirstByte = new LatencyHistogram();
+
+    /**
+     * 从点播到第一帧开始输出的耗时
+     */
+    private final LatencyHistogram timeToFirstAudio = new LatencyHistogram();
+
+    /**
+     * 每帧的解码耗时，包含从已缓冲的输入流读取该帧的时间，网络停顿会体现在尾部
+     */
+    private final LatencyHistogram decodeTime = new LatencyHistogram();
+
+    /**
+     * 断流后从发起读取到重连后读到数据的时长
+     */
+    private final LatencyHistogram stallTime = new LatencyHistogram();
+
+    private final LongAdder reconnects = new LongAdder();
+
+    private final LongAdder underruns = new LongAdder();
+
+    private final LongAdder bytesDownloaded = new LongAdder();
+
+    private final LongAdder cacheHits = new LongAdder();
+
+    private final LongAdder headSegmentHits = new LongAdder();
+
+    private final LongAdder networkOpens = new LongAdder();
+
+    void recordTimeToFirstByte(long nanos) {
+        timeToFirstByte.record(nanos);
+    }
+
+    void recordTimeToFirstAudio(long nanos) {
+        timeToFirstAudio.record(nanos);
+    }
+
+    void recordDecode(long nanos) {
+        decodeTime.record(nanos);
+    }
+
+    void recordReconnect() {
+        reconnects.increment();
+    }
+
+    /**
+     * 记录一次已恢复的停滞
+     *
+     * @param nanos 从发起读取到重连后读到数据的时长
+     */
+    void recordStall(long nanos) {
+        stallTime.record(nanos);
+    }
+
+    /**
+     * 累计一个已结束的播放器的欠载次数
+     */
+    void recordUnderruns(long count) {
+        underruns.add(count);
+    }
+
+    void recordDownload(long bytes) {
+        bytesDownloaded.add(bytes);
+    }
+
+    /**
+     * 从头打开音轨时记录数据来源
+     */
+    void recordCacheHit() {
+        cacheHits.increment();
+    }
+
+    void recordHeadSegmentHit() {
+        headSegmentHits.increment();
+    }
+
+    void recordNetworkOpen() {
+        networkOpens.increment();
+    }
+
+    public LatencyHistogram timeToFirstByte() {
+        return timeToFirstByte;
+    }
+
+    public LatencyHistogram timeToFirstAudio() {
+        return timeToFirstAudio;
+    }
+
+    public LatencyHistogram decodeTime() {
+        return decodeTime;
+    }
+
+    public LatencyHistogram stallTime() {
+        return stallTime;
+    }
+
+    public long reconnects() {
+        return reconnects.sum();
+    }
+
+    /**
+     * 已结束的播放器累计的欠载次数，不含当前播放器
+     */
+    long finishedUnderruns() {
+        return underruns.sum();
+    }
+
+    public long bytesDownloaded() {
+        return bytesDownloaded.sum();
+    }
+
+    public long cacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long headSegmentHits() {
+        return headSegmentHits.sum();
+    }
+
+    public long networkOpens() {
+        return networkOpens.sum();
+    }
+
+    /**
+     * 从头打开音轨时命中磁盘缓存的比例（0~1），没有记录时为0
+     */
+    public double cacheHitRate() {
+        long hits = cacheHits.sum(),
+                total = hits + headSegmentHits.sum() + networkOpens.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * 清空全部指标
+     */
+    public void reset() {
+        timeToFirstByte.reset();
+        timeToFirstAudio.reset();
+        decodeTime.reset();
+        stallTime.reset();
+        reconnects.reset();
+        underruns.reset();
+        bytesDownloaded.reset();
+        cacheHits.reset();
+        headSegmentHits.reset();
+        networkOpens.reset();
+    }
+}
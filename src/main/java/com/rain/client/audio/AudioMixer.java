@@ -0,0 +1,83 @@
+package com.rain.client.audio;
+
+import javazoom.jl.decoder.JavaLayerException;
+
+/**
+ * 淡入淡出混音器
+ * <p>
+ * 从即将结束和即将开始的两条音轨各读取一块采样，按等功率曲线混合为一块16位PCM。
+ * 所有缓冲区在创建时分配并反复使用，混音循环中不产生任何对象；
+ * 增益曲线预先制表，逐采样只做查表、乘加和截断。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+final class AudioMixer {
+
+    /**
+     * 每次混音的采样帧数
+     */
+    static final int BLOCK_FRAMES = 1024;
+
+    private static final int MAX_CHANNELS = 2;
+
+    private static final int CURVE_RESOLUTION = 1024;
+
+    /**
+     * 等功率曲线：sin(π/2·t)，淡入取正序，淡出取逆序
+     */
+    private static final float[] EQUAL_POWER_CURVE = new float[CURVE_RESOLUTION + 1];
+
+    static {
+        for (int i = 0; i <= CURVE_RESOLUTION; i++) {
+            EQUAL_POWER_CURVE[i] = (float) Math.sin(Math.PI / 2 * i / CURVE_RESOLUTION);
+        }
+    }
+
+    private final float[] outgoingBlock = new float[BLOCK_FRAMES * MAX_CHANNELS];
+
+    private final float[] incomingBlock = new float[BLOCK_FRAMES * MAX_CHANNELS];
+
+    private final short[] mixed = new short[BLOCK_FRAMES * MAX_CHANNELS];
+
+    /**
+     * 混合一块采样，两条音轨的采样率与声道数必须一致
+     *
+     * @param outgoing    淡出的音轨，已结束时按静音处理
+     * @param incoming    淡入的音轨
+     * @param fadeFrame   本块起点在淡入淡出过程中的采样帧序号
+     * @param fadeFrames  淡入淡出总采样帧数
+     * @return 混合得到的采样帧数，两条音轨都已结束时返回0
+     */
+    int mix(TrackDecoder outgoing, TrackDecoder incoming, long fadeFrame, long fadeFrames) throws JavaLayerException {
+        int channels = incoming.channels(),
+                outgoingFrames = outgoing.readFloat(outgoingBlock, BLOCK_FRAMES),
+                incomingFrames = incoming.readFloat(incomingBlock, BLOCK_FRAMES),
+                frames = Math.max(outgoingFrames, incomingFrames),
+                outgoingSamples = outgoingFrames * channels,
+                incomingSamples = incomingFrames * channels;
+        for (int frame = 0; frame < frames; frame++) {
+            long progress = Math.min(fadeFrame + frame, fadeFrames);
+            int step = (int) (progress * CURVE_RESOLUTION / fadeFrames);
+            float fadeIn = EQUAL_POWER_CURVE[step],
+                    fadeOut = EQUAL_POWER_CURVE[CURVE_RESOLUTION - step];
+            for (int channel = 0; channel < channels; channel++) {
+                int index = frame * channels + channel;
+                float a = index < outgoingSamples ? outgoingBlock[index] : 0.0f,
+                        b = index < incomingSamples ? incomingBlock[index] : 0.0f,
+                        sample = (a * fadeOut + b * fadeIn) * 32767.0f;
+                mixed[index] = (short) Math.max(-32768.0f, Math.min(32767.0f, sample));
+            }
+        }
+        return frames;
+    }
+
+    /**
+     * 最近一次混合的结果
+     */
+    short[] mixed() {
+        return mixed;
+    }
+}
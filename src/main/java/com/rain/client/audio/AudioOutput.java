@@ -0,0 +1,85 @@
+package com.rain.client.audio;
+
+import com.rain.client.MusicPlayerClientMod;
+import com.rain.common.config.ModConfig;
+import javazoom.jl.decoder.JavaLayerException;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.sound.SoundCategory;
+
+import javax.sound.sampled.AudioFormat;
+import java.util.Objects;
+
+/**
+ * 音频输出后端
+ * <p>
+ * 优先使用游戏自身的OpenAL音频引擎（跟随主音量/音乐音量滑块与所选输出设备），
+ * OpenAL不可用时退回JLayer的JavaSound设备。
+ * 除 {@link #pause()}、{@link #resume()}、{@link #close()} 外，其余方法只在输出线程上调用。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+interface AudioOutput {
+
+    /**
+     * 写入交错的16位PCM采样，输出缓冲已满时阻塞
+     */
+    void write(short[] samples, int offset, int length) throws JavaLayerException;
+
+    /**
+     * 暂停输出，已写入的数据保留
+     */
+    void pause();
+
+    /**
+     * 恢复输出
+     */
+    void resume();
+
+    /**
+     * 丢弃已写入但尚未播放的数据（跳转时使用）
+     */
+    void discard();
+
+    /**
+     * 等待已写入的数据全部播放完毕
+     */
+    void drain();
+
+    /**
+     * 设备自打开以来实际播放出的采样帧数（音频时钟）；丢弃的数据计为已播放
+     */
+    long playedFrames();
+
+    void close();
+
+    /**
+     * 按格式打开输出，优先OpenAL
+     */
+    static AudioOutput open(AudioFormat format) throws JavaLayerException {
+        if (ModConfig.PREFER_OPENAL_OUTPUT) {
+            AudioOutput openAl = OpenAlAudioOutput.tryOpen(format);
+            if (!Objects.isNull(openAl)) {
+                return openAl;
+            }
+            MusicPlayerClientMod.LOGGER.warn("OpenAL输出不可用，改用JavaSound输出");
+        }
+        return new JavaSoundAudioOutput(format);
+    }
+
+    /**
+     * 游戏设置中的音量
+     *
+     * @param includeMaster 是否乘上主音量（OpenAL的主音量由监听器增益承担，无需再乘）
+     */
+    static float gameVolume(boolean includeMaster) {
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (Objects.isNull(client) || Objects.isNull(client.options)) {
+            return 1.0f;
+        }
+        float music = client.options.getSoundVolume(SoundCategory.MUSIC);
+        return includeMaster ? music * client.options.getSoundVolume(SoundCategory.MASTER) : music;
+    }
+}
@@ -0,0 +1,172 @@
+package com.rain.client.audio;
+
+import com.rain.client.MusicPlayerClientMod;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * 边读边写的缓存输入流
+ * <p>
+ * 解码器读取到的每个字节都会同时写入临时文件；
+ * 只有读到流末尾且长度与预期一致时才会提交，否则关闭时丢弃临时文件。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+final class CachingInputStream extends FilterInputStream {
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 缓存提交回调
+     */
+    @FunctionalInterface
+    interface CommitHandler {
+        void commit(Path partFile, long length);
+    }
+
+    private final Path partFile;
+
+    private final long expectedLength;
+
+    private final CommitHandler commitHandler;
+
+    private volatile OutputStream output;
+
+    private long written;
+
+    private volatile boolean complete;
+
+    private volatile boolean closed;
+
+    CachingInputStream(InputStream source, Path partFile, long expectedLength, CommitHandler commitHandler) throws IOException {
+        super(source);
+        this.partFile = partFile;
+        this.expectedLength = expectedLength;
+        this.commitHandler = commitHandler;
+        this.output = new BufferedOutputStream(Files.newOutputStream(partFile), WRITE_BUFFER_SIZE);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        OutputStream out = output;
+        if (b == -1) {
+            complete = true;
+        } else if (!Objects.isNull(out)) {
+            try {
+                out.write(b);
+                written++;
+            } catch (IOException e) {
+                abandon(e);
+            }
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        OutputStream out = output;
+        if (n == -1) {
+            complete = true;
+        } else if (n > 0 && !Objects.isNull(out)) {
+            try {
+                out.write(b, off, n);
+                written += n;
+            } catch (IOException e) {
+                abandon(e);
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // 跳过的字节同样需要写入缓存，否则缓存文件会缺失数据
+        byte[] buffer = new byte[(int) Math.min(n, 4096)];
+        long remaining = n;
+        while (remaining > 0) {
+            int read = read(buffer, 0, (int) Math.min(remaining, buffer.length));
+            if (read < 0) {
+                break;
+            }
+            remaining -= read;
+        }
+        return n - remaining;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * 播放线程读取时可能被客户端线程关闭，关闭原始流会让阻塞中的读取尽快返回
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            super.close();
+        } finally {
+            finish();
+        }
+    }
+
+    private synchronized void finish() {
+        if (Objects.isNull(output)) {
+            return;
+        }
+        boolean commit = complete && written > 0 && (expectedLength < 0 || written == expectedLength);
+        try {
+            output.close();
+        } catch (IOException e) {
+            commit = false;
+            MusicPlayerClientMod.LOGGER.warn("写入音频缓存失败", e);
+        }
+        output = null;
+        if (commit) {
+            commitHandler.commit(partFile, written);
+        } else {
+            deletePartFile();
+        }
+    }
+
+    /**
+     * 写入失败时放弃缓存，但不影响播放
+     */
+    private synchronized void abandon(IOException cause) {
+        if (Objects.isNull(output)) {
+            return;
+        }
+        MusicPlayerClientMod.LOGGER.warn("写入音频缓存失败，放弃本次缓存", cause);
+        try {
+            output.close();
+        } catch (IOException ignored) {
+            // 已经放弃缓存
+        }
+        output = null;
+        deletePartFile();
+    }
+
+    private void deletePartFile() {
+        try {
+            Files.deleteIfExists(partFile);
+        } catch (IOException e) {
+            MusicPlayerClientMod.LOGGER.warn("删除缓存临时文件失败: {}", partFile, e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.rain.client.audio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * 在后台打开的输入流
+ * <p>
+ * 创建时即在后台线程上开始打开真正的输入流，第一次读取时才等待其就绪，
+ * 调用方在此之前可以先读取其他数据（例如内存中的开头片段）。
+ * 就绪之前被关闭时唤醒等待中的读取，稍后打开的流会被直接关闭。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+final class DeferredInputStream extends InputStream {
+
+    /**
+     * 打开真正的输入流
+     */
+    @FunctionalInterface
+    interface Opener {
+        InputStream open() throws IOException;
+    }
+
+    private final CompletableFuture<InputStream> source = new CompletableFuture<>();
+
+    DeferredInputStream(Opener opener, Executor executor) {
+        executor.execute(() -> {
+            try {
+                InputStream in = opener.open();
+                if (!source.complete(in)) {
+                    // 已被关闭
+                    in.close();
+                }
+            } catch (IOException | RuntimeException e) {
+                // 任何失败都要完成等待中的读取，否则解码线程会一直阻塞
+                source.completeExceptionally(e);
+            }
+        });
+    }
+
+    @Override
+    public int read() throws IOException {
+        return source().read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        return source().read(b, off, len);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return source.isDone() ? source().available() : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!source.completeExceptionally(new IOException("音频流已关闭")) && !source.isCompletedExceptionally()) {
+            source.join().close();
+        }
+    }
+
+    private InputStream source() throws IOException {
+        try {
+            return source.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待音频流时被中断");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("打开音频流失败", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.rain.client.audio;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * FLAC比特流读取器
+ * <p>
+ * 按大端位序从输入流读取任意位宽的整数，以及莱斯编码的残差；
+ * 读取缓冲区和位缓存都是固定大小，解码过程中不分配内存。
+ * 同时记录当前位置在整个文件中的字节偏移，用于建立跳转索引。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+final class FlacBitReader {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private InputStream in;
+
+    private int bufferPosition;
+
+    private int bufferLimit;
+
+    /**
+     * buffer[0] 在文件中的字节偏移
+     */
+    private long bufferStart;
+
+    /**
+     * 位缓存，低 cacheBits 位为尚未读取的数据
+     */
+    private long cache;
+
+    private int cacheBits;
+
+    FlacBitReader(InputStream in, long offset) {
+        reset(in, offset);
+    }
+
+    /**
+     * 换用从指定字节偏移开始的输入流（跳转后调用）
+     */
+    void reset(InputStream stream, long offset) {
+        this.in = stream;
+        this.bufferStart = offset;
+        this.bufferPosition = 0;
+        this.bufferLimit = 0;
+        this.cache = 0;
+        this.cacheBits = 0;
+    }
+
+    /**
+     * 下一个未读字节在文件中的偏移，仅在字节对齐时有意义
+     */
+    long position() {
+        return bufferStart + bufferPosition - (cacheBits >> 3);
+    }
+
+    /**
+     * 读取无符号整数
+     *
+     * @param bits 位宽，0~32
+     */
+    int readUInt(int bits) throws IOException {
+        if (bits == 0) {
+            return 0;
+        }
+        while (cacheBits < bits) {
+            cache = cache << 8 | nextByte();
+            cacheBits += 8;
+        }
+        cacheBits -= bits;
+        return (int) (cache >>> cacheBits & (1L << bits) - 1);
+    }
+
+    /**
+     * 读取有符号（二进制补码）整数
+     *
+     * @param bits 位宽，0~32
+     */
+    int readSigned(int bits) throws IOException {
+        if (bits == 0) {
+            return 0;
+        }
+        int shift = 32 - bits;
+        return readUInt(bits) << shift >> shift;
+    }
+
+    /**
+     * 读取64位无符号整数
+     */
+    long readLong() throws IOException {
+        return (long) readUInt(32) << 32 | readUInt(32) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * 读取一元编码：连续的0的个数，随后的1一并消耗
+     */
+    int readUnary() throws IOException {
+        int count = 0;
+        while (true) {
+            if (cacheBits == 0) {
+                cache = nextByte();
+                cacheBits = 8;
+            }
+            long bits = cache & (1L << cacheBits) - 1;
+            if (bits == 0) {
+                count += cacheBits;
+                cacheBits = 0;
+                continue;
+            }
+            int highest = 63 - Long.numberOfLeadingZeros(bits);
+            count += cacheBits - 1 - highest;
+            cacheBits = highest;
+            return count;
+        }
+    }
+
+    /**
+     * 读取一段莱斯编码的残差并做zigzag解码
+     *
+     * @param dst       目标数组
+     * @param offset    写入的起始下标
+     * @param count     残差个数
+     * @param parameter 莱斯参数
+     */
+    void readRice(int[] dst, int offset, int count, int parameter) throws IOException {
+        int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            int value = readUnary() << parameter | readUInt(parameter);
+            dst[i] = value >>> 1 ^ -(value & 1);
+        }
+    }
+
+    /**
+     * 丢弃到下一个字节边界为止的剩余位
+     */
+    void alignToByte() {
+        cacheBits -= cacheBits & 7;
+    }
+
+    /**
+     * 在字节对齐时读取一个字节
+     *
+     * @return 输入流已结束时返回-1
+     */
+    int readByteOrEnd() throws IOException {
+        if (cacheBits >= 8) {
+            cacheBits -= 8;
+            return (int) (cache >>> cacheBits) & 0xFF;
+        }
+        if (bufferPosition == bufferLimit && !fill()) {
+            return -1;
+        }
+        return buffer[bufferPosition++] & 0xFF;
+    }
+
+    /**
+     * 在字节对齐时跳过若干字节
+     */
+    void skipBytes(long count) throws IOException {
+        long remaining = count;
+        while (remaining > 0 && cacheBits >= 8) {
+            cacheBits -= 8;
+            remaining--;
+        }
+        while (remaining > 0) {
+            if (bufferPosition == bufferLimit && !fill()) {
+                throw new EOFException("FLAC流提前结束");
+            }
+            int step = (int) Math.min(remaining, bufferLimit - bufferPosition);
+            bufferPosition += step;
+            remaining -= step;
+        }
+    }
+
+    /**
+     * 关闭当前输入流，唤醒阻塞中的读取
+     */
+    void close() {
+        try {
+            in.close();
+        } catch (IOException ignored) {
+            // 已不再读取
+        }
+    }
+
+    private int nextByte() throws IOException {
+        if (bufferPosition == bufferLimit && !fill()) {
+            throw new EOFException("FLAC流提前结束");
+        }
+        return buffer[bufferPosition++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        bufferStart += bufferLimit;
+        bufferPosition = 0;
+        bufferLimit = 0;
+        int count = in.read(buffer, 0, BUFFER_SIZE);
+        if (count <= 0) {
+            return false;
+        }
+        bufferLimit = count;
+        return true;
+    }
+}
@@ -0,0 +1,666 @@
+package com.rain.client.audio;
+
+import com.rain.client.MusicPlayerClientMod;
+import javazoom.jl.decoder.JavaLayerException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * 流式FLAC解码后端
+ * <p>
+ * 读取元数据中的STREAMINFO和SEEKTABLE后逐帧解码：定长/线性预测子帧、莱斯编码残差、
+ * 立体声去相关，最后按位深缩放为16位PCM。声道缓冲区和输出缓冲区按STREAMINFO中的
+ * 最大块长一次分配并逐帧复用。多于两个声道时只输出前左、前右两个声道。
+ * </p>
+ * <p>
+ * 解码过程中记录每一帧的采样号和字节偏移，跳转到已解码区域时精确到帧；
+ * 其余位置在已知的索引点、SEEKTABLE之间按字节线性插值，从估算的偏移处重新同步到下一帧，
+ * 并以该帧头中的采样号作为实际位置。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+final class FlacDecoder implements AudioDecoder {
+
+    static final byte[] MAGIC = {'f', 'L', 'a', 'C'};
+
+    private static final int BLOCK_STREAMINFO = 0;
+
+    private static final int BLOCK_SEEKTABLE = 3;
+
+    private static final int SEEK_POINT_SIZE = 18;
+
+    private static final long PLACEHOLDER_SEEK_POINT = -1L;
+
+    private static final int MAX_HEADER_SIZE = 16;
+
+    private static final int MAX_LPC_ORDER = 32;
+
+    private static final int MAX_SUPPORTED_BPS = 24;
+
+    private static final int OUTPUT_BITS = 16;
+
+    private static final int INITIAL_INDEX_CAPACITY = 1024;
+
+    private static final int[] FIXED_SAMPLE_RATES = {
+            0, 88200, 176400, 192000, 8000, 16000, 22050, 24000, 32000, 44100, 48000, 96000
+    };
+
+    private static final int[] SAMPLE_SIZES = {0, 8, 12, 0, 16, 20, 24, 0};
+
+    private static final int[] CRC8_TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x80) != 0 ? crc << 1 ^ 0x07 : crc << 1;
+            }
+            CRC8_TABLE[i] = crc & 0xFF;
+        }
+    }
+
+    private final FlacBitReader reader;
+
+    // ========== STREAMINFO ==========
+
+    private final int minBlockSize;
+
+    private final int maxBlockSize;
+
+    private final int streamSampleRate;
+
+    private final int streamChannels;
+
+    private final int streamBitsPerSample;
+
+    private final long totalSamples;
+
+    /**
+     * 第一帧在文件中的字节偏移，SEEKTABLE中的偏移以此为基准
+     */
+    private final long firstFrameOffset;
+
+    private long[] seekTableSamples = new long[0];
+
+    private long[] seekTableOffsets = new long[0];
+
+    // ========== 已解码帧的索引 ==========
+
+    private long[] indexSamples = new long[INITIAL_INDEX_CAPACITY];
+
+    private long[] indexOffsets = new long[INITIAL_INDEX_CAPACITY];
+
+    private int indexCount;
+
+    // ========== 当前帧 ==========
+
+    private final byte[] header = new byte[MAX_HEADER_SIZE];
+
+    private final int[] coefficients = new int[MAX_LPC_ORDER];
+
+    private int[][] channelSamples;
+
+    private short[] pcm;
+
+    private boolean headerPending;
+
+    private boolean ended;
+
+    private long frameOffset;
+
+    private long frameSampleNumber;
+
+    private int frameBlockSize;
+
+    private int frameSampleRate;
+
+    private int frameAssignment;
+
+    private int frameBitsPerSample;
+
+    private final int outputChannels;
+
+    private int sampleCount;
+
+    /**
+     * @param stream  从文件开头开始的输入流
+     * @param tagSize 文件开头ID3v2标签的长度，没有时为0
+     */
+    FlacDecoder(InputStream stream, long tagSize) throws IOException {
+        this.reader = new FlacBitReader(stream, 0);
+        reader.skipBytes(tagSize);
+        for (byte expected : MAGIC) {
+            if (reader.readUInt(8) != (expected & 0xFF)) {
+                throw new IOException("不是FLAC文件");
+            }
+        }
+        int minBlock = 0, maxBlock = 0, rate = 0, channelCount = 0, bits = 0;
+        long samples = 0;
+        boolean hasStreamInfo = false, last = false;
+        while (!last) {
+            last = reader.readUInt(1) == 1;
+            int type = reader.readUInt(7),
+                    length = reader.readUInt(24);
+            if (type == BLOCK_STREAMINFO) {
+                minBlock = reader.readUInt(16);
+                maxBlock = reader.readUInt(16);
+                reader.readUInt(24);
+                reader.readUInt(24);
+                rate = reader.readUInt(20);
+                channelCount = reader.readUInt(3) + 1;
+                bits = reader.readUInt(5) + 1;
+                samples = (long) reader.readUInt(4) << 32 | reader.readUInt(32) & 0xFFFFFFFFL;
+                // MD5签名
+                reader.skipBytes(length - 18);
+                hasStreamInfo = true;
+            } else if (type == BLOCK_SEEKTABLE) {
+                readSeekTable(length);
+            } else {
+                reader.skipBytes(length);
+            }
+        }
+        if (!hasStreamInfo) {
+            throw new IOException("FLAC文件缺少STREAMINFO");
+        }
+        if (bits > MAX_SUPPORTED_BPS) {
+            throw new IOException("不支持的FLAC位深: " + bits);
+        }
+        this.minBlockSize = minBlock;
+        this.maxBlockSize = Math.max(maxBlock, minBlock);
+        this.streamSampleRate = rate;
+        this.streamChannels = channelCount;
+        this.streamBitsPerSample = bits;
+        this.totalSamples = samples;
+        this.firstFrameOffset = reader.position();
+        this.outputChannels = Math.min(channelCount, 2);
+        allocate(Math.max(this.maxBlockSize, 1));
+        MusicPlayerClientMod.LOGGER.info("FLAC音频: {} Hz, {} 声道, {} 位", rate, channelCount, bits);
+    }
+
+    @Override
+    public boolean decodeFrame() throws JavaLayerException {
+        try {
+            if (ended) {
+                return false;
+            }
+            if (!headerPending && !readFrameHeader()) {
+                ended = true;
+                return false;
+            }
+            headerPending = false;
+            decodeFrameBody();
+            return true;
+        } catch (EOFException e) {
+            MusicPlayerClientMod.LOGGER.warn("FLAC流在帧中间结束，按音轨结束处理");
+            ended = true;
+            return false;
+        } catch (IOException e) {
+            throw new JavaLayerException("FLAC解码失败", e);
+        }
+    }
+
+    @Override
+    public short[] samples() {
+        return pcm;
+    }
+
+    @Override
+    public int sampleCount() {
+        return sampleCount;
+    }
+
+    @Override
+    public int frameLength() {
+        return frameBlockSize;
+    }
+
+    @Override
+    public int sampleRate() {
+        return frameSampleRate;
+    }
+
+    @Override
+    public int channels() {
+        return outputChannels;
+    }
+
+    @Override
+    public SeekPoint locate(long positionMillis) {
+        if (indexCount == 0 || streamSampleRate == 0) {
+            return null;
+        }
+        long target = positionMillis * streamSampleRate / 1000;
+        if (totalSamples > 0) {
+            target = Math.min(target, totalSamples - 1);
+        }
+        // 1. 已解码区域：目标所在的帧
+        int index = floorIndex(indexSamples, indexCount, target);
+        if (index >= 0 && index + 1 < indexCount && indexSamples[index + 1] > target
+                && indexSamples[index + 1] - indexSamples[index] <= maxBlockSize) {
+            return new SeekPoint(indexOffsets[index], toMillis(indexSamples[index]));
+        }
+        // 2. 在目标两侧最近的已知帧之间按字节插值
+        long lowSample = 0, lowOffset = firstFrameOffset, highSample = -1, highOffset = -1;
+        for (int i = 0; i < indexCount + seekTableSamples.length; i++) {
+            long sample = i < indexCount ? indexSamples[i] : seekTableSamples[i - indexCount],
+                    offset = i < indexCount ? indexOffsets[i] : firstFrameOffset + seekTableOffsets[i - indexCount];
+            if (sample <= target && sample >= lowSample) {
+                lowSample = sample;
+                lowOffset = offset;
+            } else if (sample > target && (highSample < 0 || sample < highSample)) {
+                highSample = sample;
+                highOffset = offset;
+            }
+        }
+        double bytesPerSample;
+        if (highSample > lowSample) {
+            bytesPerSample = (double) (highOffset - lowOffset) / (highSample - lowSample);
+        } else {
+            long spanSamples = indexSamples[indexCount - 1] - indexSamples[0];
+            if (spanSamples <= 0) {
+                return null;
+            }
+            bytesPerSample = (double) (indexOffsets[indexCount - 1] - indexOffsets[0]) / spanSamples;
+        }
+        // 估算点提前一帧，重新同步后落在目标之前而不是之后
+        long estimate = lowOffset + (long) ((target - lowSample - maxBlockSize) * bytesPerSample);
+        return new SeekPoint(Math.max(lowOffset, estimate), positionMillis);
+    }
+
+    @Override
+    public long restart(InputStream stream, SeekPoint point) throws JavaLayerException {
+        reader.close();
+        reader.reset(stream, point.byteOffset());
+        ended = false;
+        try {
+            if (!readFrameHeader()) {
+                ended = true;
+                return toMillis(totalSamples);
+            }
+        } catch (IOException e) {
+            throw new JavaLayerException("FLAC跳转后同步失败", e);
+        }
+        headerPending = true;
+        return toMillis(frameSampleNumber);
+    }
+
+    @Override
+    public void close() {
+        reader.close();
+    }
+
+    // ========== 元数据 ==========
+
+    private void readSeekTable(int length) throws IOException {
+        int points = length / SEEK_POINT_SIZE;
+        long[] samples = new long[points], offsets = new long[points];
+        int count = 0;
+        for (int i = 0; i < points; i++) {
+            long sample = reader.readLong(),
+                    offset = reader.readLong();
+            reader.readUInt(16);
+            if (sample != PLACEHOLDER_SEEK_POINT) {
+                samples[count] = sample;
+                offsets[count] = offset;
+                count++;
+            }
+        }
+        reader.skipBytes(length - (long) points * SEEK_POINT_SIZE);
+        seekTableSamples = Arrays.copyOf(samples, count);
+        seekTableOffsets = Arrays.copyOf(offsets, count);
+    }
+
+    // ========== 帧 ==========
+
+    /**
+     * 从当前位置同步到下一个有效的帧头并解析
+     * <p>
+     * 帧头以14位同步码开头，以CRC-8结尾；同步码或CRC不符时逐字节向后寻找，
+     * 因此跳转时可以从任意字节偏移开始。
+     * </p>
+     *
+     * @return 流已结束返回false
+     */
+    private boolean readFrameHeader() throws IOException {
+        long skipped = 0;
+        int previous = -1;
+        while (true) {
+            long start = reader.position();
+            int value = previous >= 0 ? previous : reader.readByteOrEnd();
+            previous = -1;
+            if (value < 0) {
+                return false;
+            }
+            if (value != 0xFF) {
+                skipped++;
+                continue;
+            }
+            int second = reader.readByteOrEnd();
+            if (second < 0) {
+                return false;
+            }
+            if ((second & 0xFE) != 0xF8) {
+                // 第二个字节可能是下一个同步码的开头
+                skipped++;
+                previous = second;
+                continue;
+            }
+            header[0] = (byte) value;
+            header[1] = (byte) second;
+            if (parseFrameHeader(second & 1)) {
+                frameOffset = start;
+                if (skipped > 0) {
+                    MusicPlayerClientMod.LOGGER.debug("FLAC重新同步，跳过 {} 字节", skipped);
+                }
+                return true;
+            }
+            skipped += 2;
+        }
+    }
+
+    /**
+     * 解析同步码之后的帧头字段并校验CRC-8，失败时不修改当前帧的状态
+     *
+     * @param variableBlockSize 块长是否可变（此时帧头中记录的是采样号而不是帧号）
+     */
+    private boolean parseFrameHeader(int variableBlockSize) throws IOException {
+        int length = 2;
+        int codes = reader.readUInt(8),
+                layout = reader.readUInt(8);
+        header[length++] = (byte) codes;
+        header[length++] = (byte) layout;
+        int blockCode = codes >>> 4,
+                rateCode = codes & 0xF,
+                assignment = layout >>> 4,
+                sizeCode = layout >>> 1 & 0x7;
+        if (blockCode == 0 || rateCode == 0xF || assignment > 10 || SAMPLE_SIZES[sizeCode] == 0 && sizeCode != 0
+                || (layout & 1) != 0) {
+            return false;
+        }
+        // UTF-8式变长编码的帧号/采样号
+        int first = reader.readUInt(8);
+        header[length++] = (byte) first;
+        int ones = Integer.numberOfLeadingZeros(~first << 24);
+        if (ones == 1 || ones > 7) {
+            return false;
+        }
+        long number = ones == 0 ? first : first & 0x7F >>> ones;
+        for (int i = 1; i < ones; i++) {
+            int next = reader.readUInt(8);
+            header[length++] = (byte) next;
+            if ((next & 0xC0) != 0x80) {
+                return false;
+            }
+            number = number << 6 | next & 0x3F;
+        }
+        int blockSize = switch (blockCode) {
+            case 1 -> 192;
+            case 2, 3, 4, 5 -> 576 << blockCode - 2;
+            case 6 -> {
+                int size = reader.readUInt(8);
+                header[length++] = (byte) size;
+                yield size + 1;
+            }
+            case 7 -> {
+                int size = reader.readUInt(16);
+                header[length++] = (byte) (size >>> 8);
+                header[length++] = (byte) size;
+                yield size + 1;
+            }
+            default -> 256 << blockCode - 8;
+        };
+        int rate = switch (rateCode) {
+            case 0 -> streamSampleRate;
+            case 12 -> {
+                int khz = reader.readUInt(8);
+                header[length++] = (byte) khz;
+                yield khz * 1000;
+            }
+            case 13, 14 -> {
+                int value = reader.readUInt(16);
+                header[length++] = (byte) (value >>> 8);
+                header[length++] = (byte) value;
+                yield rateCode == 13 ? value : value * 10;
+            }
+            default -> FIXED_SAMPLE_RATES[rateCode];
+        };
+        int crc = reader.readUInt(8);
+        int channelCount = assignment < 8 ? assignment + 1 : 2;
+        if (crc != crc8(header, length) || channelCount != streamChannels || rate <= 0) {
+            return false;
+        }
+        frameBlockSize = blockSize;
+        frameSampleRate = rate;
+        frameAssignment = assignment;
+        frameBitsPerSample = sizeCode == 0 ? streamBitsPerSample : SAMPLE_SIZES[sizeCode];
+        frameSampleNumber = variableBlockSize == 1 ? number : number * minBlockSize;
+        return true;
+    }
+
+    private void decodeFrameBody() throws IOException {
+        if (frameBlockSize > channelSamples[0].length) {
+            // STREAMINFO中的最大块长不可信时才会发生
+            allocate(frameBlockSize);
+        }
+        for (int channel = 0; channel < streamChannels; channel++) {
+            boolean side = frameAssignment == 8 && channel == 1
+                    || frameAssignment == 9 && channel == 0
+                    || frameAssignment == 10 && channel == 1;
+            decodeSubframe(channelSamples[channel], frameBlockSize, frameBitsPerSample + (side ? 1 : 0));
+        }
+        reader.alignToByte();
+        // CRC-16
+        reader.readUInt(16);
+        decorrelate();
+        writePcm();
+        recordIndex();
+    }
+
+    private void decodeSubframe(int[] samples, int blockSize, int bitsPerSample) throws IOException {
+        if (reader.readUInt(1) != 0) {
+            throw new IOException("子帧填充位不为0");
+        }
+        int type = reader.readUInt(6);
+        int wasted = reader.readUInt(1) == 1 ? reader.readUnary() + 1 : 0;
+        int bits = bitsPerSample - wasted;
+        if (type == 0) {
+            Arrays.fill(samples, 0, blockSize, reader.readSigned(bits));
+        } else if (type == 1) {
+            for (int i = 0; i < blockSize; i++) {
+                samples[i] = reader.readSigned(bits);
+            }
+        } else if (type >= 8 && type <= 12) {
+            decodeFixed(samples, blockSize, bits, type - 8);
+        } else if (type >= 32) {
+            decodeLpc(samples, blockSize, bits, (type & 0x1F) + 1);
+        } else {
+            throw new IOException("保留的子帧类型: " + type);
+        }
+        if (wasted > 0) {
+            for (int i = 0; i < blockSize; i++) {
+                samples[i] <<= wasted;
+            }
+        }
+    }
+
+    private void decodeFixed(int[] samples, int blockSize, int bits, int order) throws IOException {
+        for (int i = 0; i < order; i++) {
+            samples[i] = reader.readSigned(bits);
+        }
+        readResidual(samples, blockSize, order);
+        switch (order) {
+            case 1 -> {
+                for (int i = 1; i < blockSize; i++) {
+                    samples[i] += samples[i - 1];
+                }
+            }
+            case 2 -> {
+                for (int i = 2; i < blockSize; i++) {
+                    samples[i] += 2 * samples[i - 1] - samples[i - 2];
+                }
+            }
+            case 3 -> {
+                for (int i = 3; i < blockSize; i++) {
+                    samples[i] += 3 * (samples[i - 1] - samples[i - 2]) + samples[i - 3];
+                }
+            }
+            case 4 -> {
+                for (int i = 4; i < blockSize; i++) {
+                    samples[i] += 4 * (samples[i - 1] + samples[i - 3]) - 6 * samples[i - 2] - samples[i - 4];
+                }
+            }
+            default -> {
+                // 0阶：残差即采样
+            }
+        }
+    }
+
+    private void decodeLpc(int[] samples, int blockSize, int bits, int order) throws IOException {
+        for (int i = 0; i < order; i++) {
+            samples[i] = reader.readSigned(bits);
+        }
+        int precision = reader.readUInt(4) + 1;
+        if (precision > 15) {
+            throw new IOException("无效的LPC系数精度");
+        }
+        int shift = reader.readSigned(5);
+        if (shift < 0) {
+            throw new IOException("无效的LPC移位: " + shift);
+        }
+        for (int i = 0; i < order; i++) {
+            coefficients[i] = reader.readSigned(precision);
+        }
+        readResidual(samples, blockSize, order);
+        for (int i = order; i < blockSize; i++) {
+            long sum = 0;
+            for (int j = 0; j < order; j++) {
+                sum += (long) coefficients[j] * samples[i - 1 - j];
+            }
+            samples[i] += (int) (sum >> shift);
+        }
+    }
+
+    private void readResidual(int[] samples, int blockSize, int predictorOrder) throws IOException {
+        int method = reader.readUInt(2);
+        if (method > 1) {
+            throw new IOException("保留的残差编码方式: " + method);
+        }
+        int parameterBits = method == 0 ? 4 : 5,
+                escape = (1 << parameterBits) - 1,
+                partitionOrder = reader.readUInt(4),
+                partitionSamples = blockSize >>> partitionOrder;
+        if (partitionSamples << partitionOrder != blockSize || partitionSamples < predictorOrder) {
+            throw new IOException("无效的残差分区阶数: " + partitionOrder);
+        }
+        int index = predictorOrder;
+        for (int partition = 0; partition < 1 << partitionOrder; partition++) {
+            int count = partition == 0 ? partitionSamples - predictorOrder : partitionSamples,
+                    parameter = reader.readUInt(parameterBits);
+            if (parameter == escape) {
+                int bits = reader.readUInt(5);
+                for (int i = 0; i < count; i++) {
+                    samples[index + i] = reader.readSigned(bits);
+                }
+            } else {
+                reader.readRice(samples, index, count, parameter);
+            }
+            index += count;
+        }
+    }
+
+    /**
+     * 还原立体声去相关编码
+     */
+    private void decorrelate() {
+        if (frameAssignment < 8) {
+            // 各声道独立编码
+            return;
+        }
+        int[] first = channelSamples[0],
+                second = channelSamples[1];
+        switch (frameAssignment) {
+            case 8 -> {
+                // 左/差
+                for (int i = 0; i < frameBlockSize; i++) {
+                    second[i] = first[i] - second[i];
+                }
+            }
+            case 9 -> {
+                // 差/右
+                for (int i = 0; i < frameBlockSize; i++) {
+                    first[i] += second[i];
+                }
+            }
+            case 10 -> {
+                // 中/差
+                for (int i = 0; i < frameBlockSize; i++) {
+                    int side = second[i],
+                            mid = first[i] << 1 | side & 1;
+                    first[i] = mid + side >> 1;
+                    second[i] = mid - side >> 1;
+                }
+            }
+            default -> {
+                // 上面已排除
+            }
+        }
+    }
+
+    /**
+     * 交错写入输出缓冲区，按位深缩放到16位
+     */
+    private void writePcm() {
+        int shift = frameBitsPerSample - OUTPUT_BITS;
+        for (int channel = 0; channel < outputChannels; channel++) {
+            int[] samples = channelSamples[channel];
+            for (int i = 0, out = channel; i < frameBlockSize; i++, out += outputChannels) {
+                pcm[out] = (short) (shift >= 0 ? samples[i] >> shift : samples[i] << -shift);
+            }
+        }
+        sampleCount = frameBlockSize * outputChannels;
+    }
+
+    private void recordIndex() {
+        if (indexCount > 0 && frameSampleNumber <= indexSamples[indexCount - 1]) {
+            return;
+        }
+        if (indexCount == indexSamples.length) {
+            indexSamples = Arrays.copyOf(indexSamples, indexCount * 2);
+            indexOffsets = Arrays.copyOf(indexOffsets, indexCount * 2);
+        }
+        indexSamples[indexCount] = frameSampleNumber;
+        indexOffsets[indexCount] = frameOffset;
+        indexCount++;
+    }
+
+    private void allocate(int blockSize) {
+        channelSamples = new int[streamChannels][blockSize];
+        pcm = new short[blockSize * outputChannels];
+    }
+
+    private long toMillis(long sample) {
+        return streamSampleRate > 0 ? sample * 1000 / streamSampleRate : 0;
+    }
+
+    /**
+     * 有序数组中不大于目标的最后一个元素的下标，不存在时返回-1
+     */
+    private static int floorIndex(long[] values, int count, long target) {
+        int index = Arrays.binarySearch(values, 0, count, target);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private static int crc8(byte[] data, int length) {
+        int crc = 0;
+        for (int i = 0; i < length; i++) {
+            crc = CRC8_TABLE[(crc ^ data[i]) & 0xFF];
+        }
+        return crc;
+    }
+}
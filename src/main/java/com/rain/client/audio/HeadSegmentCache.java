@@ -0,0 +1,160 @@
+package com.rain.client.audio;
+
+import com.rain.client.MusicPlayerClientMod;
+import com.rain.client.model.MusicTrack;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 开头片段缓存
+ * <p>
+ * 在内存中保存可能接下来播放的音轨开头几秒的原始音频数据（未解码），以“歌曲ID + 音质”为键，
+ * 总大小超过预算时按最近最少使用顺序淘汰。播放命中时先解码内存中的片段，
+ * 同时在后台从片段末尾发起Range请求，片段读完后按字节无缝接上剩余的网络流。
+ * </p>
+ * <p>
+ * 下载在单独的后台线程上按候选顺序逐首进行；新一批候选到来时，尚未下载的旧候选被放弃。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+final class HeadSegmentCache {
+
+    private static final String WARM_THREAD_NAME = "MusicPlayer-HeadSegment";
+
+    private static final String SPLICE_THREAD_NAME = "MusicPlayer-Splice";
+
+    /**
+     * 开头片段
+     *
+     * @param data        文件开头的原始字节
+     * @param totalLength 完整文件的长度，未知时为-1，接续时用于核对文件未变化
+     */
+    record Segment(byte[] data, long totalLength) {
+    }
+
+    /**
+     * 下载一首音轨的开头片段并通过 {@link #put} 保存
+     */
+    @FunctionalInterface
+    interface Loader {
+        void load(MusicTrack track) throws IOException;
+    }
+
+    private final Loader loader;
+
+    private final long maxBytes;
+
+    /**
+     * 缓存键 -> 片段，按访问顺序排列，队首即最久未使用
+     */
+    private final LinkedHashMap<String, Segment> segments = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong warmGeneration = new AtomicLong();
+
+    private final ExecutorService warmThread;
+
+    private final ExecutorService spliceThreads;
+
+    private long totalBytes;
+
+    HeadSegmentCache(Loader loader, long maxBytes) {
+        this.loader = loader;
+        this.maxBytes = maxBytes;
+        this.warmThread = Executors.newSingleThreadExecutor(r -> daemon(r, WARM_THREAD_NAME));
+        this.spliceThreads = Executors.newCachedThreadPool(r -> daemon(r, SPLICE_THREAD_NAME));
+    }
+
+    /**
+     * 查找片段，命中时刷新其访问顺序
+     *
+     * @return 未命中返回null
+     */
+    synchronized Segment get(String key) {
+        return segments.get(key);
+    }
+
+    /**
+     * 判断是否已有片段（不刷新访问顺序）
+     */
+    synchronized boolean contains(String key) {
+        return segments.containsKey(key);
+    }
+
+    /**
+     * 保存片段，超出预算时淘汰最久未使用的片段；单个片段超过预算时不保存
+     */
+    synchronized void put(String key, Segment segment) {
+        long length = segment.data().length;
+        if (length > maxBytes) {
+            return;
+        }
+        Segment previous = segments.put(key, segment);
+        totalBytes += length - (Objects.isNull(previous) ? 0 : previous.data().length);
+        Iterator<Map.Entry<String, Segment>> iterator = segments.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Segment> eldest = iterator.next();
+            totalBytes -= eldest.getValue().data().length;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 丢弃片段（接续时发现文件已变化）
+     */
+    synchronized void remove(String key) {
+        Segment removed = segments.remove(key);
+        if (!Objects.isNull(removed)) {
+            totalBytes -= removed.data().length;
+        }
+    }
+
+    /**
+     * 按顺序在后台下载候选音轨的开头片段，取代尚未完成的上一批
+     */
+    void warm(List<MusicTrack> tracks) {
+        long generation = warmGeneration.incrementAndGet();
+        warmThread.execute(() -> {
+            for (MusicTrack track : tracks) {
+                if (warmGeneration.get() != generation) {
+                    return;
+                }
+                try {
+                    loader.load(track);
+                } catch (IOException e) {
+                    MusicPlayerClientMod.LOGGER.warn("下载开头片段失败: {}", track.getTitle(), e);
+                }
+            }
+        });
+    }
+
+    /**
+     * 在后台打开剩余部分的输入流，读取时才等待其就绪
+     */
+    InputStream deferred(DeferredInputStream.Opener opener) {
+        return new DeferredInputStream(opener, spliceThreads);
+    }
+
+    void shutdown() {
+        warmGeneration.incrementAndGet();
+        warmThread.shutdownNow();
+        spliceThreads.shutdownNow();
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
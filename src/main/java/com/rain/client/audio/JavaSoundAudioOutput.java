@@ -0,0 +1,66 @@
+package com.rain.client.audio;
+
+import javazoom.jl.decoder.JavaLayerException;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * JavaSound输出（后备）
+ * <p>
+ * 基于JLayer的JavaSound设备，不经过游戏的音频引擎，音量通过线路的增益控制模拟。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+final class JavaSoundAudioOutput implements AudioOutput {
+
+    private final PausableAudioDevice device = new PausableAudioDevice();
+
+    private float appliedVolume = -1;
+
+    JavaSoundAudioOutput(AudioFormat format) throws JavaLayerException {
+        device.open(format);
+    }
+
+    @Override
+    public void write(short[] samples, int offset, int length) throws JavaLayerException {
+        device.write(samples, offset, length);
+        float volume = AudioOutput.gameVolume(true);
+        if (volume != appliedVolume) {
+            appliedVolume = volume;
+            device.setVolume(volume);
+        }
+    }
+
+    @Override
+    public void pause() {
+        device.pauseLine();
+    }
+
+    @Override
+    public void resume() {
+        device.resumeLine();
+    }
+
+    @Override
+    public void discard() {
+        device.flushLine();
+    }
+
+    @Override
+    public void drain() {
+        device.flush();
+    }
+
+    @Override
+    public long playedFrames() {
+        return device.framePosition();
+    }
+
+    @Override
+    public void close() {
+        device.close();
+    }
+}
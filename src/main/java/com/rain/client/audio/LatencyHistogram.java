@@ -0,0 +1,129 @@
+package com.rain.client.audio;
+
+import com.rain.common.util.TimeUtils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 耗时直方图（纳秒）
+ * <p>
+ * 与HdrHistogram相同的对数-线性分桶：每个2的幂区间再等分为16个子桶，
+ * 任意量级下的相对误差都不超过1/16，桶数固定，记录时只做一次原子自增，可由多个线程并发记录。
+ * 百分位按桶的上界报告，不会低估。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * 覆盖到 Long.MAX_VALUE 所需的桶数
+     */
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long maxNanos() {
+        return max.get();
+    }
+
+    public long totalNanos() {
+        return sum.sum();
+    }
+
+    public long meanNanos() {
+        long samples = count.sum();
+        return samples == 0 ? 0 : sum.sum() / samples;
+    }
+
+    /**
+     * 指定百分位的耗时
+     *
+     * @param percentile 0~100
+     * @return 没有记录时返回0
+     */
+    public long percentileNanos(double percentile) {
+        long samples = count.sum();
+        if (samples == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(samples * percentile / 100.0)),
+                seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * 概要：p50 / p95 / p99 / 最大值与样本数
+     */
+    public String summary() {
+        if (count() == 0) {
+            return "无数据";
+        }
+        return "p50 " + TimeUtils.formatNanos(percentileNanos(50))
+                + " / p95 " + TimeUtils.formatNanos(percentileNanos(95))
+                + " / p99 " + TimeUtils.formatNanos(percentileNanos(99))
+                + " / max " + TimeUtils.formatNanos(maxNanos())
+                + " (" + count() + ")";
+    }
+
+    /**
+     * 小于16的值各占一个桶；其余按最高位所在的区间与其后4位定位
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
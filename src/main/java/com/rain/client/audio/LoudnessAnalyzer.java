@@ -0,0 +1,215 @@
+package com.rain.client.audio;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * 响度分析器
+ * <p>
+ * 按EBU R128的积分响度算法测量一首音轨：采样先经过K加权滤波（高架滤波+高通滤波），
+ * 每100ms累计一次均方能量，相邻4段组成重叠75%的400ms测量块；
+ * 低于-70 LUFS的块被绝对门限剔除，再剔除比剩余块平均响度低10 LU以上的块，
+ * 余下块的平均能量即为积分响度。同时记录采样峰值，用于限制提升增益以免削波。
+ * </p>
+ * <p>
+ * 分析在解码线程上随解码逐帧进行，只保存每100ms的能量，不缓存PCM；
+ * 音轨完整解码到末尾时才输出结果，中途跳转的测量会被放弃。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+final class LoudnessAnalyzer {
+
+    /**
+     * 测量结果
+     *
+     * @param integratedLufs 积分响度（LUFS）
+     * @param peak           采样峰值（满刻度为1）
+     */
+    record Measurement(double integratedLufs, double peak) {
+    }
+
+    private static final double ABSOLUTE_GATE_LUFS = -70.0;
+
+    private static final double RELATIVE_GATE_LU = 10.0;
+
+    private static final double LOUDNESS_OFFSET = -0.691;
+
+    private static final int HOPS_PER_BLOCK = 4;
+
+    private static final int HOPS_PER_SECOND = 10;
+
+    private static final int MAX_CHANNELS = 2;
+
+    private static final double SHORT_SCALE = 1.0 / 32768.0;
+
+    private final Consumer<Measurement> onMeasured;
+
+    /**
+     * 两级双二阶滤波器系数：{b0, b1, b2, a1, a2}
+     */
+    private final double[] shelf = new double[5];
+
+    private final double[] highPass = new double[5];
+
+    /**
+     * 每声道的滤波器状态（直接II型转置）：{高架s1, 高架s2, 高通s1, 高通s2}
+     */
+    private final double[][] state = new double[MAX_CHANNELS][4];
+
+    private double[] hopEnergies = new double[64];
+
+    private int hopCount;
+
+    private double hopEnergy;
+
+    private int hopFrames;
+
+    private int hopFrameCount;
+
+    private int sampleRate;
+
+    private int peak;
+
+    /**
+     * @param onMeasured 完整分析一首音轨后调用，在解码线程上执行
+     */
+    LoudnessAnalyzer(Consumer<Measurement> onMeasured) {
+        this.onMeasured = onMeasured;
+    }
+
+    /**
+     * 分析一帧交错的16位PCM
+     */
+    void process(short[] samples, int length, int channels, int rate) {
+        if (rate != sampleRate) {
+            configure(rate);
+        }
+        int usedChannels = Math.min(channels, MAX_CHANNELS);
+        for (int index = 0; index + channels <= length; index += channels) {
+            for (int channel = 0; channel < usedChannels; channel++) {
+                short sample = samples[index + channel];
+                peak = Math.max(peak, Math.abs(sample));
+                double filtered = filter(state[channel], sample * SHORT_SCALE);
+                hopEnergy += filtered * filtered;
+            }
+            if (++hopFrameCount == hopFrames) {
+                addHop(hopEnergy / hopFrames);
+                hopEnergy = 0;
+                hopFrameCount = 0;
+            }
+        }
+    }
+
+    /**
+     * 音轨已完整解码，计算积分响度并回调
+     */
+    void finish() {
+        double integrated = integratedLoudness();
+        if (Double.isNaN(integrated) || Objects.isNull(onMeasured)) {
+            return;
+        }
+        onMeasured.accept(new Measurement(integrated, Math.min(1.0, peak * SHORT_SCALE)));
+    }
+
+    /**
+     * 两遍门限计算积分响度
+     *
+     * @return 没有高于绝对门限的测量块（静音或过短）时返回NaN
+     */
+    double integratedLoudness() {
+        double absoluteGate = energyOf(ABSOLUTE_GATE_LUFS),
+                gatedSum = 0;
+        int gatedBlocks = 0;
+        for (int block = HOPS_PER_BLOCK - 1; block < hopCount; block++) {
+            double energy = blockEnergy(block);
+            if (energy > absoluteGate) {
+                gatedSum += energy;
+                gatedBlocks++;
+            }
+        }
+        if (gatedBlocks == 0) {
+            return Double.NaN;
+        }
+        double relativeGate = Math.max(absoluteGate, energyOf(loudnessOf(gatedSum / gatedBlocks) - RELATIVE_GATE_LU)),
+                sum = 0;
+        int blocks = 0;
+        for (int block = HOPS_PER_BLOCK - 1; block < hopCount; block++) {
+            double energy = blockEnergy(block);
+            if (energy > relativeGate) {
+                sum += energy;
+                blocks++;
+            }
+        }
+        return blocks > 0 ? loudnessOf(sum / blocks) : Double.NaN;
+    }
+
+    private double blockEnergy(int lastHop) {
+        double sum = 0;
+        for (int hop = lastHop - HOPS_PER_BLOCK + 1; hop <= lastHop; hop++) {
+            sum += hopEnergies[hop];
+        }
+        return sum / HOPS_PER_BLOCK;
+    }
+
+    private void addHop(double energy) {
+        if (hopCount == hopEnergies.length) {
+            hopEnergies = Arrays.copyOf(hopEnergies, hopCount * 2);
+        }
+        hopEnergies[hopCount++] = energy;
+    }
+
+    private double filter(double[] channelState, double input) {
+        double shelved = shelf[0] * input + channelState[0];
+        channelState[0] = shelf[1] * input - shelf[3] * shelved + channelState[1];
+        channelState[1] = shelf[2] * input - shelf[4] * shelved;
+        double output = highPass[0] * shelved + channelState[2];
+        channelState[2] = highPass[1] * shelved - highPass[3] * output + channelState[3];
+        channelState[3] = highPass[2] * shelved - highPass[4] * output;
+        return output;
+    }
+
+    /**
+     * 按采样率计算K加权滤波器系数（与BS.1770在48kHz下给出的系数一致），并重置滤波器状态
+     */
+    private void configure(int rate) {
+        sampleRate = rate;
+        hopFrames = Math.max(1, rate / HOPS_PER_SECOND);
+        hopFrameCount = 0;
+        hopEnergy = 0;
+        for (double[] channelState : state) {
+            Arrays.fill(channelState, 0);
+        }
+        // 高架滤波：模拟头部的声学效应
+        double k = Math.tan(Math.PI * 1681.974450955533 / rate),
+                q = 0.7071752369554196,
+                vh = Math.pow(10.0, 3.999843853973347 / 20.0),
+                vb = Math.pow(vh, 0.4996667741545416),
+                a0 = 1.0 + k / q + k * k;
+        shelf[0] = (vh + vb * k / q + k * k) / a0;
+        shelf[1] = 2.0 * (k * k - vh) / a0;
+        shelf[2] = (vh - vb * k / q + k * k) / a0;
+        shelf[3] = 2.0 * (k * k - 1.0) / a0;
+        shelf[4] = (1.0 - k / q + k * k) / a0;
+        // 高通滤波：RLB加权
+        k = Math.tan(Math.PI * 38.13547087602444 / rate);
+        q = 0.5003270373238773;
+        a0 = 1.0 + k / q + k * k;
+        highPass[0] = 1.0;
+        highPass[1] = -2.0;
+        highPass[2] = 1.0;
+        highPass[3] = 2.0 * (k * k - 1.0) / a0;
+        highPass[4] = (1.0 - k / q + k * k) / a0;
+    }
+
+    private static double loudnessOf(double energy) {
+        return LOUDNESS_OFFSET + 10.0 * Math.log10(energy);
+    }
+
+    private static double energyOf(double loudness) {
+        return Math.pow(10.0, (loudness - LOUDNESS_OFFSET) / 10.0);
+    }
+}
@@ -0,0 +1,97 @@
+package com.rain.client.audio;
+
+import com.rain.client.MusicPlayerClientMod;
+import com.rain.client.manager.DataPersistenceManager;
+import com.rain.common.config.ModConfig;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 音轨响度记录
+ * <p>
+ * 以歌曲ID为键保存每首音轨首次完整播放时测得的积分响度与峰值，随数据目录持久化。
+ * 保存的是测量值而不是增益，调整目标响度后已有记录仍然有效；
+ * 再次播放时由测量值换算出均衡增益，不必重新分析。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+public final class LoudnessStore {
+
+    private final DataPersistenceManager persistenceManager;
+
+    private final Map<String, LoudnessAnalyzer.Measurement> measurements = new HashMap<>();
+
+    public LoudnessStore(DataPersistenceManager persistenceManager) {
+        this.persistenceManager = persistenceManager;
+        load();
+    }
+
+    /**
+     * 是否已有这首音轨的测量值
+     */
+    synchronized boolean contains(String trackId) {
+        return measurements.containsKey(trackId);
+    }
+
+    /**
+     * 计算均衡到目标响度所需的线性增益
+     * <p>
+     * 衰减和提升分别受上限约束；提升时还要保证峰值不超过满刻度。
+     * </p>
+     *
+     * @return 没有测量值时返回1
+     */
+    synchronized float gainFor(String trackId) {
+        LoudnessAnalyzer.Measurement measurement = measurements.get(trackId);
+        if (Objects.isNull(measurement)) {
+            return 1.0f;
+        }
+        double gainDb = Math.clamp(ModConfig.LOUDNESS_TARGET_LUFS - measurement.integratedLufs(),
+                -ModConfig.LOUDNESS_MAX_CUT_DB, ModConfig.LOUDNESS_MAX_BOOST_DB);
+        if (gainDb > 0 && measurement.peak() > 0) {
+            gainDb = Math.min(gainDb, -20.0 * Math.log10(measurement.peak()));
+        }
+        return (float) Math.pow(10.0, gainDb / 20.0);
+    }
+
+    /**
+     * 记录测量值并保存，在解码线程上调用
+     */
+    synchronized void record(String trackId, LoudnessAnalyzer.Measurement measurement) {
+        measurements.put(trackId, measurement);
+        MusicPlayerClientMod.LOGGER.info("已测得音轨响度: {} ({} LUFS, 峰值 {})", trackId,
+                String.format("%.1f", measurement.integratedLufs()), String.format("%.3f", measurement.peak()));
+        persistenceManager.saveLoudness(toData());
+    }
+
+    private Map<String, Object> toData() {
+        Map<String, Object> data = new HashMap<>(measurements.size() * 2);
+        measurements.forEach((trackId, measurement) -> {
+            Map<String, Object> entry = new HashMap<>(4);
+            entry.put("lufs", measurement.integratedLufs());
+            entry.put("peak", measurement.peak());
+            data.put(trackId, entry);
+        });
+        return data;
+    }
+
+    private void load() {
+        Map<String, Object> data = persistenceManager.loadLoudness();
+        if (Objects.isNull(data)) {
+            return;
+        }
+        data.forEach((trackId, value) -> {
+            if (value instanceof Map<?, ?> entry
+                    && entry.get("lufs") instanceof Number lufs
+                    && entry.get("peak") instanceof Number peak) {
+                measurements.put(trackId, new LoudnessAnalyzer.Measurement(lufs.doubleValue(), peak.doubleValue()));
+            }
+        });
+        MusicPlayerClientMod.LOGGER.info("已加载 {} 首音轨的响度记录", measurements.size());
+    }
+}
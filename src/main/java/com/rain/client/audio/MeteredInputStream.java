@@ -0,0 +1,66 @@
+package com.rain.client.audio;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 统计网络吞吐量的输入流，下载量计入 {@link AudioMetrics}
+ * <p>
+ * 只在读取方等待网络时（由 {@code networkBound} 判断）把相邻两次读取之间的墙钟时间与读到的字节数交给
+ * {@link AdaptiveQuality}；读取方因缓冲区已满而暂停读取的区间不计入，否则测得的是播放速度。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+final class MeteredInputStream extends FilterInputStream {
+
+    private final AdaptiveQuality adaptiveQuality;
+
+    private final AudioMetrics metrics;
+
+    private final BooleanSupplier networkBound;
+
+    /**
+     * 上一次计入统计的读取结束的时刻，上一段区间不计入时为0
+     */
+    private long lastReadEnd;
+
+    MeteredInputStream(InputStream in, AdaptiveQuality adaptiveQuality, AudioMetrics metrics,
+                       BooleanSupplier networkBound) {
+        super(in);
+        this.adaptiveQuality = adaptiveQuality;
+        this.metrics = metrics;
+        this.networkBound = networkBound;
+    }
+
+    @Override
+    public int read() throws IOException {
+        boolean measured = networkBound.getAsBoolean();
+        int value = super.read();
+        record(value >= 0 ? 1 : 0, measured);
+        return value;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        boolean measured = networkBound.getAsBoolean();
+        int count = super.read(b, off, len);
+        record(Math.max(count, 0), measured);
+        return count;
+    }
+
+    private void record(int count, boolean measured) {
+        long now = System.nanoTime();
+        if (count > 0) {
+            metrics.recordDownload(count);
+            if (measured && lastReadEnd > 0) {
+                adaptiveQuality.recordTransfer(count, now - lastReadEnd);
+            }
+        }
+        lastReadEnd = measured ? now : 0;
+    }
+}
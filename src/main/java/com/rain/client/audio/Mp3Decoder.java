@@ -0,0 +1,135 @@
+package com.rain.client.audio;
+
+import javazoom.jl.decoder.Bitstream;
+import javazoom.jl.decoder.BitstreamException;
+import javazoom.jl.decoder.Decoder;
+import javazoom.jl.decoder.Header;
+import javazoom.jl.decoder.JavaLayerException;
+
+import java.io.InputStream;
+import java.util.Objects;
+
+/**
+ * 基于JLayer的MP3解码后端，字节流经 {@link Mp3FrameIndex} 时同时建立帧索引
+ * <p>
+ * JLayer直接输出到本后端持有的 {@link PcmFrameBuffer}，跳转后也沿用同一块缓冲区。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+final class Mp3Decoder implements AudioDecoder {
+
+    private static final int LAYER1_SAMPLES_PER_FRAME = 384;
+
+    private static final int MPEG1_SAMPLES_PER_FRAME = 1152;
+
+    private static final int MPEG2_LAYER3_SAMPLES_PER_FRAME = 576;
+
+    private final Mp3FrameIndex frameIndex = new Mp3FrameIndex();
+
+    private volatile Bitstream bitstream;
+
+    /**
+     * 复用的输出缓冲区
+     */
+    private final PcmFrameBuffer output = new PcmFrameBuffer();
+
+    private Decoder decoder;
+
+    private short[] samples;
+
+    private int sampleCount;
+
+    private int frameLength;
+
+    private int sampleRate;
+
+    private int channels;
+
+    Mp3Decoder(InputStream stream) {
+        this.bitstream = new Bitstream(frameIndex.track(stream));
+        this.decoder = newDecoder();
+    }
+
+    @Override
+    public boolean decodeFrame() throws JavaLayerException {
+        Header header = bitstream.readFrame();
+        if (Objects.isNull(header)) {
+            return false;
+        }
+        channels = header.mode() == Header.SINGLE_CHANNEL ? 1 : 2;
+        output.setChannels(channels);
+        decoder.decodeFrame(header, bitstream);
+        samples = output.buffer();
+        sampleCount = output.length();
+        bitstream.closeFrame();
+        frameLength = samplesPerFrame(header);
+        sampleRate = header.frequency();
+        return true;
+    }
+
+    @Override
+    public short[] samples() {
+        return samples;
+    }
+
+    @Override
+    public int sampleCount() {
+        return sampleCount;
+    }
+
+    @Override
+    public int frameLength() {
+        return frameLength;
+    }
+
+    @Override
+    public int sampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public int channels() {
+        return channels;
+    }
+
+    @Override
+    public SeekPoint locate(long positionMillis) {
+        return frameIndex.locate(positionMillis);
+    }
+
+    @Override
+    public long restart(InputStream stream, SeekPoint point) throws JavaLayerException {
+        bitstream.close();
+        frameIndex.rebase(point.byteOffset());
+        bitstream = new Bitstream(frameIndex.track(stream));
+        // 新位置的帧与旧的比特池无关，换用新的解码器避免残留数据，输出缓冲区照旧复用
+        decoder = newDecoder();
+        return point.positionMillis();
+    }
+
+    @Override
+    public void close() {
+        try {
+            bitstream.close();
+        } catch (BitstreamException ignored) {
+            // 输入流由调用方负责关闭
+        }
+    }
+
+    private Decoder newDecoder() {
+        Decoder created = new Decoder();
+        created.setOutputBuffer(output);
+        return created;
+    }
+
+    private static int samplesPerFrame(Header header) {
+        return switch (header.layer()) {
+            case 1 -> LAYER1_SAMPLES_PER_FRAME;
+            case 3 -> header.version() == Header.MPEG1 ? MPEG1_SAMPLES_PER_FRAME : MPEG2_LAYER3_SAMPLES_PER_FRAME;
+            default -> MPEG1_SAMPLES_PER_FRAME;
+        };
+    }
+}
@@ -0,0 +1,442 @@
+package com.rain.client.audio;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * MP3帧索引
+ * <p>
+ * 在字节流经解码器时增量扫描帧头，记录每一帧的字节偏移；
+ * 首帧若带有Xing/Info或VBRI头则同时解析其中的目录表（TOC）。
+ * 跳转时优先使用已扫描的精确偏移，其次使用TOC，最后按平均码率估算，
+ * 从而只需一次HTTP Range请求即可从目标位置附近的帧开始解码。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+final class Mp3FrameIndex {
+
+    private static final int ID3V2_HEADER_SIZE = 10;
+
+    private static final int FRAME_HEADER_SIZE = 4;
+
+    private static final int MAX_FIRST_FRAME_SIZE = 4096;
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private static final int XING_TOC_SIZE = 100;
+
+    private static final int XING_FLAG_FRAMES = 0x1;
+
+    private static final int XING_FLAG_BYTES = 0x2;
+
+    private static final int XING_FLAG_TOC = 0x4;
+
+    private static final int VBRI_OFFSET = 36;
+
+    private static final int[][] BITRATES_V1 = {
+            {0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448},
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384},
+            {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320}
+    };
+
+    private static final int[][] BITRATES_V2 = {
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256},
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160},
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160}
+    };
+
+    private static final int[][] SAMPLE_RATES = {
+            {11025, 12000, 8000},
+            {0, 0, 0},
+            {22050, 24000, 16000},
+            {44100, 48000, 32000}
+    };
+
+    /**
+     * 解析后的帧头
+     */
+    private record FrameHeader(int version, int layer, int bitrate, int sampleRate, int frameSize,
+                               int samplesPerFrame, boolean mono) {
+    }
+
+    // ========== 扫描状态 ==========
+
+    private final byte[] id3Header = new byte[ID3V2_HEADER_SIZE];
+
+    private final byte[] headerBytes = new byte[FRAME_HEADER_SIZE];
+
+    private long position;
+
+    private long audioStart = -1;
+
+    private long nextFrameOffset;
+
+    private int headerLength;
+
+    private boolean scanning = true;
+
+    private int[] frameOffsets = new int[INITIAL_CAPACITY];
+
+    /**
+     * 已索引的帧数
+     */
+    private int frameCount;
+
+    /**
+     * 下一个待扫描帧的序号，跳转回已扫描区域后会小于frameCount
+     */
+    private int scanFrame;
+
+    // ========== 首帧信息 ==========
+
+    private FrameHeader firstHeader;
+
+    private byte[] firstFrame;
+
+    private int firstFrameLength;
+
+    private boolean vbrHeaderFrame;
+
+    private long totalFrames;
+
+    private long totalBytes;
+
+    private byte[] xingToc;
+
+    private int[] vbriToc;
+
+    private int vbriFramesPerEntry;
+
+    /**
+     * 包装输入流，使读取的字节同时用于建立索引
+     */
+    InputStream track(InputStream source) {
+        return new IndexingInputStream(source, this);
+    }
+
+    /**
+     * 定位到目标时间对应的字节偏移
+     *
+     * @return 跳转点，尚未解析到任何帧时返回null
+     */
+    synchronized AudioDecoder.SeekPoint locate(long positionMillis) {
+        FrameHeader header = firstHeader;
+        if (Objects.isNull(header)) {
+            return null;
+        }
+        long targetFrame = positionMillis * header.sampleRate() / (1000L * header.samplesPerFrame());
+        // 1. 已扫描区域：精确到帧
+        if (targetFrame < frameCount) {
+            return new AudioDecoder.SeekPoint(frameOffsets[(int) targetFrame], frameTime(targetFrame, header));
+        }
+        // 2. Xing/Info目录表
+        if (!Objects.isNull(xingToc) && totalBytes > 0 && totalFrames > 0) {
+            double totalMillis = totalFrames * 1000.0 * header.samplesPerFrame() / header.sampleRate();
+            double percent = Math.max(0, Math.min(99.999, positionMillis * 100.0 / totalMillis));
+            int index = (int) percent;
+            double lower = xingToc[index] & 0xFF,
+                    upper = index < XING_TOC_SIZE - 1 ? xingToc[index + 1] & 0xFF : 256;
+            double fraction = (lower + (upper - lower) * (percent - index)) / 256.0;
+            return new AudioDecoder.SeekPoint(audioStart + (long) (fraction * totalBytes), positionMillis);
+        }
+        // 3. VBRI目录表，每个条目的起点是精确的帧边界
+        if (!Objects.isNull(vbriToc) && vbriFramesPerEntry > 0) {
+            long entry = Math.min(targetFrame / vbriFramesPerEntry, vbriToc.length);
+            long offset = audioStart + firstFrameLength;
+            for (int i = 0; i < entry; i++) {
+                offset += vbriToc[i];
+            }
+            return new AudioDecoder.SeekPoint(offset, frameTime(entry * vbriFramesPerEntry, header));
+        }
+        // 4. 按平均帧长估算（CBR或仅有帧数/字节数的VBR）
+        double averageFrameBytes = totalBytes > 0 && totalFrames > 0 ?
+                (double) totalBytes / totalFrames :
+                header.samplesPerFrame() / 8.0 * header.bitrate() * 1000 / header.sampleRate();
+        long offset = audioStart + (vbrHeaderFrame ? firstFrameLength : 0) + (long) (targetFrame * averageFrameBytes);
+        return new AudioDecoder.SeekPoint(offset, frameTime(targetFrame, header));
+    }
+
+    /**
+     * 通知索引后续字节将从新的偏移开始（跳转后调用）
+     * <p>
+     * 若新偏移正好是某个已扫描帧的起点，则从该帧继续扫描；否则暂停扫描，保留已有索引。
+     * </p>
+     */
+    synchronized void rebase(long byteOffset) {
+        position = byteOffset;
+        headerLength = 0;
+        int frame = frameCount > 0 && byteOffset <= Integer.MAX_VALUE ?
+                Arrays.binarySearch(frameOffsets, 0, frameCount, (int) byteOffset) : -1;
+        if (frame >= 0 && audioStart >= 0) {
+            scanFrame = frame;
+            nextFrameOffset = byteOffset;
+            scanning = true;
+        } else {
+            scanning = false;
+        }
+    }
+
+    /**
+     * 喂入一段连续的字节
+     */
+    synchronized void feed(byte[] buffer, int offset, int length) {
+        int end = offset + length;
+        while (offset < end) {
+            if (audioStart < 0) {
+                offset = feedId3Header(buffer, offset, end);
+                continue;
+            }
+            if (!scanning) {
+                position += end - offset;
+                return;
+            }
+            if (position < nextFrameOffset) {
+                int skip = (int) Math.min(end - offset, nextFrameOffset - position);
+                captureFirstFrame(buffer, offset, skip);
+                position += skip;
+                offset += skip;
+                continue;
+            }
+            headerBytes[headerLength++] = buffer[offset];
+            captureFirstFrame(buffer, offset, 1);
+            position++;
+            offset++;
+            if (headerLength == FRAME_HEADER_SIZE) {
+                headerLength = 0;
+                onFrameHeader();
+            }
+        }
+    }
+
+    /**
+     * 读取开头的10个字节判断是否有ID3v2标签，确定音频数据的起点
+     */
+    private int feedId3Header(byte[] buffer, int offset, int end) {
+        while (offset < end && position < ID3V2_HEADER_SIZE) {
+            id3Header[(int) position++] = buffer[offset++];
+        }
+        if (position < ID3V2_HEADER_SIZE) {
+            return offset;
+        }
+        if (id3Header[0] == 'I' && id3Header[1] == 'D' && id3Header[2] == '3') {
+            long size = ((id3Header[6] & 0x7F) << 21) | ((id3Header[7] & 0x7F) << 14)
+                    | ((id3Header[8] & 0x7F) << 7) | (id3Header[9] & 0x7F);
+            boolean footer = (id3Header[5] & 0x10) != 0;
+            audioStart = ID3V2_HEADER_SIZE + size + (footer ? ID3V2_HEADER_SIZE : 0);
+            nextFrameOffset = audioStart;
+        } else {
+            // 没有标签，这10个字节本身就是首帧的开头，回退后按帧重新处理
+            audioStart = 0;
+            nextFrameOffset = 0;
+            position = 0;
+            feed(id3Header, 0, ID3V2_HEADER_SIZE);
+        }
+        return offset;
+    }
+
+    private void onFrameHeader() {
+        long frameOffset = nextFrameOffset;
+        FrameHeader header = parseHeader(headerBytes);
+        if (Objects.isNull(header)) {
+            // 遇到无法识别的数据（如末尾的ID3v1标签），停止扫描
+            scanning = false;
+            return;
+        }
+        if (Objects.isNull(firstHeader)) {
+            firstHeader = header;
+            audioStart = frameOffset;
+            firstFrame = new byte[Math.min(header.frameSize(), MAX_FIRST_FRAME_SIZE)];
+            System.arraycopy(headerBytes, 0, firstFrame, 0, FRAME_HEADER_SIZE);
+            firstFrameLength = FRAME_HEADER_SIZE;
+        }
+        if (frameOffset > Integer.MAX_VALUE) {
+            scanning = false;
+            return;
+        }
+        if (scanFrame == frameOffsets.length) {
+            frameOffsets = Arrays.copyOf(frameOffsets, frameOffsets.length * 2);
+        }
+        frameOffsets[scanFrame++] = (int) frameOffset;
+        frameCount = Math.max(frameCount, scanFrame);
+        nextFrameOffset = frameOffset + header.frameSize();
+    }
+
+    /**
+     * 收集首帧的完整字节，收集完成后解析VBR头
+     */
+    private void captureFirstFrame(byte[] buffer, int offset, int length) {
+        if (Objects.isNull(firstFrame) || firstFrameLength >= firstFrame.length || scanFrame != 1) {
+            return;
+        }
+        // 首帧的4字节帧头在onFrameHeader中已写入，这里只收集帧头之后的数据
+        if (position < audioStart + FRAME_HEADER_SIZE) {
+            return;
+        }
+        int count = Math.min(length, firstFrame.length - firstFrameLength);
+        System.arraycopy(buffer, offset, firstFrame, firstFrameLength, count);
+        firstFrameLength += count;
+        if (firstFrameLength == firstFrame.length) {
+            parseVbrHeader(firstFrame, firstHeader);
+            firstFrameLength = firstHeader.frameSize();
+        }
+    }
+
+    /**
+     * 解析首帧中的Xing/Info或VBRI头
+     */
+    private void parseVbrHeader(byte[] frame, FrameHeader header) {
+        int sideInfo = header.version() == 3 ?
+                (header.mono() ? 17 : 32) :
+                (header.mono() ? 9 : 17);
+        int xing = FRAME_HEADER_SIZE + sideInfo;
+        if (matches(frame, xing, "Xing") || matches(frame, xing, "Info")) {
+            vbrHeaderFrame = true;
+            int flags = readInt(frame, xing + 4, 4);
+            int cursor = xing + 8;
+            if ((flags & XING_FLAG_FRAMES) != 0) {
+                totalFrames = readInt(frame, cursor, 4) & 0xFFFFFFFFL;
+                cursor += 4;
+            }
+            if ((flags & XING_FLAG_BYTES) != 0) {
+                totalBytes = readInt(frame, cursor, 4) & 0xFFFFFFFFL;
+                cursor += 4;
+            }
+            if ((flags & XING_FLAG_TOC) != 0 && cursor + XING_TOC_SIZE <= frame.length) {
+                xingToc = Arrays.copyOfRange(frame, cursor, cursor + XING_TOC_SIZE);
+            }
+            return;
+        }
+        int vbri = VBRI_OFFSET;
+        if (matches(frame, vbri, "VBRI") && vbri + 26 <= frame.length) {
+            vbrHeaderFrame = true;
+            totalBytes = readInt(frame, vbri + 10, 4) & 0xFFFFFFFFL;
+            totalFrames = readInt(frame, vbri + 14, 4) & 0xFFFFFFFFL;
+            int entries = readInt(frame, vbri + 18, 2),
+                    scale = readInt(frame, vbri + 20, 2),
+                    entrySize = readInt(frame, vbri + 22, 2);
+            vbriFramesPerEntry = readInt(frame, vbri + 24, 2);
+            int cursor = vbri + 26;
+            if (entrySize < 1 || entrySize > 4 || cursor + entries * entrySize > frame.length) {
+                return;
+            }
+            vbriToc = new int[entries];
+            for (int i = 0; i < entries; i++) {
+                vbriToc[i] = readInt(frame, cursor, entrySize) * scale;
+                cursor += entrySize;
+            }
+        }
+    }
+
+    private static FrameHeader parseHeader(byte[] h) {
+        if ((h[0] & 0xFF) != 0xFF || (h[1] & 0xE0) != 0xE0) {
+            return null;
+        }
+        int version = (h[1] >> 3) & 0x3,
+                layerBits = (h[1] >> 1) & 0x3,
+                bitrateIndex = (h[2] >> 4) & 0xF,
+                sampleRateIndex = (h[2] >> 2) & 0x3,
+                padding = (h[2] >> 1) & 0x1;
+        if (version == 1 || layerBits == 0 || bitrateIndex == 0 || bitrateIndex == 0xF || sampleRateIndex == 3) {
+            return null;
+        }
+        int layer = 4 - layerBits,
+                bitrate = (version == 3 ? BITRATES_V1 : BITRATES_V2)[layer - 1][bitrateIndex],
+                sampleRate = SAMPLE_RATES[version][sampleRateIndex];
+        int frameSize, samplesPerFrame;
+        if (layer == 1) {
+            frameSize = (12 * bitrate * 1000 / sampleRate + padding) * 4;
+            samplesPerFrame = 384;
+        } else if (layer == 3 && version != 3) {
+            frameSize = 72 * bitrate * 1000 / sampleRate + padding;
+            samplesPerFrame = 576;
+        } else {
+            frameSize = 144 * bitrate * 1000 / sampleRate + padding;
+            samplesPerFrame = 1152;
+        }
+        boolean mono = ((h[3] >> 6) & 0x3) == 3;
+        return new FrameHeader(version, layer, bitrate, sampleRate, frameSize, samplesPerFrame, mono);
+    }
+
+    private static long frameTime(long frame, FrameHeader header) {
+        return frame * header.samplesPerFrame() * 1000L / header.sampleRate();
+    }
+
+    private static boolean matches(byte[] data, int offset, String tag) {
+        if (offset + tag.length() > data.length) {
+            return false;
+        }
+        for (int i = 0; i < tag.length(); i++) {
+            if (data[offset + i] != tag.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int readInt(byte[] data, int offset, int length) {
+        int value = 0;
+        for (int i = 0; i < length; i++) {
+            value = (value << 8) | (data[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * 将读取到的字节同步喂给索引的输入流
+     */
+    private static final class IndexingInputStream extends FilterInputStream {
+
+        private final Mp3FrameIndex index;
+
+        private final byte[] single = new byte[1];
+
+        IndexingInputStream(InputStream source, Mp3FrameIndex index) {
+            super(source);
+            this.index = index;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                single[0] = (byte) b;
+                index.feed(single, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                index.feed(b, off, n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] buffer = new byte[(int) Math.min(n, 4096)];
+            long remaining = n;
+            while (remaining > 0) {
+                int read = read(buffer, 0, (int) Math.min(remaining, buffer.length));
+                if (read < 0) {
+                    break;
+                }
+                remaining -= read;
+            }
+            return n - remaining;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
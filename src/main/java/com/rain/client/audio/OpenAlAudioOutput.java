@@ -0,0 +1,269 @@
+package com.rain.client.audio;
+
+import com.rain.client.MusicPlayerClientMod;
+import javazoom.jl.decoder.JavaLayerException;
+import org.lwjgl.openal.AL10;
+import org.lwjgl.openal.AL11;
+import org.lwjgl.openal.ALC10;
+import org.lwjgl.system.MemoryUtil;
+
+import javax.sound.sampled.AudioFormat;
+import java.nio.ShortBuffer;
+import java.util.ArrayDeque;
+import java.util.Objects;
+
+/**
+ * OpenAL流式输出
+ * <p>
+ * 在游戏音频引擎已创建的OpenAL上下文中申请一个流式音源，
+ * 解码后的PCM按块填入轮转的缓冲区并排队播放。
+ * 音源相对听者放置在原点，不受三维衰减影响；主音量由听者增益承担，音源增益只跟随音乐音量。
+ * 已播放的帧数由出队缓冲区的帧数累计加上当前缓冲区内的采样偏移得出。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+final class OpenAlAudioOutput implements AudioOutput {
+
+    private static final int BUFFER_COUNT = 8;
+
+    private static final int POLL_INTERVAL_MILLIS = 5;
+
+    private final int source;
+
+    private final int[] buffers;
+
+    private final ArrayDeque<Integer> freeBuffers = new ArrayDeque<>(BUFFER_COUNT);
+
+    /**
+     * 排队中各缓冲区的采样帧数，与音源的队列顺序一致
+     */
+    private final ArrayDeque<Integer> queuedFrames = new ArrayDeque<>(BUFFER_COUNT);
+
+    private final int alFormat;
+
+    private final int sampleRate;
+
+    private final int channels;
+
+    /**
+     * 已出队（播放完或被丢弃）的缓冲区累计帧数
+     */
+    private long processedFrames;
+
+    private ShortBuffer staging;
+
+    private float appliedVolume = -1;
+
+    private volatile boolean paused;
+
+    private volatile boolean closed;
+
+    private OpenAlAudioOutput(int source, int[] buffers, int alFormat, int sampleRate, int channels) {
+        this.source = source;
+        this.buffers = buffers;
+        this.alFormat = alFormat;
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+        for (int buffer : buffers) {
+            freeBuffers.add(buffer);
+        }
+    }
+
+    /**
+     * 尝试在游戏的OpenAL上下文中创建音源
+     *
+     * @return 上下文不存在或音源已耗尽时返回null
+     */
+    static OpenAlAudioOutput tryOpen(AudioFormat format) {
+        if (format.getSampleSizeInBits() != 16 || format.getChannels() > 2) {
+            return null;
+        }
+        try {
+            if (ALC10.alcGetCurrentContext() == 0) {
+                return null;
+            }
+            AL10.alGetError();
+            int source = AL10.alGenSources();
+            if (AL10.alGetError() != AL10.AL_NO_ERROR) {
+                return null;
+            }
+            int[] buffers = new int[BUFFER_COUNT];
+            AL10.alGenBuffers(buffers);
+            if (AL10.alGetError() != AL10.AL_NO_ERROR) {
+                AL10.alDeleteSources(source);
+                return null;
+            }
+            AL10.alSourcei(source, AL10.AL_SOURCE_RELATIVE, AL10.AL_TRUE);
+            AL10.alSource3f(source, AL10.AL_POSITION, 0, 0, 0);
+            AL10.alSourcef(source, AL10.AL_ROLLOFF_FACTOR, 0);
+            AL10.alSourcei(source, AL10.AL_LOOPING, AL10.AL_FALSE);
+            int alFormat = format.getChannels() == 1 ? AL10.AL_FORMAT_MONO16 : AL10.AL_FORMAT_STEREO16;
+            MusicPlayerClientMod.LOGGER.info("使用OpenAL输出 ({} Hz, {} 声道)", (int) format.getSampleRate(), format.getChannels());
+            return new OpenAlAudioOutput(source, buffers, alFormat, (int) format.getSampleRate(), format.getChannels());
+        } catch (Throwable e) {
+            // 音频引擎未加载或上下文已销毁
+            MusicPlayerClientMod.LOGGER.warn("创建OpenAL音源失败", e);
+            return null;
+        }
+    }
+
+    @Override
+    public void write(short[] samples, int offset, int length) throws JavaLayerException {
+        int buffer = acquireBuffer();
+        if (buffer == 0) {
+            return;
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (!AL10.alIsSource(source)) {
+                throw new JavaLayerException("OpenAL音源已失效");
+            }
+            if (Objects.isNull(staging) || staging.capacity() < length) {
+                MemoryUtil.memFree(staging);
+                staging = MemoryUtil.memAllocShort(length);
+            }
+            staging.clear();
+            staging.put(samples, offset, length).flip();
+            AL10.alBufferData(buffer, alFormat, staging, sampleRate);
+            AL10.alSourceQueueBuffers(source, buffer);
+            queuedFrames.add(length / channels);
+            applyVolume();
+            // 首次写入或缓冲耗尽导致音源停止时重新开始播放
+            if (!paused && AL10.alGetSourcei(source, AL10.AL_SOURCE_STATE) != AL10.AL_PLAYING) {
+                AL10.alSourcePlay(source);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void pause() {
+        paused = true;
+        if (!closed) {
+            AL10.alSourcePause(source);
+        }
+    }
+
+    @Override
+    public synchronized void resume() {
+        paused = false;
+        if (!closed && AL10.alGetSourcei(source, AL10.AL_BUFFERS_QUEUED) > 0) {
+            AL10.alSourcePlay(source);
+        }
+    }
+
+    @Override
+    public synchronized void discard() {
+        if (closed) {
+            return;
+        }
+        AL10.alSourceStop(source);
+        reclaimProcessed();
+    }
+
+    @Override
+    public void drain() {
+        while (!closed) {
+            synchronized (this) {
+                if (closed || AL10.alGetSourcei(source, AL10.AL_SOURCE_STATE) != AL10.AL_PLAYING) {
+                    return;
+                }
+            }
+            if (!sleep()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 已出队的帧数加上当前缓冲区内的播放偏移
+     */
+    @Override
+    public synchronized long playedFrames() {
+        if (closed) {
+            return processedFrames;
+        }
+        reclaimProcessed();
+        if (queuedFrames.isEmpty()) {
+            return processedFrames;
+        }
+        int offset = AL10.alGetSourcei(source, AL11.AL_SAMPLE_OFFSET);
+        return processedFrames + Math.min(offset, queuedFrames.peekFirst());
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            AL10.alSourceStop(source);
+            AL10.alSourcei(source, AL10.AL_BUFFER, 0);
+            AL10.alDeleteSources(source);
+            AL10.alDeleteBuffers(buffers);
+        } catch (Throwable e) {
+            MusicPlayerClientMod.LOGGER.warn("释放OpenAL音源失败", e);
+        }
+        MemoryUtil.memFree(staging);
+        staging = null;
+    }
+
+    /**
+     * 取得一个空闲缓冲区，全部在排队时等待音源播放完一个
+     *
+     * @return 输出已关闭时返回0
+     */
+    private int acquireBuffer() {
+        while (!closed) {
+            synchronized (this) {
+                if (closed) {
+                    return 0;
+                }
+                reclaimProcessed();
+                Integer buffer = freeBuffers.poll();
+                if (!Objects.isNull(buffer)) {
+                    return buffer;
+                }
+            }
+            if (!sleep()) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 回收已播放完毕的缓冲区
+     */
+    private void reclaimProcessed() {
+        int processed = AL10.alGetSourcei(source, AL10.AL_BUFFERS_PROCESSED);
+        for (int i = 0; i < processed; i++) {
+            freeBuffers.add(AL10.alSourceUnqueueBuffers(source));
+            Integer frames = queuedFrames.poll();
+            processedFrames += Objects.isNull(frames) ? 0 : frames;
+        }
+    }
+
+    private void applyVolume() {
+        float volume = AudioOutput.gameVolume(false);
+        if (volume != appliedVolume) {
+            appliedVolume = volume;
+            AL10.alSourcef(source, AL10.AL_GAIN, volume);
+        }
+    }
+
+    private static boolean sleep() {
+        try {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.rain.client.audio;
+
+import javazoom.jl.player.JavaSoundAudioDevice;
+
+import javax.sound.sampled.FloatControl;
+import javax.sound.sampled.Line;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import java.util.Objects;
+
+/**
+ * 可暂停的JavaSound输出设备
+ * <p>
+ * JLayer的JavaSoundAudioDevice不暴露底层的SourceDataLine，
+ * 这里在创建时截获它，暂停时停止输出线路而不是关闭，恢复时无需重新打开设备。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+final class PausableAudioDevice extends JavaSoundAudioDevice {
+
+    private volatile SourceDataLine line;
+
+    @Override
+    protected Line createLine() throws LineUnavailableException {
+        Line created = super.createLine();
+        if (created instanceof SourceDataLine sourceDataLine) {
+            this.line = sourceDataLine;
+        }
+        return created;
+    }
+
+    /**
+     * 暂停输出线路，已写入的数据保留在线路缓冲区中
+     */
+    void pauseLine() {
+        SourceDataLine current = line;
+        if (!Objects.isNull(current)) {
+            current.stop();
+        }
+    }
+
+    /**
+     * 丢弃线路缓冲区中尚未播放的数据（跳转时使用）
+     */
+    void flushLine() {
+        SourceDataLine current = line;
+        if (!Objects.isNull(current)) {
+            current.flush();
+        }
+    }
+
+    /**
+     * 设置线性音量（0~1），线路不支持增益控制时忽略
+     */
+    void setVolume(float volume) {
+        SourceDataLine current = line;
+        if (Objects.isNull(current) || !current.isControlSupported(FloatControl.Type.MASTER_GAIN)) {
+            return;
+        }
+        FloatControl gain = (FloatControl) current.getControl(FloatControl.Type.MASTER_GAIN);
+        float decibels = (float) (20.0 * Math.log10(Math.max(volume, 1.0e-4f)));
+        gain.setValue(Math.clamp(decibels, gain.getMinimum(), gain.getMaximum()));
+    }
+
+    /**
+     * 线路自打开以来已渲染的采样帧数，线路尚未创建时为0
+     */
+    long framePosition() {
+        SourceDataLine current = line;
+        return Objects.isNull(current) ? 0 : current.getLongFramePosition();
+    }
+
+    /**
+     * 恢复输出线路
+     */
+    void resumeLine() {
+        SourceDataLine current = line;
+        if (!Objects.isNull(current)) {
+            current.start();
+        }
+    }
+}
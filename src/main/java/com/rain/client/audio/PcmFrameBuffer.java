@@ -0,0 +1,93 @@
+package com.rain.client.audio;
+
+import javazoom.jl.decoder.Obuffer;
+
+/**
+ * MP3解码的输出缓冲区
+ * <p>
+ * 作为JLayer的 {@link Obuffer} 实现交给解码器，合成滤波器每输出32个采样就直接按声道交错写入这里的数组，
+ * 限幅与JLayer自带的 SampleBuffer 完全相同，因此输出逐位一致。
+ * 缓冲区由 {@link Mp3Decoder} 持有，跳转时换用新的JLayer解码器也沿用同一块数组，
+ * 每帧只重置写入位置，不再经过 SampleBuffer 的逐采样虚调用。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+final class PcmFrameBuffer extends Obuffer {
+
+    private static final int SUBBAND_SAMPLES = 32;
+
+    private static final float MAX_SAMPLE = 32767.0f;
+
+    private final short[] buffer = new short[OBUFFERSIZE];
+
+    /**
+     * 各声道的下一个写入位置
+     */
+    private final int[] writePos = new int[MAXCHANNELS];
+
+    private int channels = 1;
+
+    /**
+     * 设置声道数，在解码下一帧之前调用
+     */
+    void setChannels(int channels) {
+        this.channels = channels;
+    }
+
+    short[] buffer() {
+        return buffer;
+    }
+
+    /**
+     * 当前帧的采样数（各声道合计）
+     */
+    int length() {
+        return writePos[0];
+    }
+
+    @Override
+    public void append(int channel, short value) {
+        buffer[writePos[channel]] = value;
+        writePos[channel] += channels;
+    }
+
+    @Override
+    public void appendSamples(int channel, float[] samples) {
+        int pos = writePos[channel],
+                stride = channels;
+        for (int i = 0; i < SUBBAND_SAMPLES; i++) {
+            float sample = samples[i];
+            if (sample > MAX_SAMPLE) {
+                sample = MAX_SAMPLE;
+            } else if (sample < -MAX_SAMPLE) {
+                sample = -MAX_SAMPLE;
+            }
+            buffer[pos] = (short) sample;
+            pos += stride;
+        }
+        writePos[channel] = pos;
+    }
+
+    @Override
+    public void clear_buffer() {
+        for (int channel = 0; channel < channels; channel++) {
+            writePos[channel] = channel;
+        }
+    }
+
+    @Override
+    public void write_buffer(int val) {
+        // 采样已直接写入数组，由调用方整帧取走
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void set_stop_flag() {
+    }
+}
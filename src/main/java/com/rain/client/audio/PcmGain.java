@@ -0,0 +1,92 @@
+package com.rain.client.audio;
+
+import com.rain.client.MusicPlayerClientMod;
+
+/**
+ * PCM增益
+ * <p>
+ * 对16位PCM原地乘以线性增益并截断到满刻度。JVM加载了 {@code jdk.incubator.vector} 模块时
+ * （启动参数 {@code --add-modules jdk.incubator.vector}）使用 {@link VectorPcmGain} 的SIMD实现，
+ * 否则使用标量循环；矢量实现的类只在模块存在时才会被加载。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+final class PcmGain {
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private static final boolean VECTORIZED = detectVectorSupport();
+
+    private PcmGain() {
+    }
+
+    /**
+     * 原地缩放采样
+     *
+     * @param gain 线性增益，为1时不做处理
+     */
+    static void apply(short[] samples, int offset, int length, float gain) {
+        if (gain == 1.0f || length <= 0) {
+            return;
+        }
+        if (VECTORIZED) {
+            VectorPcmGain.apply(samples, offset, length, gain);
+        } else {
+            applyScalar(samples, offset, length, gain);
+        }
+    }
+
+    /**
+     * 原地乘以逐帧线性过渡的增益，用于平滑地压低或恢复音量
+     *
+     * @param frames   采样帧数
+     * @param channels 声道数
+     * @param from     过渡起点的增益
+     * @param to       最后一帧的增益
+     */
+    static void ramp(short[] samples, int offset, int frames, int channels, float from, float to) {
+        if (from == to) {
+            apply(samples, offset, frames * channels, to);
+            return;
+        }
+        float step = (to - from) / frames;
+        for (int frame = 0; frame < frames; frame++) {
+            float gain = from + step * (frame + 1);
+            for (int i = offset + frame * channels, end = i + channels; i < end; i++) {
+                samples[i] = (short) Math.max(-32768.0f, Math.min(32767.0f, samples[i] * gain));
+            }
+        }
+    }
+
+    /**
+     * 标量实现，也用于矢量实现末尾不足一个矢量宽度的部分
+     */
+    static void applyScalar(short[] samples, int offset, int length, float gain) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            samples[i] = (short) Math.max(-32768.0f, Math.min(32767.0f, samples[i] * gain));
+        }
+    }
+
+    private static boolean detectVectorSupport() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return false;
+        }
+        try {
+            // 用一小段数据试运行，确认当前平台的矢量宽度可用
+            short[] probe = {1000, -1000, 32767, -32768, 0, 1, -1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16,
+                    17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32};
+            VectorPcmGain.apply(probe, 0, probe.length, 2.0f);
+            boolean valid = probe[0] == 2000 && probe[1] == -2000 && probe[2] == 32767 && probe[3] == -32768;
+            if (valid) {
+                MusicPlayerClientMod.LOGGER.info("PCM增益使用Vector API");
+            }
+            return valid;
+        } catch (Throwable e) {
+            MusicPlayerClientMod.LOGGER.warn("Vector API不可用，PCM增益使用标量实现", e);
+            return false;
+        }
+    }
+}
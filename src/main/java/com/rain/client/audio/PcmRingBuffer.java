@@ -0,0 +1,266 @@
+package com.rain.client.audio;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * PCM环形缓冲区
+ * <p>
+ * 单生产者（解码线程）单消费者（输出线程），容量在创建时一次性分配，运行中不再分配内存。
+ * 写满时生产者阻塞，读空时消费者阻塞并记一次欠载，之后要等缓冲回到阈值以上才继续输出，
+ * 避免在网络抖动时反复“播一点停一点”。
+ * 生产者可以在数据流中插入标记（如跳转、换曲、格式变化），消费者读到标记位置时会先取出标记再继续读取。
+ * </p>
+ *
+ * @param <M> 标记类型
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+final class PcmRingBuffer<M> {
+
+    private record Mark<M>(long position, M value) {
+    }
+
+    private final short[] buffer;
+
+    private final int resumeThreshold;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    private final ArrayDeque<Mark<M>> marks = new ArrayDeque<>();
+
+    /**
+     * 累计写入/读取的采样数（绝对位置，对容量取模得到数组下标）
+     */
+    private long writePosition;
+
+    private long readPosition;
+
+    private boolean finished;
+
+    private boolean closed;
+
+    /**
+     * 起播、跳转或欠载后处于缓冲状态，达到阈值才开始输出
+     */
+    private boolean rebuffering = true;
+
+    private long underruns;
+
+    /**
+     * @param capacity        容量（采样数，多声道交错计）
+     * @param resumeThreshold 缓冲状态下恢复输出所需的采样数
+     */
+    PcmRingBuffer(int capacity, int resumeThreshold) {
+        this.buffer = new short[capacity];
+        this.resumeThreshold = Math.min(resumeThreshold, capacity);
+    }
+
+    /**
+     * 写入采样，空间不足时阻塞
+     *
+     * @return 缓冲区已关闭返回false
+     */
+    boolean write(short[] src, int offset, int length) throws InterruptedException {
+        int remaining = length;
+        int position = offset;
+        while (remaining > 0) {
+            lock.lockInterruptibly();
+            try {
+                while (!closed && free() == 0) {
+                    notFull.await();
+                }
+                if (closed) {
+                    return false;
+                }
+                int index = (int) (writePosition % buffer.length);
+                int count = Math.min(remaining, Math.min(free(), buffer.length - index));
+                System.arraycopy(src, position, buffer, index, count);
+                writePosition += count;
+                position += count;
+                remaining -= count;
+                notEmpty.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 在当前写入位置插入标记
+     */
+    void mark(M value) {
+        lock.lock();
+        try {
+            marks.addLast(new Mark<>(writePosition, value));
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 生产者已写完全部数据
+     */
+    void finish() {
+        lock.lock();
+        try {
+            finished = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 丢弃尚未读取的数据和标记（跳转时使用），之后重新进入缓冲状态
+     */
+    void clear() {
+        lock.lock();
+        try {
+            readPosition = writePosition;
+            marks.clear();
+            rebuffering = true;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 关闭缓冲区，唤醒所有阻塞中的读写
+     */
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 读取采样，无数据时阻塞；读取不会越过下一个标记
+     *
+     * @return 读取的采样数；读取位置上有标记时返回0，应先调用 {@link #pollMark()}；
+     * 数据已读完或缓冲区关闭时返回-1
+     */
+    int read(short[] dst, int offset, int length) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                if (closed) {
+                    return -1;
+                }
+                Mark<M> next = marks.peekFirst();
+                if (!Objects.isNull(next) && next.position() <= readPosition) {
+                    return 0;
+                }
+                long available = writePosition - readPosition;
+                long limit = Objects.isNull(next) ? Long.MAX_VALUE : next.position() - readPosition;
+                // 下一个标记之前的数据已全部到位时不必再等阈值
+                if (rebuffering && available < resumeThreshold && !finished && limit > available) {
+                    notEmpty.await();
+                    continue;
+                }
+                rebuffering = false;
+                if (available == 0) {
+                    if (finished) {
+                        return -1;
+                    }
+                    underruns++;
+                    rebuffering = true;
+                    continue;
+                }
+                int index = (int) (readPosition % buffer.length);
+                int count = (int) Math.min(Math.min(length, available), Math.min(limit, buffer.length - index));
+                System.arraycopy(buffer, index, dst, offset, count);
+                readPosition += count;
+                notFull.signalAll();
+                return count;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 读取当前已有的采样，不等待、不计欠载也不检查标记，供混入另一路输出时使用
+     *
+     * @return 读取的采样数，暂无数据时返回0；数据已读完或缓冲区关闭时返回-1
+     */
+    int poll(short[] dst, int offset, int length) {
+        lock.lock();
+        try {
+            long available = writePosition - readPosition;
+            if (closed || (available == 0 && finished)) {
+                return -1;
+            }
+            int index = (int) (readPosition % buffer.length);
+            int count = (int) Math.min(Math.min(length, available), buffer.length - index);
+            System.arraycopy(buffer, index, dst, offset, count);
+            readPosition += count;
+            notFull.signalAll();
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取出已到达读取位置的标记
+     *
+     * @return 没有到达的标记时返回null
+     */
+    M pollMark() {
+        lock.lock();
+        try {
+            Mark<M> next = marks.peekFirst();
+            if (Objects.isNull(next) || next.position() > readPosition) {
+                return null;
+            }
+            marks.removeFirst();
+            return next.value();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 缓冲区填充比例（0~1）
+     */
+    float fillLevel() {
+        lock.lock();
+        try {
+            return (float) (writePosition - readPosition) / buffer.length;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 累计欠载次数
+     */
+    long underruns() {
+        lock.lock();
+        try {
+            return underruns;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int free() {
+        return buffer.length - (int) (writePosition - readPosition);
+    }
+}
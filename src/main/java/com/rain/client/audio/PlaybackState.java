@@ -0,0 +1,40 @@
+package com.rain.client.audio;
+
+/**
+ * 播放状态
+ * <p>
+ * 正常流程：IDLE → CONNECTING → BUFFERING → PLAYING ⇄ PAUSED → IDLE；
+ * 任意状态下停止都会经过 STOPPING 回到 IDLE，切歌则直接以新的一代进入 CONNECTING。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+public enum PlaybackState {
+
+    IDLE("空闲"),
+    CONNECTING("连接中"),
+    BUFFERING("缓冲中"),
+    PLAYING("播放中"),
+    PAUSED("已暂停"),
+    STOPPING("停止中"),
+    ;
+
+    private final String displayName;
+
+    PlaybackState(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * 播放器已创建且未暂停
+     */
+    public boolean isPlaying() {
+        return this == BUFFERING || this == PLAYING;
+    }
+}
@@ -0,0 +1,312 @@
+package com.rain.client.audio;
+
+import com.rain.client.MusicPlayerClientMod;
+import com.rain.common.config.ModConfig;
+import javazoom.jl.decoder.JavaLayerException;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 试听声道
+ * <p>
+ * 在独立的解码线程上把试听片段解码进一个小的PCM环形缓冲区，解码满 {@link ModConfig#PREVIEW_SECONDS} 秒即停止。
+ * 有歌曲正在播放时，由该歌曲的输出线程调用 {@link #mixInto} 把试听叠加到即将写入设备的数据上，
+ * 与歌曲共用同一条输出线路；试听的采样率或声道数与输出不同时按线性插值转换。
+ * 没有歌曲在播放时由 {@link #play()} 单独打开一条输出线路。
+ * </p>
+ * <p>
+ * 试听开头淡入、结尾淡出，音量为 {@link ModConfig#PREVIEW_VOLUME}。
+ * 混音用到的缓冲区在创建时分配并反复使用，混音过程中不产生任何对象。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+final class PreviewChannel {
+
+    private static final String DECODER_THREAD_NAME = "MusicPlayer-PreviewDecoder";
+
+    private static final int MAX_CHANNELS = 2;
+
+    /**
+     * 环形缓冲区容量按48kHz立体声1秒计算
+     */
+    private static final int BUFFER_CAPACITY = 48000 * MAX_CHANNELS;
+
+    /**
+     * 待转换的输入采样帧数上限，足以把一块输出从最高192kHz的试听换算过来
+     */
+    private static final int INPUT_FRAMES = 16384;
+
+    /**
+     * 单独输出时每次写入设备的采样数
+     */
+    private static final int OUTPUT_CHUNK = 4096;
+
+    private final TrackDecoder decoder;
+
+    private final InputStream stream;
+
+    private final PcmRingBuffer<Void> ringBuffer = new PcmRingBuffer<>(BUFFER_CAPACITY, 0);
+
+    private final CountDownLatch formatReady = new CountDownLatch(1);
+
+    // ========== 混音状态（仅消费试听的输出线程访问） ==========
+
+    /**
+     * 已从环形缓冲区取出、尚未播放完的试听采样（试听自身的格式）
+     */
+    private final short[] input = new short[INPUT_FRAMES * MAX_CHANNELS];
+
+    private final short[] outputChunk = new short[OUTPUT_CHUNK];
+
+    private int inputFrames;
+
+    /**
+     * 下一个输出帧在 input 中的位置（帧，含小数部分）
+     */
+    private double phase;
+
+    /**
+     * 已从 input 中丢弃的帧数，即 input[0] 在试听中的帧序号
+     */
+    private long playedFrames;
+
+    private boolean drained;
+
+    // ========== 解码线程发布的格式 ==========
+
+    private volatile int sampleRate;
+
+    private volatile int channels;
+
+    /**
+     * 试听的总帧数，用于计算结尾的淡出
+     */
+    private volatile long totalFrames;
+
+    private volatile AudioOutput standaloneOutput;
+
+    private volatile boolean finished;
+
+    private volatile boolean closed;
+
+    PreviewChannel(StreamPlayer.Source source, AudioMetrics metrics) {
+        this.decoder = new TrackDecoder(source, metrics);
+        this.stream = source.stream();
+    }
+
+    /**
+     * 启动解码线程
+     */
+    void start() {
+        Thread decoderThread = new Thread(this::decodeLoop, DECODER_THREAD_NAME);
+        decoderThread.setDaemon(true);
+        decoderThread.start();
+    }
+
+    /**
+     * 把试听叠加到一块输出数据上，在消费试听的输出线程上调用
+     * <p>
+     * 试听数据暂时不足时这一块只叠加已有的部分，不会等待。
+     * </p>
+     *
+     * @param out         交错的输出采样，原地叠加
+     * @param count       采样数（各声道合计）
+     * @param outChannels 输出声道数
+     * @param outRate     输出采样率
+     * @return 试听已播放完毕或已关闭返回false
+     */
+    boolean mixInto(short[] out, int count, int outChannels, int outRate) {
+        if (finished || closed) {
+            return false;
+        }
+        int rate = sampleRate,
+                inChannels = channels;
+        if (rate == 0) {
+            // 尚未解码出第一帧
+            return true;
+        }
+        int frames = count / outChannels;
+        double step = (double) rate / outRate;
+        fill((int) Math.min(INPUT_FRAMES, (long) (phase + frames * step) + 2), inChannels);
+        long total = totalFrames,
+                fadeFrames = Math.max(1, (long) ModConfig.PREVIEW_FADE_MILLIS * rate / 1000);
+        for (int frame = 0; frame < frames; frame++) {
+            int index = (int) phase;
+            if (index >= inputFrames || (index + 1 >= inputFrames && !drained)) {
+                // 插值所需的下一帧尚未解码
+                break;
+            }
+            int next = Math.min(index + 1, inputFrames - 1);
+            float t = (float) (phase - index);
+            long position = playedFrames + index;
+            float envelope = ModConfig.PREVIEW_VOLUME
+                    * Math.clamp((float) Math.min(position, total - position) / fadeFrames, 0.0f, 1.0f);
+            for (int channel = 0; channel < outChannels; channel++) {
+                float a = sample(index, channel, inChannels, outChannels),
+                        b = sample(next, channel, inChannels, outChannels);
+                int target = frame * outChannels + channel;
+                float mixed = out[target] + (a + (b - a) * t) * envelope;
+                out[target] = (short) Math.max(-32768.0f, Math.min(32767.0f, mixed));
+            }
+            phase += step;
+        }
+        int consumed = Math.min((int) phase, inputFrames);
+        if (consumed > 0) {
+            System.arraycopy(input, consumed * inChannels, input, 0, (inputFrames - consumed) * inChannels);
+            inputFrames -= consumed;
+            phase -= consumed;
+            playedFrames += consumed;
+        }
+        if (drained && inputFrames == 0) {
+            finished = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 没有歌曲在播放时单独打开输出线路播放试听，阻塞到试听结束或被关闭
+     */
+    void play() throws JavaLayerException {
+        try {
+            formatReady.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        int rate = sampleRate,
+                outChannels = channels;
+        if (closed || rate == 0) {
+            return;
+        }
+        AudioOutput output = AudioOutput.open(new AudioFormat(rate, 16, outChannels, true, false));
+        standaloneOutput = output;
+        try {
+            int count = OUTPUT_CHUNK / outChannels * outChannels;
+            while (!closed) {
+                Arrays.fill(outputChunk, 0, count, (short) 0);
+                if (!mixInto(outputChunk, count, outChannels, rate)) {
+                    break;
+                }
+                output.write(outputChunk, 0, count);
+            }
+            if (!closed) {
+                output.drain();
+            }
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * 是否已解码出第一帧，此后试听开始发声
+     */
+    boolean isStarted() {
+        return sampleRate > 0;
+    }
+
+    /**
+     * 试听是否已播放完毕或被关闭
+     */
+    boolean isFinished() {
+        return finished || closed;
+    }
+
+    /**
+     * 停止试听，唤醒阻塞中的解码与输出
+     */
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        ringBuffer.close();
+        formatReady.countDown();
+        AudioOutput output = standaloneOutput;
+        if (!Objects.isNull(output)) {
+            output.close();
+        }
+        try {
+            stream.close();
+        } catch (IOException e) {
+            MusicPlayerClientMod.LOGGER.debug("关闭试听音频流时出错", e);
+        }
+    }
+
+    private void decodeLoop() {
+        try {
+            if (!decoder.ensureFrame()) {
+                return;
+            }
+            int rate = decoder.sampleRate(),
+                    frameChannels = decoder.channels();
+            long limit = (long) ModConfig.PREVIEW_SECONDS * rate,
+                    duration = decoder.durationMillis();
+            totalFrames = duration > 0 ? Math.min(limit, duration * rate / 1000) : limit;
+            channels = frameChannels;
+            sampleRate = rate;
+            formatReady.countDown();
+            long written = 0;
+            while (!closed && written < totalFrames && decoder.ensureFrame()) {
+                if (decoder.sampleRate() != rate || decoder.channels() != frameChannels) {
+                    MusicPlayerClientMod.LOGGER.info("试听片段的音频格式发生变化，提前结束试听");
+                    break;
+                }
+                int frames = (int) Math.min(decoder.frameRemaining() / frameChannels, totalFrames - written);
+                if (!ringBuffer.write(decoder.frameSamples(), decoder.frameCursor(), frames * frameChannels)) {
+                    break;
+                }
+                decoder.consumeFrame();
+                written += frames;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            if (!closed) {
+                MusicPlayerClientMod.LOGGER.warn("试听解码失败", e);
+            }
+        } finally {
+            ringBuffer.finish();
+            formatReady.countDown();
+            decoder.close();
+        }
+    }
+
+    /**
+     * 从环形缓冲区取出试听数据，直到 input 中有 wanted 帧或暂无更多数据
+     */
+    private void fill(int wanted, int inChannels) {
+        while (!drained && inputFrames < wanted) {
+            int read = ringBuffer.poll(input, inputFrames * inChannels, (wanted - inputFrames) * inChannels);
+            if (read < 0) {
+                drained = true;
+            } else if (read == 0) {
+                return;
+            } else {
+                inputFrames += read / inChannels;
+            }
+        }
+    }
+
+    /**
+     * 按输出声道取一个试听采样：单声道复制到两个声道，立体声输出到单声道时取平均
+     */
+    private float sample(int frame, int channel, int inChannels, int outChannels) {
+        int base = frame * inChannels;
+        if (inChannels == 1) {
+            return input[base];
+        }
+        if (outChannels == 1) {
+            return (input[base] + input[base + 1]) * 0.5f;
+        }
+        return input[base + Math.min(channel, inChannels - 1)];
+    }
+}
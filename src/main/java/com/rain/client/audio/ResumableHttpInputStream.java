@@ -0,0 +1,154 @@
+package com.rain.client.audio;
+
+import com.rain.client.MusicPlayerClientMod;
+import com.rain.common.config.ModConfig;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+/**
+ * 可断点续传的网络音频流
+ * <p>
+ * 记录已读取的字节偏移；读取超时、连接被重置或在内容长度之前提前结束时，
+ * 按当前偏移发起Range请求重新连接并继续读取，调用方（解码线程）只会感到一次较慢的读取。
+ * 连续重连失败超过上限后才把异常抛给调用方。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+final class ResumableHttpInputStream extends InputStream {
+
+    private static final long BACKOFF_MILLIS = 500;
+
+    /**
+     * 从指定字节偏移重新打开连接
+     */
+    @FunctionalInterface
+    interface Reconnector {
+        InputStream open(long offset) throws IOException;
+    }
+
+    private final Reconnector reconnector;
+
+    private final long endOffset;
+
+    private final AudioMetrics metrics;
+
+    private volatile InputStream in;
+
+    private long position;
+
+    private volatile boolean closed;
+
+    /**
+     * @param in          已打开的连接
+     * @param startOffset 该连接的起始字节偏移
+     * @param endOffset   资源的总长度，未知时为-1
+     * @param reconnector 断流时重新打开连接
+     * @param metrics     重连与停滞统计
+     */
+    ResumableHttpInputStream(InputStream in, long startOffset, long endOffset, Reconnector reconnector,
+                             AudioMetrics metrics) {
+        this.in = in;
+        this.position = startOffset;
+        this.endOffset = endOffset;
+        this.reconnector = reconnector;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int count = read(single, 0, 1);
+        return count < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        long readStart = System.nanoTime();
+        int attempts = 0;
+        while (true) {
+            IOException failure;
+            try {
+                int count = in.read(b, off, len);
+                if (count < 0 && endOffset > 0 && position < endOffset) {
+                    throw new EOFException("连接在 " + position + "/" + endOffset + " 字节处提前结束");
+                }
+                if (count > 0) {
+                    position += count;
+                }
+                if (attempts > 0) {
+                    long stalled = System.nanoTime() - readStart;
+                    metrics.recordStall(stalled);
+                    MusicPlayerClientMod.LOGGER.info("音频流已恢复，停滞 {} ms", stalled / 1_000_000);
+                }
+                return count;
+            } catch (IOException e) {
+                failure = e;
+            }
+            // 重连成功后回到外层继续读取，全部失败时抛出最后一次的异常
+            while (true) {
+                if (closed || attempts >= ModConfig.STREAM_MAX_RECONNECTS || Thread.currentThread().isInterrupted()) {
+                    throw failure;
+                }
+                attempts++;
+                MusicPlayerClientMod.LOGGER.warn("音频流中断 ({})，第 {} 次从 {} 字节处重连",
+                        failure.getMessage(), attempts, position);
+                try {
+                    reconnect(attempts);
+                    break;
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        return closed ? 0 : in.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        in.close();
+    }
+
+    /**
+     * 退避后按当前偏移重新连接
+     */
+    private void reconnect(int attempt) throws IOException {
+        closeQuietly(in);
+        try {
+            Thread.sleep(BACKOFF_MILLIS * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("重连音频流时被中断");
+        }
+        if (closed) {
+            throw new IOException("音频流已关闭");
+        }
+        metrics.recordReconnect();
+        InputStream reopened = reconnector.open(position);
+        in = reopened;
+        if (closed) {
+            closeQuietly(reopened);
+        }
+    }
+
+    private static void closeQuietly(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException ignored) {
+            // 旧连接已不再使用
+        }
+    }
+}
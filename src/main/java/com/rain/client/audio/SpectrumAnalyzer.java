@@ -0,0 +1,216 @@
+package com.rain.client.audio;
+
+import com.rain.common.config.ModConfig;
+
+/**
+ * 频谱分析器
+ * <p>
+ * 输出线程把刚写入设备的PCM混为单声道送入环形窗口，每累计半个窗口做一次加汉宁窗的基2 FFT，
+ * 按对数间隔的频带汇总为若干根柱子的高度（0~1），写入后台缓冲区后再翻转为前台。
+ * FFT、窗函数与各缓冲区都预先分配，分析过程不分配内存。
+ * </p>
+ * <p>
+ * 渲染线程通过 {@link #bars()} 只读前台缓冲区，不加锁也不分配。
+ * 超过一段时间没有被读取时输出线程跳过分析，关闭显示后不再消耗CPU。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+public final class SpectrumAnalyzer {
+
+    private static final int FFT_SIZE = 1024;
+
+    private static final int HOP_SIZE = FFT_SIZE / 2;
+
+    private static final float MIN_FREQUENCY = 40.0f;
+
+    private static final float MAX_FREQUENCY = 16000.0f;
+
+    /**
+     * 显示范围的下限（dB），低于该值的柱子高度为0
+     */
+    private static final float FLOOR_DB = -60.0f;
+
+    /**
+     * 柱子每秒下落的高度
+     */
+    private static final float FALL_PER_SECOND = 1.8f;
+
+    /**
+     * 超过该时长未被读取时停止分析
+     */
+    private static final long IDLE_NANOS = 500_000_000L;
+
+    private static final float SHORT_SCALE = 1.0f / 32768.0f;
+
+    // ========== 预分配的FFT状态（仅输出线程访问） ==========
+
+    private final float[] history = new float[FFT_SIZE];
+
+    private final float[] window = new float[FFT_SIZE];
+
+    private final float[] real = new float[FFT_SIZE];
+
+    private final float[] imag = new float[FFT_SIZE];
+
+    private final float[] cosTable = new float[FFT_SIZE / 2];
+
+    private final float[] sinTable = new float[FFT_SIZE / 2];
+
+    private final int[] bitReversed = new int[FFT_SIZE];
+
+    private final int[] bandEdges = new int[ModConfig.SPECTRUM_BARS + 1];
+
+    private int historyPosition;
+
+    private int sinceLastHop;
+
+    private int bandSampleRate;
+
+    // ========== 双缓冲 ==========
+
+    private final float[][] buffers = new float[2][ModConfig.SPECTRUM_BARS];
+
+    private volatile int front;
+
+    private volatile long lastReadNanos;
+
+    public SpectrumAnalyzer() {
+        int bits = Integer.numberOfTrailingZeros(FFT_SIZE);
+        for (int i = 0; i < FFT_SIZE; i++) {
+            window[i] = (float) (0.5 - 0.5 * Math.cos(2 * Math.PI * i / (FFT_SIZE - 1)));
+            bitReversed[i] = Integer.reverse(i) >>> 32 - bits;
+        }
+        for (int i = 0; i < FFT_SIZE / 2; i++) {
+            cosTable[i] = (float) Math.cos(2 * Math.PI * i / FFT_SIZE);
+            sinTable[i] = (float) -Math.sin(2 * Math.PI * i / FFT_SIZE);
+        }
+    }
+
+    /**
+     * 当前各柱子的高度（0~1），由渲染线程每帧调用
+     * <p>
+     * 返回的数组只能读取，输出线程之后会在另一块缓冲区上写入下一次的结果。
+     * </p>
+     */
+    public float[] bars() {
+        lastReadNanos = System.nanoTime();
+        return buffers[front];
+    }
+
+    /**
+     * 最近是否有渲染线程在读取，没有时输出线程跳过分析
+     */
+    boolean isWanted() {
+        return System.nanoTime() - lastReadNanos < IDLE_NANOS;
+    }
+
+    /**
+     * 送入刚写入输出设备的PCM（输出线程）
+     *
+     * @param pcm        交错的16位采样
+     * @param offset     起始下标
+     * @param count      采样数（各声道合计）
+     * @param channels   声道数
+     * @param sampleRate 采样率
+     */
+    void process(short[] pcm, int offset, int count, int channels, int sampleRate) {
+        if (channels <= 0 || sampleRate <= 0) {
+            return;
+        }
+        float scale = SHORT_SCALE / channels;
+        int end = offset + count - channels + 1;
+        for (int i = offset; i < end; i += channels) {
+            int sum = 0;
+            for (int c = 0; c < channels; c++) {
+                sum += pcm[i + c];
+            }
+            history[historyPosition] = sum * scale;
+            historyPosition = historyPosition + 1 & FFT_SIZE - 1;
+            if (++sinceLastHop >= HOP_SIZE) {
+                sinceLastHop = 0;
+                analyze(sampleRate);
+            }
+        }
+    }
+
+    private void analyze(int sampleRate) {
+        if (sampleRate != bandSampleRate) {
+            computeBandEdges(sampleRate);
+        }
+        // 从最旧的采样开始加窗，按位反转顺序放入
+        for (int i = 0; i < FFT_SIZE; i++) {
+            int target = bitReversed[i];
+            real[target] = history[historyPosition + i & FFT_SIZE - 1] * window[i];
+            imag[target] = 0;
+        }
+        transform();
+        int back = 1 - front;
+        float[] previous = buffers[front],
+                next = buffers[back];
+        float fall = FALL_PER_SECOND * HOP_SIZE / sampleRate,
+                // 汉宁窗下满幅正弦的峰值幅度为 N/4
+                normalize = 4.0f / FFT_SIZE;
+        for (int bar = 0; bar < next.length; bar++) {
+            float peak = 0;
+            for (int bin = bandEdges[bar]; bin < bandEdges[bar + 1]; bin++) {
+                float power = real[bin] * real[bin] + imag[bin] * imag[bin];
+                if (power > peak) {
+                    peak = power;
+                }
+            }
+            float magnitude = (float) Math.sqrt(peak) * normalize,
+                    db = magnitude > 0 ? 20.0f * (float) Math.log10(magnitude) : FLOOR_DB,
+                    level = Math.clamp(1.0f - db / FLOOR_DB, 0.0f, 1.0f);
+            // 上升立即跟随，下降按固定速度回落
+            next[bar] = Math.max(level, previous[bar] - fall);
+        }
+        front = back;
+    }
+
+    /**
+     * 原地迭代基2 FFT，输入已按位反转顺序排列
+     */
+    private void transform() {
+        for (int size = 2; size <= FFT_SIZE; size <<= 1) {
+            int half = size >> 1,
+                    step = FFT_SIZE / size;
+            for (int start = 0; start < FFT_SIZE; start += size) {
+                for (int k = 0; k < half; k++) {
+                    float cos = cosTable[k * step],
+                            sin = sinTable[k * step];
+                    int even = start + k,
+                            odd = even + half;
+                    float oddReal = real[odd] * cos - imag[odd] * sin,
+                            oddImag = real[odd] * sin + imag[odd] * cos;
+                    real[odd] = real[even] - oddReal;
+                    imag[odd] = imag[even] - oddImag;
+                    real[even] += oddReal;
+                    imag[even] += oddImag;
+                }
+            }
+        }
+    }
+
+    /**
+     * 按对数间隔划分频带，每个频带至少包含一个FFT频点
+     */
+    private void computeBandEdges(int sampleRate) {
+        int bars = bandEdges.length - 1,
+                maxBin = FFT_SIZE / 2;
+        float top = Math.min(MAX_FREQUENCY, sampleRate / 2.0f),
+                ratio = top / MIN_FREQUENCY;
+        for (int bar = 0; bar <= bars; bar++) {
+            float frequency = MIN_FREQUENCY * (float) Math.pow(ratio, (double) bar / bars);
+            int bin = Math.clamp(Math.round(frequency * FFT_SIZE / sampleRate), 1, maxBin);
+            bandEdges[bar] = bar > 0 ? Math.max(bin, bandEdges[bar - 1] + 1) : bin;
+        }
+        for (int bar = bars; bar >= 0; bar--) {
+            // 低频处为保证每个频带至少一个频点而整体后移，超出上限时再向前收回
+            bandEdges[bar] = Math.min(bandEdges[bar], maxBin - (bars - bar));
+        }
+        bandSampleRate = sampleRate;
+    }
+}
@@ -0,0 +1,748 @@
+package com.rain.client.audio;
+
+import com.rain.client.MusicPlayerClientMod;
+import com.rain.common.config.ModConfig;
+import javazoom.jl.decoder.JavaLayerException;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 音频流播放器
+ * <p>
+ * 替代JLayer的AdvancedPlayer，分为两级流水线：
+ * 解码线程读取音频流、逐帧解码并写入预分配的PCM环形缓冲区，
+ * 调用 {@link #play()} 的线程作为输出级，从缓冲区取数据写入 {@link AudioOutput}。
+ * 网络抖动或GC停顿只会消耗缓冲区中的余量，不会直接造成断音。
+ * </p>
+ * <p>
+ * 跳转、换曲和格式变化以段标记的形式插入缓冲区，输出级播放到标记处才生效，
+ * 因此播放位置和“正在播放”的提示与实际听到的声音一致。
+ * 暂停时输出线路停止，解码线程继续填满缓冲区后等待。
+ * </p>
+ * <p>
+ * 播放位置以输出设备实际播放出的帧数为准（音频时钟），不计入设备队列中尚未播放的数据。
+ * 输出线程每次写入后发布一份不可变的时钟快照，渲染线程读取快照后按经过的时间外推，
+ * 外推不超过已写入的帧数，因此欠载时位置会停住而不是继续走。
+ * </p>
+ * <p>
+ * 开启淡入淡出时，当前音轨进入最后若干秒后解码线程同时解码下一首，
+ * 经 {@link AudioMixer} 混合后写入缓冲区；两首的采样率或声道数不同时退化为无缝衔接。
+ * </p>
+ * <p>
+ * 可以挂接一个 {@link PreviewChannel}：输出级在写入设备前把试听叠加到同一块数据上，
+ * 期间平滑地压低歌曲音量，试听结束后再恢复，歌曲本身的解码与播放位置不受影响。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+final class StreamPlayer {
+
+    private static final String DECODER_THREAD_NAME = "MusicPlayer-Decoder";
+
+    /**
+     * 缓冲区容量按48kHz立体声计算
+     */
+    private static final int BUFFER_CAPACITY = 48000 * 2 * ModConfig.PCM_BUFFER_SECONDS;
+
+    /**
+     * 输出级每次写入设备的采样数
+     */
+    private static final int OUTPUT_CHUNK = 4096;
+
+    private static final long NO_SEEK = -1;
+
+    /**
+     * 按字节偏移重新打开音频流
+     */
+    @FunctionalInterface
+    interface SeekSource {
+        InputStream open(long byteOffset) throws IOException;
+    }
+
+    /**
+     * 一首音轨的音频来源
+     *
+     * @param stream         音频流
+     * @param seekSource     跳转时重新打开音频流
+     * @param durationMillis 音轨时长，未知时为0
+     * @param onStart        输出级开始播放这首音轨时调用，可以为null
+     * @param gain           音量均衡的线性增益，不均衡时为1
+     * @param analyzer       首次播放时测量响度的分析器，已有测量值时为null
+     */
+    record Source(InputStream stream, SeekSource seekSource, long durationMillis, Runnable onStart,
+                  float gain, LoudnessAnalyzer analyzer) {
+    }
+
+    /**
+     * 音轨交接回调，在解码线程上调用
+     */
+    interface Handover {
+
+        /**
+         * 当前音轨剩余时间不足预取提前量时调用一次，用于开始预取下一首
+         */
+        void prepare();
+
+        /**
+         * 当前音轨解码完毕或开始淡入淡出时调用
+         *
+         * @return 下一首的音频来源，返回null则没有下一首
+         */
+        Source next();
+
+        /**
+         * 淡入淡出时长（毫秒），0表示关闭
+         */
+        long crossfadeMillis();
+    }
+
+    /**
+     * 缓冲区中的段标记，输出级读到时切换格式与播放位置
+     *
+     * @param sampleRate    采样率
+     * @param channels      声道数
+     * @param basePosition  段起点对应的播放位置（毫秒）
+     * @param discardOutput 是否丢弃输出线路中尚未播放的数据（跳转）
+     * @param onStart       段开始播放时的回调，可以为null
+     */
+    private record Segment(int sampleRate, int channels, long basePosition, boolean discardOutput, Runnable onStart) {
+    }
+
+    /**
+     * 音频时钟快照，帧数均以输出设备的计数为准
+     *
+     * @param basePositionMillis 当前段起点的播放位置
+     * @param startFrame         当前段第一帧的设备帧序号
+     * @param previousBaseMillis 上一段起点的播放位置，设备仍在播放上一段的尾巴时使用
+     * @param previousStartFrame 上一段第一帧的设备帧序号
+     * @param sampleRate         采样率
+     * @param playedFrames       采样时设备已播放的帧数
+     * @param writtenFrames      采样时已写入设备的帧数
+     * @param sampledNanos       采样时刻
+     */
+    private record Clock(long basePositionMillis, long startFrame, long previousBaseMillis, long previousStartFrame,
+                         int sampleRate, long playedFrames, long writtenFrames, long sampledNanos) {
+
+        /**
+         * 按采样后经过的时间外推播放位置（毫秒）
+         */
+        long positionMillis(long nanos, boolean running) {
+            long elapsed = running ? Math.max(0, nanos - sampledNanos) : 0,
+                    frames = Math.min(playedFrames + elapsed * sampleRate / 1_000_000_000L, writtenFrames);
+            if (frames < startFrame) {
+                return previousBaseMillis + Math.max(0, frames - previousStartFrame) * 1000 / sampleRate;
+            }
+            return basePositionMillis + (frames - startFrame) * 1000 / sampleRate;
+        }
+
+        Clock sampled(long played, long written, long nanos) {
+            return new Clock(basePositionMillis, startFrame, previousBaseMillis, previousStartFrame,
+                    sampleRate, played, written, nanos);
+        }
+    }
+
+    private final Handover handover;
+
+    /**
+     * 频谱分析器，在输出线程上分析刚写入设备的数据，可以为null
+     */
+    private final SpectrumAnalyzer spectrum;
+
+    private final AudioMetrics metrics;
+
+    private final PcmRingBuffer<Segment> ringBuffer = new PcmRingBuffer<>(BUFFER_CAPACITY, BUFFER_CAPACITY / 4);
+
+    private final short[] outputChunk = new short[OUTPUT_CHUNK];
+
+    private final AtomicLong pendingSeek = new AtomicLong(NO_SEEK);
+
+    /**
+     * 挂接的试听，试听结束且音量恢复后摘除
+     */
+    private final AtomicReference<PreviewChannel> preview = new AtomicReference<>();
+
+    private final Object pauseLock = new Object();
+
+    // ========== 解码级状态（仅解码线程访问） ==========
+
+    private final AudioMixer mixer = new AudioMixer();
+
+    private volatile TrackDecoder current;
+
+    /**
+     * 淡入中的下一首
+     */
+    private volatile TrackDecoder incoming;
+
+    /**
+     * 已打开但无法混音的下一首，当前音轨结束后直接接上
+     */
+    private volatile TrackDecoder queued;
+
+    /**
+     * 当前音轨的开始回调（只执行一次），跳转清空缓冲区后需要随新段重新携带
+     */
+    private Runnable currentOnStart;
+
+    private Segment pendingSegment;
+
+    private int markedSampleRate;
+
+    private int markedChannels;
+
+    private boolean prepared;
+
+    private boolean crossfadeAttempted;
+
+    private long fadeFrame;
+
+    private long fadeFrames;
+
+    private volatile Throwable decoderFailure;
+
+    // ========== 输出级状态 ==========
+
+    private volatile AudioOutput audioOutput;
+
+    private AudioFormat outputFormat;
+
+    private int outputChannels = 2;
+
+    /**
+     * 已写入当前输出设备的帧数，与设备的已播放帧数使用同一计数起点
+     */
+    private long writtenFrames;
+
+    private volatile Clock clock;
+
+    /**
+     * 试听期间歌曲的增益
+     */
+    private float duckGain = 1.0f;
+
+    private volatile boolean paused;
+
+    private volatile boolean closed;
+
+    StreamPlayer(Source source, Handover handover, SpectrumAnalyzer spectrum, AudioMetrics metrics) {
+        this.handover = handover;
+        this.spectrum = spectrum;
+        this.metrics = metrics;
+        this.current = new TrackDecoder(source, metrics);
+        this.currentOnStart = runOnce(source.onStart());
+        this.pendingSegment = new Segment(0, 0, 0, false, currentOnStart);
+    }
+
+    /**
+     * 启动解码线程，并在当前线程上输出，直到流结束或播放器被关闭
+     *
+     * @return 流正常播放完毕返回true，被关闭返回false
+     */
+    boolean play() throws JavaLayerException {
+        Thread decoderThread = new Thread(this::decodeLoop, DECODER_THREAD_NAME);
+        decoderThread.setDaemon(true);
+        decoderThread.start();
+        try {
+            return outputLoop();
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * 暂停播放，输出线路停止，解码线程继续填充缓冲区
+     */
+    void pause() {
+        if (closed) {
+            return;
+        }
+        paused = true;
+        AudioOutput output = audioOutput;
+        if (!Objects.isNull(output)) {
+            output.pause();
+        }
+        // 冻结在暂停瞬间的外推位置
+        Clock snapshot = clock;
+        if (!Objects.isNull(snapshot)) {
+            long now = System.nanoTime(),
+                    frames = snapshot.playedFrames() + Math.max(0, now - snapshot.sampledNanos()) * snapshot.sampleRate() / 1_000_000_000L;
+            clock = snapshot.sampled(Math.min(frames, snapshot.writtenFrames()), snapshot.writtenFrames(), now);
+        }
+    }
+
+    /**
+     * 从暂停处继续播放
+     */
+    void resume() {
+        synchronized (pauseLock) {
+            if (!paused) {
+                return;
+            }
+            Clock snapshot = clock;
+            if (!Objects.isNull(snapshot)) {
+                clock = snapshot.sampled(snapshot.playedFrames(), snapshot.writtenFrames(), System.nanoTime());
+            }
+            paused = false;
+            AudioOutput output = audioOutput;
+            if (!Objects.isNull(output)) {
+                output.resume();
+            }
+            pauseLock.notifyAll();
+        }
+    }
+
+    /**
+     * 请求跳转到指定位置，由解码线程在下一帧之前执行
+     */
+    void seek(long positionMillis) {
+        if (!closed) {
+            pendingSeek.set(Math.max(0, positionMillis));
+        }
+    }
+
+    /**
+     * 关闭播放器，唤醒阻塞中的解码与输出
+     */
+    void close() {
+        synchronized (pauseLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pauseLock.notifyAll();
+        }
+        ringBuffer.close();
+        AudioOutput output = audioOutput;
+        if (!Objects.isNull(output)) {
+            output.close();
+        }
+        PreviewChannel attached = preview.getAndSet(null);
+        if (!Objects.isNull(attached)) {
+            attached.close();
+        }
+        closeDecoder(current);
+        closeDecoder(incoming);
+        closeDecoder(queued);
+    }
+
+    /**
+     * 挂接试听，与歌曲共用输出线路，取代尚未结束的上一个试听
+     *
+     * @return 播放器已暂停或已关闭时返回false，试听需要单独输出
+     */
+    boolean attachPreview(PreviewChannel channel) {
+        if (closed || paused) {
+            return false;
+        }
+        PreviewChannel previous = preview.getAndSet(channel);
+        if (!Objects.isNull(previous)) {
+            previous.close();
+        }
+        // 挂接期间被关闭时由调用方改为单独输出
+        return !closed || !preview.compareAndSet(channel, null);
+    }
+
+    boolean isPaused() {
+        return paused;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 根据音频时钟计算播放位置（毫秒），不加锁，可在渲染线程上每帧调用
+     */
+    long getPositionMillis() {
+        long seekTarget = pendingSeek.get();
+        if (seekTarget != NO_SEEK) {
+            return seekTarget;
+        }
+        Clock snapshot = clock;
+        return Objects.isNull(snapshot) ? 0 : snapshot.positionMillis(System.nanoTime(), !paused);
+    }
+
+    /**
+     * PCM缓冲区填充比例（0~1）
+     */
+    float getBufferFill() {
+        return ringBuffer.fillLevel();
+    }
+
+    /**
+     * PCM缓冲区欠载次数
+     */
+    long getUnderruns() {
+        return ringBuffer.underruns();
+    }
+
+    // ========== 输出级 ==========
+
+    private boolean outputLoop() throws JavaLayerException {
+        try {
+            while (!closed) {
+                if (!awaitResume()) {
+                    return false;
+                }
+                int count = ringBuffer.read(outputChunk, 0, outputChunk.length);
+                if (count < 0) {
+                    break;
+                }
+                if (count == 0) {
+                    Segment segment = ringBuffer.pollMark();
+                    if (!Objects.isNull(segment)) {
+                        startSegment(segment);
+                    }
+                    continue;
+                }
+                mixPreview(count);
+                writeOutput(count);
+                writtenFrames += count / outputChannels;
+                publishClock();
+                if (!Objects.isNull(spectrum) && spectrum.isWanted()) {
+                    spectrum.process(outputChunk, 0, count, outputChannels, (int) outputFormat.getSampleRate());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (closed) {
+            return false;
+        }
+        Throwable failure = decoderFailure;
+        if (!Objects.isNull(failure)) {
+            throw new JavaLayerException("解码失败", failure);
+        }
+        if (!Objects.isNull(audioOutput)) {
+            audioOutput.drain();
+        }
+        return true;
+    }
+
+    /**
+     * 叠加挂接的试听：试听发声期间把歌曲压低到 {@link ModConfig#PREVIEW_DUCK_GAIN}，结束后以同样的速度恢复
+     */
+    private void mixPreview(int count) {
+        PreviewChannel channel = preview.get();
+        if (Objects.isNull(channel) && duckGain == 1.0f) {
+            return;
+        }
+        int rate = (int) outputFormat.getSampleRate(),
+                frames = count / outputChannels;
+        boolean audible = !Objects.isNull(channel) && channel.isStarted() && !channel.isFinished();
+        float rampFrames = (float) ModConfig.PREVIEW_DUCK_MILLIS * rate / 1000,
+                target = audible ? ModConfig.PREVIEW_DUCK_GAIN : 1.0f,
+                step = (1.0f - ModConfig.PREVIEW_DUCK_GAIN) * frames / rampFrames,
+                gain = target < duckGain ? Math.max(target, duckGain - step) : Math.min(target, duckGain + step);
+        PcmGain.ramp(outputChunk, 0, frames, outputChannels, duckGain, gain);
+        duckGain = gain;
+        if (Objects.isNull(channel)) {
+            return;
+        }
+        if (!channel.mixInto(outputChunk, count, outputChannels, rate) && duckGain == 1.0f) {
+            preview.compareAndSet(channel, null);
+        }
+    }
+
+    /**
+     * 写入输出设备；音频引擎重载导致输出失效时重新打开一次
+     */
+    private void writeOutput(int count) throws JavaLayerException {
+        try {
+            audioOutput.write(outputChunk, 0, count);
+        } catch (JavaLayerException e) {
+            if (closed) {
+                return;
+            }
+            MusicPlayerClientMod.LOGGER.warn("音频输出失效，重新打开", e);
+            audioOutput.close();
+            AudioOutput output = AudioOutput.open(outputFormat);
+            audioOutput = output;
+            if (paused) {
+                output.pause();
+            }
+            rebaseClock(output);
+            output.write(outputChunk, 0, count);
+        }
+    }
+
+    /**
+     * 发布一份新的时钟快照
+     */
+    private void publishClock() {
+        Clock snapshot = clock;
+        if (!Objects.isNull(snapshot)) {
+            clock = snapshot.sampled(audioOutput.playedFrames(), writtenFrames, System.nanoTime());
+        }
+    }
+
+    /**
+     * 输出设备重建后计数从头开始，旧设备中未播放的数据已丢失，以已写入的位置作为新的起点
+     */
+    private void rebaseClock(AudioOutput output) {
+        Clock snapshot = clock;
+        long position = Objects.isNull(snapshot) ? 0
+                : snapshot.sampled(writtenFrames, writtenFrames, 0).positionMillis(0, false);
+        writtenFrames = output.playedFrames();
+        int rate = Objects.isNull(snapshot) ? (int) outputFormat.getSampleRate() : snapshot.sampleRate();
+        clock = new Clock(position, writtenFrames, position, writtenFrames, rate, writtenFrames, writtenFrames, System.nanoTime());
+    }
+
+    /**
+     * 输出级读到段标记：格式变化时重建输出设备，然后重置播放位置
+     * <p>
+     * 重建设备或丢弃未播放数据后，新段立即开始发声；
+     * 否则设备中还有上一段的尾巴，新段从已写入的位置开始计，期间位置仍按上一段推算。
+     * </p>
+     */
+    private void startSegment(Segment segment) throws JavaLayerException {
+        AudioFormat format = new AudioFormat(segment.sampleRate(), 16, segment.channels(), true, false);
+        boolean restarted = true;
+        if (Objects.isNull(audioOutput) || !format.matches(outputFormat)) {
+            if (!Objects.isNull(audioOutput)) {
+                MusicPlayerClientMod.LOGGER.info("音频格式变化 ({} Hz, {} 声道)，重建输出设备",
+                        segment.sampleRate(), segment.channels());
+                audioOutput.drain();
+                audioOutput.close();
+            }
+            AudioOutput output = AudioOutput.open(format);
+            audioOutput = output;
+            outputFormat = format;
+            if (paused) {
+                output.pause();
+            }
+        } else if (segment.discardOutput()) {
+            audioOutput.discard();
+        } else {
+            restarted = false;
+        }
+        outputChannels = segment.channels();
+        long played = audioOutput.playedFrames();
+        Clock previous = clock;
+        if (restarted || Objects.isNull(previous)) {
+            writtenFrames = played;
+            clock = new Clock(segment.basePosition(), played, segment.basePosition(), played,
+                    segment.sampleRate(), played, played, System.nanoTime());
+        } else {
+            clock = new Clock(segment.basePosition(), writtenFrames, previous.basePositionMillis(), previous.startFrame(),
+                    segment.sampleRate(), played, writtenFrames, System.nanoTime());
+        }
+        if (!Objects.isNull(segment.onStart())) {
+            segment.onStart().run();
+        }
+    }
+
+    /**
+     * 暂停时阻塞当前线程
+     *
+     * @return 播放器仍可继续播放返回true
+     */
+    private boolean awaitResume() {
+        if (!paused) {
+            return !closed;
+        }
+        synchronized (pauseLock) {
+            while (paused && !closed) {
+                try {
+                    pauseLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return !closed;
+    }
+
+    // ========== 解码级 ==========
+
+    private void decodeLoop() {
+        try {
+            while (!closed) {
+                long seekTarget = pendingSeek.get();
+                if (seekTarget != NO_SEEK) {
+                    applySeek(seekTarget);
+                    pendingSeek.compareAndSet(seekTarget, NO_SEEK);
+                }
+                if (!Objects.isNull(incoming)) {
+                    mixBlock();
+                    continue;
+                }
+                long duration = current.durationMillis();
+                if (!prepared && duration > 0
+                        && current.positionMillis() >= duration - ModConfig.PREFETCH_LEAD_MILLIS) {
+                    prepared = true;
+                    handover.prepare();
+                }
+                if (startCrossfadeIfDue()) {
+                    continue;
+                }
+                if (!writeFrame() && !switchToNext()) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            if (!closed) {
+                decoderFailure = e;
+            }
+        } finally {
+            ringBuffer.finish();
+        }
+    }
+
+    /**
+     * 将当前音轨的下一帧原样写入缓冲区
+     *
+     * @return 当前音轨已结束返回false
+     */
+    private boolean writeFrame() throws JavaLayerException, InterruptedException {
+        if (!current.ensureFrame()) {
+            return false;
+        }
+        markSegmentIfNeeded(current);
+        ringBuffer.write(current.frameSamples(), current.frameCursor(), current.frameRemaining());
+        current.consumeFrame();
+        return true;
+    }
+
+    /**
+     * 当前音轨进入最后的淡入淡出区间时打开下一首并开始混音
+     *
+     * @return 已开始淡入淡出返回true
+     */
+    private boolean startCrossfadeIfDue() throws JavaLayerException {
+        long crossfade = handover.crossfadeMillis(),
+                duration = current.durationMillis();
+        if (crossfadeAttempted || crossfade <= 0 || duration <= crossfade * 2
+                || current.positionMillis() < duration - crossfade) {
+            return false;
+        }
+        crossfadeAttempted = true;
+        Source next = handover.next();
+        if (Objects.isNull(next)) {
+            return false;
+        }
+        TrackDecoder nextDecoder = new TrackDecoder(next, metrics);
+        if (!nextDecoder.ensureFrame() || nextDecoder.sampleRate() != current.sampleRate()
+                || nextDecoder.channels() != current.channels()) {
+            MusicPlayerClientMod.LOGGER.info("下一首的音频格式不同，跳过淡入淡出");
+            queued = nextDecoder;
+            return false;
+        }
+        incoming = nextDecoder;
+        fadeFrame = 0;
+        fadeFrames = Math.max(1, crossfade * current.sampleRate() / 1000);
+        // 下一首从淡入开始计时
+        currentOnStart = runOnce(next.onStart());
+        pendingSegment = new Segment(0, 0, 0, false, currentOnStart);
+        return true;
+    }
+
+    /**
+     * 混合一块淡出与淡入的采样，淡入完成后由下一首接替
+     */
+    private void mixBlock() throws JavaLayerException, InterruptedException {
+        int frames = mixer.mix(current, incoming, fadeFrame, fadeFrames);
+        if (frames > 0) {
+            markSegmentIfNeeded(incoming);
+            ringBuffer.write(mixer.mixed(), 0, frames * incoming.channels());
+            fadeFrame += frames;
+        }
+        if (frames == 0 || fadeFrame >= fadeFrames) {
+            finishCrossfade();
+        }
+    }
+
+    private void finishCrossfade() {
+        closeDecoder(current);
+        current = incoming;
+        incoming = null;
+        prepared = false;
+        crossfadeAttempted = false;
+    }
+
+    /**
+     * 当前音轨解码完毕后切换到下一首，缓冲区中剩余的数据照常播放
+     *
+     * @return 没有下一首时返回false
+     */
+    private boolean switchToNext() {
+        TrackDecoder next = queued;
+        queued = null;
+        if (Objects.isNull(next)) {
+            Source source = handover.next();
+            if (Objects.isNull(source) || closed) {
+                return false;
+            }
+            next = new TrackDecoder(source, metrics);
+        }
+        closeDecoder(current);
+        current = next;
+        prepared = false;
+        crossfadeAttempted = false;
+        currentOnStart = runOnce(next.onStart());
+        pendingSegment = new Segment(0, 0, 0, false, currentOnStart);
+        return true;
+    }
+
+    /**
+     * 执行跳转，并丢弃缓冲区中尚未播放的数据；淡入淡出过程中跳转时直接由下一首接替
+     */
+    private void applySeek(long positionMillis) throws JavaLayerException {
+        if (!Objects.isNull(incoming)) {
+            finishCrossfade();
+        }
+        long position = current.seek(positionMillis);
+        if (position < 0) {
+            return;
+        }
+        ringBuffer.clear();
+        pendingSegment = new Segment(0, 0, position, true, currentOnStart);
+    }
+
+    /**
+     * 新段开始或格式变化时在缓冲区中插入段标记，段的格式以其第一帧为准
+     */
+    private void markSegmentIfNeeded(TrackDecoder decoder) {
+        int rate = decoder.sampleRate(),
+                channels = decoder.channels();
+        if (Objects.isNull(pendingSegment) && rate == markedSampleRate && channels == markedChannels) {
+            return;
+        }
+        Segment segment = Objects.isNull(pendingSegment)
+                ? new Segment(0, 0, decoder.positionMillis(), false, null) : pendingSegment;
+        ringBuffer.mark(new Segment(rate, channels, segment.basePosition(), segment.discardOutput(), segment.onStart()));
+        pendingSegment = null;
+        markedSampleRate = rate;
+        markedChannels = channels;
+    }
+
+    private static void closeDecoder(TrackDecoder decoder) {
+        if (!Objects.isNull(decoder)) {
+            decoder.close();
+        }
+    }
+
+    private static Runnable runOnce(Runnable action) {
+        if (Objects.isNull(action)) {
+            return null;
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        return () -> {
+            if (done.compareAndSet(false, true)) {
+                action.run();
+            }
+        };
+    }
+}
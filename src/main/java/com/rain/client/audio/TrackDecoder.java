@@ -0,0 +1,244 @@
+package com.rain.client.audio;
+
+import com.rain.client.MusicPlayerClientMod;
+import javazoom.jl.decoder.JavaLayerException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+
+/**
+ * 单条音轨的解码状态
+ * <p>
+ * 持有一条音轨的输入流和解码后端，逐帧解码为交错的16位PCM。
+ * 解码后端在读到第一帧之前按文件头选择（MP3或FLAC）。
+ * 当前帧的采样可以整帧取走，也可以按任意采样数分批读取（淡入淡出混音时使用），
+ * 两种方式共用同一个读取游标。
+ * </p>
+ * <p>
+ * 每帧解码后先交给响度分析器（首次播放时），再原地乘以音量均衡增益，
+ * 因此无论整帧写出还是参与混音，取到的都是均衡后的采样。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+final class TrackDecoder {
+
+    private static final float SHORT_SCALE = 1.0f / 32768.0f;
+
+    private final StreamPlayer.SeekSource seekSource;
+
+    private final long durationMillis;
+
+    private final Runnable onStart;
+
+    private final float gain;
+
+    /**
+     * 响度分析器，跳转后测量不再完整，置为null
+     */
+    private LoudnessAnalyzer analyzer;
+
+    private final InputStream stream;
+
+    private final AudioMetrics metrics;
+
+    /**
+     * 解码后端，读取第一帧时才根据文件头创建
+     */
+    private volatile AudioDecoder decoder;
+
+    private short[] frameSamples;
+
+    private int frameLength;
+
+    private int frameCursor;
+
+    private long baseMillis;
+
+    private long decodedFrames;
+
+    private int sampleRate;
+
+    private int channels;
+
+    private boolean finished;
+
+    TrackDecoder(StreamPlayer.Source source, AudioMetrics metrics) {
+        this.seekSource = source.seekSource();
+        this.durationMillis = source.durationMillis();
+        this.onStart = source.onStart();
+        this.gain = source.gain();
+        this.analyzer = source.analyzer();
+        this.stream = source.stream();
+        this.metrics = metrics;
+    }
+
+    /**
+     * 当前帧已读完时解码下一帧
+     *
+     * @return 音轨已读到末尾返回false
+     */
+    boolean ensureFrame() throws JavaLayerException {
+        while (frameCursor >= frameLength) {
+            if (finished) {
+                return false;
+            }
+            AudioDecoder frameDecoder = decoder();
+            long decodeStart = System.nanoTime();
+            if (!frameDecoder.decodeFrame()) {
+                finished = true;
+                finishAnalysis();
+                return false;
+            }
+            metrics.recordDecode(System.nanoTime() - decodeStart);
+            frameSamples = frameDecoder.samples();
+            frameLength = frameDecoder.sampleCount();
+            frameCursor = 0;
+            int frameRate = frameDecoder.sampleRate();
+            if (frameRate != sampleRate) {
+                baseMillis = positionMillis();
+                decodedFrames = 0;
+                sampleRate = frameRate;
+            }
+            channels = frameDecoder.channels();
+            decodedFrames += frameDecoder.frameLength();
+            if (!Objects.isNull(analyzer)) {
+                analyzer.process(frameSamples, frameLength, channels, sampleRate);
+            }
+            PcmGain.apply(frameSamples, 0, frameLength, gain);
+        }
+        return true;
+    }
+
+    /**
+     * 当前帧中尚未读取的采样
+     */
+    short[] frameSamples() {
+        return frameSamples;
+    }
+
+    int frameCursor() {
+        return frameCursor;
+    }
+
+    int frameRemaining() {
+        return frameLength - frameCursor;
+    }
+
+    /**
+     * 标记当前帧已全部读取
+     */
+    void consumeFrame() {
+        frameCursor = frameLength;
+    }
+
+    /**
+     * 读取若干采样帧并转换为浮点（-1~1），不足时继续解码
+     *
+     * @param dst    目标数组，交错存放
+     * @param frames 期望读取的采样帧数
+     * @return 实际读取的采样帧数，音轨结束时可能少于期望值
+     */
+    int readFloat(float[] dst, int frames) throws JavaLayerException {
+        int wanted = frames * channels,
+                filled = 0;
+        while (filled < wanted && ensureFrame()) {
+            int count = Math.min(wanted - filled, frameRemaining());
+            for (int i = 0; i < count; i++) {
+                dst[filled + i] = frameSamples[frameCursor + i] * SHORT_SCALE;
+            }
+            frameCursor += count;
+            filled += count;
+        }
+        return channels > 0 ? filled / channels : 0;
+    }
+
+    /**
+     * 跳转到指定位置：定位字节偏移，重新打开输入流
+     *
+     * @return 实际跳转到的位置（毫秒），无法跳转时返回-1
+     */
+    long seek(long positionMillis) throws JavaLayerException {
+        AudioDecoder current = decoder;
+        AudioDecoder.SeekPoint point = Objects.isNull(current) ? null : current.locate(positionMillis);
+        if (Objects.isNull(point)) {
+            MusicPlayerClientMod.LOGGER.warn("尚未解析到音频帧，无法跳转");
+            return -1;
+        }
+        InputStream seekStream;
+        try {
+            seekStream = seekSource.open(point.byteOffset());
+        } catch (IOException e) {
+            MusicPlayerClientMod.LOGGER.error("跳转时打开音频流失败", e);
+            return -1;
+        }
+        if (!Objects.isNull(analyzer)) {
+            MusicPlayerClientMod.LOGGER.debug("播放中跳转，放弃本次响度测量");
+            analyzer = null;
+        }
+        long actualMillis = current.restart(seekStream, point);
+        frameLength = 0;
+        frameCursor = 0;
+        finished = false;
+        baseMillis = actualMillis;
+        decodedFrames = 0;
+        MusicPlayerClientMod.LOGGER.info("已跳转到 {} ms (字节偏移 {})", actualMillis, point.byteOffset());
+        return actualMillis;
+    }
+
+    /**
+     * 已解码到的位置（毫秒），领先于实际播放位置
+     */
+    long positionMillis() {
+        return baseMillis + (sampleRate > 0 ? decodedFrames * 1000 / sampleRate : 0);
+    }
+
+    long durationMillis() {
+        return durationMillis;
+    }
+
+    Runnable onStart() {
+        return onStart;
+    }
+
+    int sampleRate() {
+        return sampleRate;
+    }
+
+    int channels() {
+        return channels;
+    }
+
+    void close() {
+        AudioDecoder current = decoder;
+        if (!Objects.isNull(current)) {
+            current.close();
+        }
+    }
+
+    /**
+     * 取得解码后端，第一次调用时预读文件头选择格式
+     */
+    private AudioDecoder decoder() throws JavaLayerException {
+        AudioDecoder current = decoder;
+        if (Objects.isNull(current)) {
+            try {
+                current = AudioDecoder.open(stream);
+            } catch (IOException e) {
+                throw new JavaLayerException("无法识别音频格式", e);
+            }
+            decoder = current;
+        }
+        return current;
+    }
+
+    private void finishAnalysis() {
+        if (!Objects.isNull(analyzer)) {
+            analyzer.finish();
+            analyzer = null;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.rain.client.audio;
+
+import com.rain.client.MusicPlayerClientMod;
+import com.rain.client.model.MusicTrack;
+import com.rain.common.config.ModConfig;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 下一首音轨预取器
+ * <p>
+ * 当前音轨临近结束时提前建立下一首的连接并缓冲开头的数据，
+ * 交接时直接拿到已就绪的输入流，省去连接与首包等待的时间。
+ * 预取的数据与剩余的网络流拼接为同一个输入流，不会重复下载。
+ * 打开时确定的定位信息（音质与地址）随流一起交出，交接后的跳转据此重新打开同一个文件。
+ * </p>
+ *
+ * @param <L> 定位信息类型
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+final class TrackPrefetcher<L> {
+
+    private static final String THREAD_NAME = "MusicPlayer-Prefetch";
+
+    /**
+     * 打开的音频流及其定位信息
+     */
+    record Opened<L>(InputStream stream, L location) {
+    }
+
+    /**
+     * 打开音轨的音频流
+     */
+    @FunctionalInterface
+    interface StreamOpener<L> {
+        Opened<L> open(MusicTrack track) throws IOException;
+    }
+
+    private final StreamOpener<L> opener;
+
+    private final ExecutorService prefetchThread;
+
+    private MusicTrack pendingTrack;
+
+    private CompletableFuture<Opened<L>> pendingStream;
+
+    TrackPrefetcher(StreamOpener<L> opener) {
+        this.opener = opener;
+        this.prefetchThread = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 开始预取指定音轨，已在预取同一首时忽略
+     * <p>
+     * 播放地址在打开时才解析（也可能直接命中本地缓存），能否打开由打开方决定，这里不检查音轨上的地址。
+     * </p>
+     */
+    synchronized void prefetch(MusicTrack track) {
+        if (Objects.isNull(track)) {
+            return;
+        }
+        if (!Objects.isNull(pendingTrack) && sameTrack(pendingTrack, track)) {
+            return;
+        }
+        cancel();
+        pendingTrack = track;
+        pendingStream = CompletableFuture.supplyAsync(() -> buffer(track), prefetchThread);
+        MusicPlayerClientMod.LOGGER.info("开始预取下一首: {}", track.getTitle());
+    }
+
+    /**
+     * 当前正在预取（或已预取完成）的音轨
+     *
+     * @return 没有预取时返回null
+     */
+    synchronized MusicTrack pendingTrack() {
+        return pendingTrack;
+    }
+
+    /**
+     * 取走预取的输入流及其定位信息，尚未缓冲完成时等待其完成
+     *
+     * @return 预取失败或没有预取时返回null
+     */
+    Opened<L> take(MusicTrack track) {
+        CompletableFuture<Opened<L>> future;
+        synchronized (this) {
+            if (Objects.isNull(pendingTrack) || !sameTrack(pendingTrack, track)) {
+                return null;
+            }
+            future = pendingStream;
+            pendingTrack = null;
+            pendingStream = null;
+        }
+        try {
+            return future.join();
+        } catch (Exception e) {
+            MusicPlayerClientMod.LOGGER.warn("预取音轨失败: {}", track.getTitle(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 放弃当前的预取并关闭已打开的连接
+     */
+    synchronized void cancel() {
+        if (Objects.isNull(pendingStream)) {
+            return;
+        }
+        pendingStream.thenAccept(opened -> closeQuietly(opened.stream()));
+        pendingTrack = null;
+        pendingStream = null;
+    }
+
+    void shutdown() {
+        cancel();
+        prefetchThread.shutdownNow();
+    }
+
+    /**
+     * 打开连接并读取开头的数据，返回“已缓冲数据 + 剩余网络流”
+     */
+    private Opened<L> buffer(MusicTrack track) {
+        InputStream source = null;
+        try {
+            Opened<L> opened = opener.open(track);
+            source = opened.stream();
+            byte[] head = source.readNBytes(ModConfig.PREFETCH_BUFFER_BYTES);
+            MusicPlayerClientMod.LOGGER.info("下一首已预取 {} KB: {}", head.length / 1024, track.getTitle());
+            return new Opened<>(new SequenceInputStream(new ByteArrayInputStream(head), source), opened.location());
+        } catch (IOException e) {
+            closeQuietly(source);
+            throw new IllegalStateException("预取音轨失败: " + track.getTitle(), e);
+        }
+    }
+
+    static boolean sameTrack(MusicTrack a, MusicTrack b) {
+        return Objects.equals(a.getId(), b.getId());
+    }
+
+    private static void closeQuietly(InputStream stream) {
+        if (Objects.isNull(stream)) {
+            return;
+        }
+        try {
+            stream.close();
+        } catch (IOException ignored) {
+            // 预取的连接已不再需要
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.rain.client.audio;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * PCM增益的矢量实现
+ * <p>
+ * 每次载入与首选浮点矢量等宽（按车道数计）的一组16位采样，扩展为浮点后相乘、截断，
+ * 再收窄写回原数组；剩余不足一组的采样交给标量实现。
+ * 只能经由 {@link PcmGain} 在确认模块存在后调用。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+final class VectorPcmGain {
+
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+
+    private static final VectorSpecies<Short> SHORTS =
+            VectorSpecies.of(short.class, VectorShape.forBitSize(FLOATS.length() * Short.SIZE));
+
+    private VectorPcmGain() {
+    }
+
+    static void apply(short[] samples, int offset, int length, float gain) {
+        int lanes = SHORTS.length(),
+                end = offset + length,
+                index = offset;
+        for (; index <= end - lanes; index += lanes) {
+            FloatVector scaled = ((FloatVector) ShortVector.fromArray(SHORTS, samples, index)
+                    .convertShape(VectorOperators.S2F, FLOATS, 0))
+                    .mul(gain)
+                    .max(-32768.0f)
+                    .min(32767.0f);
+            ((ShortVector) scaled.convertShape(VectorOperators.F2S, SHORTS, 0)).intoArray(samples, index);
+        }
+        PcmGain.applyScalar(samples, index, end - index, gain);
+    }
+}
@@ -3,13 +3,19 @@ package com.rain.client.command;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import com.mojang.brigadier.context.CommandContext;
 import com.rain.client.MusicPlayerClientMod;
 import com.rain.client.audio.AudioManager;
+import com.rain.client.audio.AudioMetrics;
+import com.rain.client.audio.PlaybackState;
 import com.rain.client.manager.MusicManager;
 import com.rain.client.manager.PlaybackMode;
+import com.rain.client.manager.SettingsManager;
 import com.rain.client.model.MusicTrack;
 import com.rain.client.network.MusicAPIClient;
+import com.rain.common.config.ModConfig;
+import com.rain.common.enums.AudioQualityEnum;
 import com.rain.common.util.CollUtil;
 import com.rain.common.util.TimeUtils;
 import net.fabricmc.fabric.api.client.command.v2.FabricClientCommandSource;
@@ -61,6 +67,9 @@ public final class MusicCommands {
                         .executes(MusicCommands::pauseMusic))
                 .then(literal("resume")
                         .executes(MusicCommands::resumeMusic))
+                .then(literal("seek")
+                        .then(argument("seconds", IntegerArgumentType.integer(0))
+                                .executes(MusicCommands::seekMusic)))
                 .then(literal("nowplaying")
                         .executes(MusicCommands::nowPlaying))
                 .then(literal("list")
@@ -84,6 +93,22 @@ public final class MusicCommands {
                         .executes(MusicCommands::playPrevious))
                 .then(literal("mode")
                         .executes(MusicCommands::cyclePlaybackMode))
+                .then(literal("crossfade")
+                        .then(argument("seconds", IntegerArgumentType.integer(0, ModConfig.MAX_CROSSFADE_SECONDS))
+                                .executes(MusicCommands::setCrossfade)))
+                .then(literal("normalize")
+                        .executes(MusicCommands::toggleNormalization))
+                .then(literal("spectrum")
+                        .executes(MusicCommands::toggleSpectrum))
+                .then(literal("offline")
+                        .executes(MusicCommands::toggleOffline))
+                .then(literal("stats")
+                        .executes(MusicCommands::showStats)
+                        .then(literal("reset")
+                                .executes(MusicCommands::resetStats))
+                        .then(literal("overlay")
+                                .executes(MusicCommands::toggleStatsOverlay)))
+                .then(qualityCommand())
                 .then(literal("share")
                         .then(literal("accept")
                                 .then(argument("shareId", StringArgumentType.string())
@@ -210,6 +235,147 @@ public final class MusicCommands {
         return 1;
     }
 
+    private static int seekMusic(CommandContext<FabricClientCommandSource> context) {
+        FabricClientCommandSource source = context.getSource();
+        AudioManager audioManager = MusicPlayerClientMod.getInstance().getAudioManager();
+        if (!audioManager.isPlaying() && !audioManager.isPaused()) {
+            sendError(source, "当前没有正在播放的音乐");
+            return 0;
+        }
+        long position = IntegerArgumentType.getInteger(context, "seconds") * 1000L;
+        audioManager.seek(position);
+        sendFeedback(source, COMMAND_SUCCESS_COLOR + "已跳转到 " + COMMAND_HIGHLIGHT_COLOR + TimeUtils.formatTime(position));
+        return 1;
+    }
+
+    private static int setCrossfade(CommandContext<FabricClientCommandSource> context) {
+        int seconds = IntegerArgumentType.getInteger(context, "seconds");
+        SettingsManager.getInstance().setCrossfadeSeconds(seconds);
+        sendFeedback(context.getSource(), seconds > 0
+                ? COMMAND_SUCCESS_COLOR + "淡入淡出: " + COMMAND_HIGHLIGHT_COLOR + seconds + " 秒"
+                : COMMAND_SUCCESS_COLOR + "淡入淡出已关闭");
+        return 1;
+    }
+
+    /**
+     * 构建音质命令：不带参数时显示当前音质，可选自适应或不超过自适应上限的固定等级
+     */
+    private static LiteralArgumentBuilder<FabricClientCommandSource> qualityCommand() {
+        LiteralArgumentBuilder<FabricClientCommandSource> command = literal("quality")
+                .executes(MusicCommands::showQuality)
+                .then(literal(SettingsManager.AUTO_QUALITY)
+                        .executes(context -> setQuality(context, SettingsManager.AUTO_QUALITY)));
+        AudioQualityEnum ceiling = AudioQualityEnum.fromLevel(ModConfig.ADAPTIVE_QUALITY_CEILING);
+        for (AudioQualityEnum quality : AudioQualityEnum.values()) {
+            if (Objects.isNull(ceiling) || quality.compareTo(ceiling) <= 0) {
+                command.then(literal(quality.getLevel())
+                        .executes(context -> setQuality(context, quality.getLevel())));
+            }
+        }
+        return command;
+    }
+
+    private static int setQuality(CommandContext<FabricClientCommandSource> context, String quality) {
+        SettingsManager.getInstance().setAudioQuality(quality);
+        sendFeedback(context.getSource(), COMMAND_SUCCESS_COLOR + "音质: " + COMMAND_HIGHLIGHT_COLOR + describeQuality(quality)
+                + COMMAND_MUTED_COLOR + " (从下一首开始生效)");
+        return 1;
+    }
+
+    private static int showQuality(CommandContext<FabricClientCommandSource> context) {
+        AudioManager audioManager = MusicPlayerClientMod.getInstance().getAudioManager();
+        String setting = SettingsManager.getInstance().getAudioQuality(),
+                current = audioManager.getCurrentQuality();
+        sendFeedback(context.getSource(), COMMAND_HIGHLIGHT_COLOR + "音质设置: " + COMMAND_INFO_COLOR + describeQuality(setting));
+        if (!Objects.isNull(current)) {
+            sendFeedback(context.getSource(), COMMAND_HIGHLIGHT_COLOR + "当前音轨: " + COMMAND_INFO_COLOR + describeQuality(current));
+        }
+        long throughput = audioManager.getThroughputKbps();
+        if (throughput > 0) {
+            sendFeedback(context.getSource(), COMMAND_HIGHLIGHT_COLOR + "网络吞吐: " + COMMAND_INFO_COLOR + throughput + " kbps");
+        }
+        return 1;
+    }
+
+    private static String describeQuality(String level) {
+        if (SettingsManager.AUTO_QUALITY.equals(level)) {
+            return "自适应";
+        }
+        AudioQualityEnum quality = AudioQualityEnum.fromLevel(level);
+        return Objects.isNull(quality) ? level : quality.getDescription() + " (" + quality.getBitrateKbps() + "kbps)";
+    }
+
+    private static int toggleNormalization(CommandContext<FabricClientCommandSource> context) {
+        SettingsManager settings = SettingsManager.getInstance();
+        boolean enabled = !settings.isLoudnessNormalization();
+        settings.setLoudnessNormalization(enabled);
+        sendFeedback(context.getSource(), COMMAND_SUCCESS_COLOR + "音量均衡" + (enabled ? "已开启" : "已关闭")
+                + COMMAND_HIGHLIGHT_COLOR + " (从下一首开始生效)");
+        return 1;
+    }
+
+    private static int toggleSpectrum(CommandContext<FabricClientCommandSource> context) {
+        SettingsManager settings = SettingsManager.getInstance();
+        boolean enabled = !settings.isSpectrumVisualizer();
+        settings.setSpectrumVisualizer(enabled);
+        sendFeedback(context.getSource(), COMMAND_SUCCESS_COLOR + "HUD频谱" + (enabled ? "已开启" : "已关闭"));
+        return 1;
+    }
+
+    /**
+     * 开启或关闭离线模式
+     */
+    private static int toggleOffline(CommandContext<FabricClientCommandSource> context) {
+        MusicManager musicManager = MusicPlayerClientMod.getInstance().getMusicManager();
+        boolean enabled = !SettingsManager.getInstance().isOfflineMode();
+        musicManager.setOfflineMode(enabled);
+        if (!enabled) {
+            sendFeedback(context.getSource(), COMMAND_SUCCESS_COLOR + "离线模式已关闭");
+            return 1;
+        }
+        AudioManager audioManager = MusicPlayerClientMod.getInstance().getAudioManager();
+        long cached = musicManager.getPlaylist().stream().filter(audioManager::isCachedLocally).count();
+        sendFeedback(context.getSource(), COMMAND_SUCCESS_COLOR + "离线模式已开启，播放列表中已缓存 "
+                + cached + "/" + musicManager.getPlaylistSize() + " 首，未缓存的歌曲将被跳过");
+        return 1;
+    }
+
+    /**
+     * 显示音频链路指标
+     */
+    private static int showStats(CommandContext<FabricClientCommandSource> context) {
+        FabricClientCommandSource source = context.getSource();
+        AudioManager audioManager = MusicPlayerClientMod.getInstance().getAudioManager();
+        AudioMetrics metrics = audioManager.getMetrics();
+        sendFeedback(source, COMMAND_SUCCESS_COLOR + "§l=== 音频链路指标 ===");
+        sendFeedback(source, COMMAND_HIGHLIGHT_COLOR + "首字节: " + COMMAND_INFO_COLOR + metrics.timeToFirstByte().summary());
+        sendFeedback(source, COMMAND_HIGHLIGHT_COLOR + "首帧: " + COMMAND_INFO_COLOR + metrics.timeToFirstAudio().summary());
+        sendFeedback(source, COMMAND_HIGHLIGHT_COLOR + "每帧解码: " + COMMAND_INFO_COLOR + metrics.decodeTime().summary());
+        sendFeedback(source, COMMAND_HIGHLIGHT_COLOR + "断流停滞: " + COMMAND_INFO_COLOR + metrics.stallTime().summary()
+                + COMMAND_MUTED_COLOR + " 重连 " + metrics.reconnects() + " 次");
+        sendFeedback(source, COMMAND_HIGHLIGHT_COLOR + "欠载: " + COMMAND_INFO_COLOR + audioManager.getTotalUnderrunCount() + " 次");
+        sendFeedback(source, COMMAND_HIGHLIGHT_COLOR + "下载: " + COMMAND_INFO_COLOR
+                + String.format("%.1f MB", metrics.bytesDownloaded() / (1024.0 * 1024.0)));
+        sendFeedback(source, COMMAND_HIGHLIGHT_COLOR + "缓存命中率: " + COMMAND_INFO_COLOR
+                + Math.round(metrics.cacheHitRate() * 100) + "%" + COMMAND_MUTED_COLOR + " (缓存 " + metrics.cacheHits()
+                + " / 开头片段 " + metrics.headSegmentHits() + " / 网络 " + metrics.networkOpens() + ")");
+        return 1;
+    }
+
+    private static int resetStats(CommandContext<FabricClientCommandSource> context) {
+        MusicPlayerClientMod.getInstance().getAudioManager().getMetrics().reset();
+        sendFeedback(context.getSource(), COMMAND_SUCCESS_COLOR + "音频链路指标已清空");
+        return 1;
+    }
+
+    private static int toggleStatsOverlay(CommandContext<FabricClientCommandSource> context) {
+        SettingsManager settings = SettingsManager.getInstance();
+        boolean enabled = !settings.isStatsOverlay();
+        settings.setStatsOverlay(enabled);
+        sendFeedback(context.getSource(), COMMAND_SUCCESS_COLOR + "指标调试面板" + (enabled ? "已开启" : "已关闭"));
+        return 1;
+    }
+
     /**
      * 显示当前播放信息
      */
@@ -224,7 +390,8 @@ public final class MusicCommands {
         }
         long position = audioManager.getPosition(),
                 duration = audioManager.getDuration();
-        String status = audioManager.isPlaying() ? COMMAND_SUCCESS_COLOR + "播放中" : COMMAND_INFO_COLOR + "已暂停";
+        PlaybackState state = audioManager.getState();
+        String status = (state.isPlaying() ? COMMAND_SUCCESS_COLOR : COMMAND_INFO_COLOR) + state.getDisplayName();
         PlaybackMode mode = musicManager.getPlaybackMode();
         sendFeedback(source, COMMAND_SUCCESS_COLOR + "§l=== 当前播放 ===");
         sendFeedback(source, COMMAND_HIGHLIGHT_COLOR + "标题: " + COMMAND_INFO_COLOR + currentTrack.getTitle());
@@ -234,6 +401,19 @@ public final class MusicCommands {
         sendFeedback(source, COMMAND_HIGHLIGHT_COLOR + "进度: " + COMMAND_INFO_COLOR +
                 TimeUtils.formatTime(position) + " " + COMMAND_MUTED_COLOR + "/ " + COMMAND_INFO_COLOR + TimeUtils.formatTime(duration));
         sendFeedback(source, COMMAND_HIGHLIGHT_COLOR + "模式: " + COMMAND_INFO_COLOR + mode.getDisplayName());
+        sendFeedback(source, COMMAND_HIGHLIGHT_COLOR + "缓冲: " + COMMAND_INFO_COLOR + Math.round(audioManager.getBufferFill() * 100) + "%"
+                + COMMAND_MUTED_COLOR + " (卡顿 " + audioManager.getUnderrunCount() + " 次)");
+        long reconnects = audioManager.getReconnectCount();
+        if (reconnects > 0) {
+            sendFeedback(source, COMMAND_HIGHLIGHT_COLOR + "断流: " + COMMAND_INFO_COLOR + "重连 " + reconnects + " 次"
+                    + COMMAND_MUTED_COLOR + " (累计停滞 " + audioManager.getStallMillis() + " ms, 最长 "
+                    + audioManager.getLongestStallMillis() + " ms)");
+        }
+        String quality = audioManager.getCurrentQuality();
+        if (!Objects.isNull(quality)) {
+            sendFeedback(source, COMMAND_HIGHLIGHT_COLOR + "音质: " + COMMAND_INFO_COLOR + describeQuality(quality)
+                    + (SettingsManager.getInstance().isAdaptiveQuality() ? COMMAND_MUTED_COLOR + " (自适应)" : ""));
+        }
         return 1;
     }
 
@@ -307,12 +487,14 @@ public final class MusicCommands {
         }
         List<MusicTrack> playlist = musicManager.getPlaylist();
         int currentIndex = musicManager.getCurrentIndex();
+        AudioManager audioManager = MusicPlayerClientMod.getInstance().getAudioManager();
         source.sendFeedback(Text.literal("§a§l=== 播放列表 (" + playlist.size() + " 首歌曲) ==="));
         for (int i = 0; i < playlist.size(); i++) {
             MusicTrack track = playlist.get(i);
             String prefix = (i == currentIndex) ? "§e▶ " : "§7" + (i + 1) + ". ";
-            Text trackText = Text.literal(prefix + "§f" + track.getTitle())
-                    .append(Text.literal(" §7by §f" + track.getArtist()));
+            Text trackText = Text.literal(prefix + (musicManager.isPlayable(track) ? "§f" : "§8") + track.getTitle())
+                    .append(Text.literal(" §7by §f" + track.getArtist()))
+                    .append(Text.literal(audioManager.isCachedLocally(track) ? " §a✔" : ""));
             source.sendFeedback(trackText);
         }
         return 1;
@@ -371,9 +553,16 @@ public final class MusicCommands {
         source.sendFeedback(Text.literal("§e/music stop §7- 停止播放"));
         source.sendFeedback(Text.literal("§e/music pause §7- 暂停播放"));
         source.sendFeedback(Text.literal("§e/music resume §7- 恢复播放"));
+        source.sendFeedback(Text.literal("§e/music seek <秒> §7- 跳转到指定位置"));
         source.sendFeedback(Text.literal("§e/music next §7- 播放下一首"));
         source.sendFeedback(Text.literal("§e/music previous §7- 播放上一首"));
         source.sendFeedback(Text.literal("§e/music mode §7- 切换播放模式"));
+        source.sendFeedback(Text.literal("§e/music crossfade <秒> §7- 设置切歌淡入淡出时长 (0关闭)"));
+        source.sendFeedback(Text.literal("§e/music normalize §7- 开启/关闭音量均衡"));
+        source.sendFeedback(Text.literal("§e/music spectrum §7- 开启/关闭HUD频谱"));
+        source.sendFeedback(Text.literal("§e/music offline §7- 开启/关闭离线模式（只播放已缓存的歌曲）"));
+        source.sendFeedback(Text.literal("§e/music stats [reset|overlay] §7- 查看/清空音频链路指标，开关调试面板"));
+        source.sendFeedback(Text.literal("§e/music quality [auto|standard|higher|exhigh|lossless] §7- 查看或设置音质"));
         source.sendFeedback(Text.literal("§e/music nowplaying §7- 显示当前播放信息"));
         source.sendFeedback(Text.literal("§e/music list §7- 显示缓存的搜索结果"));
         source.sendFeedback(Text.literal(""));
@@ -1,8 +1,10 @@
 package com.rain.client.gui;
 
 import com.rain.client.audio.AudioManager;
+import com.rain.client.audio.AudioMetrics;
 import com.rain.client.gui.constants.UIConstants;
 import com.rain.client.manager.LyricManager;
+import com.rain.client.manager.SettingsManager;
 import com.rain.client.model.Lyric;
 import com.rain.client.model.MusicTrack;
 import com.rain.common.util.TimeUtils;
@@ -15,7 +17,10 @@ import java.util.Objects;
 /**
  * 音乐HUD渲染器
  * <p>
- * 在游戏界面物品栏上方渲染歌词、播放时间和进度条
+ * 在游戏界面物品栏上方渲染歌词、播放时间和进度条，
+ * 打开聊天栏释放鼠标后可点击进度条跳转。
+ * 开启频谱时在歌词上方绘制频谱柱，数据由音频输出线程计算，这里只读取；
+ * 开启调试面板时在左上角显示音频链路指标
  * </p>
  *
  * @author 落雨川
@@ -30,12 +35,20 @@ public class MusicHudRenderer {
     private static final int PROGRESS_BAR_HEIGHT = 3;
     private static final int PROGRESS_BAR_Y_OFFSET = 25;
     private static final int TIME_TEXT_Y_OFFSET = 30;
+    private static final int PROGRESS_BAR_HIT_PADDING = 2;
+    private static final int SPECTRUM_HEIGHT = 16;
+    private static final int SPECTRUM_GAP = 4;
+    private static final int STATS_MARGIN = 4;
+    private static final int STATS_LINE_HEIGHT = 10;
 
     private static final int COLOR_LYRIC_PRIMARY = 0xFFFFFFFF;
     private static final int COLOR_LYRIC_TRANSLATION = 0xFFAAAAAA;
     private static final int COLOR_PROGRESS_BACKGROUND = 0x80000000;
     private static final int COLOR_PROGRESS_BAR = 0xFF00FF00;
     private static final int COLOR_PROGRESS_HOVER = 0xFF00FFFF;
+    private static final int COLOR_SPECTRUM = 0xA000FF00;
+    private static final int COLOR_STATS_BACKGROUND = 0x80000000;
+    private static final int COLOR_STATS_TEXT = 0xFFE0E0E0;
 
     private final AudioManager audioManager;
     private final LyricManager lyricManager;
@@ -56,16 +69,20 @@ public class MusicHudRenderer {
      * @param tickDelta 帧间隔
      */
     public void render(DrawContext context, float tickDelta) {
+        MinecraftClient client = MinecraftClient.getInstance();
         MusicTrack currentTrack = audioManager.getCurrentTrack();
         if (Objects.isNull(currentTrack)) {
             return;
         }
-        MinecraftClient client = MinecraftClient.getInstance();
         int screenWidth = client.getWindow().getScaledWidth(),
                 screenHeight = client.getWindow().getScaledHeight(),
                 // 计算HUD基础Y坐标（物品栏上方）
                 hotbarY = screenHeight - 22,
                 hudBaseY = hotbarY - HUD_OFFSET_FROM_HOTBAR;
+        // 渲染频谱
+        if (SettingsManager.getInstance().isSpectrumVisualizer() && audioManager.isPlaying()) {
+            renderSpectrum(context, screenWidth, hudBaseY);
+        }
         // 渲染歌词
         renderLyrics(context, client.textRenderer, screenWidth, hudBaseY);
         // 渲染进度条
@@ -74,6 +91,41 @@ public class MusicHudRenderer {
         renderPlaybackTime(context, client.textRenderer, screenWidth, hudBaseY);
     }
 
+    /**
+     * 更新鼠标悬停状态（仅在聊天界面中鼠标可见时调用）
+     */
+    public void updateHover(double mouseX, double mouseY) {
+        isHoveringProgressBar = isOverProgressBar(mouseX, mouseY);
+    }
+
+    /**
+     * 清除悬停状态
+     */
+    public void clearHover() {
+        isHoveringProgressBar = false;
+    }
+
+    /**
+     * 处理进度条点击，按点击位置跳转
+     *
+     * @return 点击落在进度条上返回true
+     */
+    public boolean handleClick(double mouseX, double mouseY) {
+        long duration = audioManager.getDuration();
+        if (Objects.isNull(audioManager.getCurrentTrack()) || duration <= 0 || !isOverProgressBar(mouseX, mouseY)) {
+            return false;
+        }
+        double ratio = Math.clamp((mouseX - progressBarX) / PROGRESS_BAR_WIDTH, 0.0, 1.0);
+        audioManager.seek((long) (duration * ratio));
+        return true;
+    }
+
+    private boolean isOverProgressBar(double mouseX, double mouseY) {
+        return mouseX >= progressBarX && mouseX <= progressBarX + PROGRESS_BAR_WIDTH
+                && mouseY >= progressBarY - PROGRESS_BAR_HIT_PADDING
+                && mouseY <= progressBarY + PROGRESS_BAR_HEIGHT + PROGRESS_BAR_HIT_PADDING;
+    }
+
     /**
      * 渲染歌词
      */
@@ -120,6 +172,54 @@ public class MusicHudRenderer {
         }
     }
 
+    /**
+     * 渲染指标调试面板，与是否正在播放无关，缓冲与暂停期间同样显示
+     *
+     * @param context 绘制上下文
+     */
+    public void renderStatsOverlay(DrawContext context) {
+        TextRenderer textRenderer = MinecraftClient.getInstance().textRenderer;
+        AudioMetrics metrics = audioManager.getMetrics();
+        String[] lines = {
+                "状态 " + audioManager.getState().getDisplayName() + "  缓冲 "
+                        + Math.round(audioManager.getBufferFill() * 100) + "%  欠载 " + audioManager.getTotalUnderrunCount(),
+                "首字节 " + metrics.timeToFirstByte().summary(),
+                "首帧 " + metrics.timeToFirstAudio().summary(),
+                "解码 " + metrics.decodeTime().summary(),
+                "停滞 " + metrics.stallTime().summary() + "  重连 " + metrics.reconnects(),
+                "下载 " + metrics.bytesDownloaded() / 1024 + " KB  吞吐 " + audioManager.getThroughputKbps()
+                        + " kbps  缓存命中 " + Math.round(metrics.cacheHitRate() * 100) + "%"
+        };
+        int width = 0;
+        for (String line : lines) {
+            width = Math.max(width, textRenderer.getWidth(line));
+        }
+        context.fill(STATS_MARGIN - 2, STATS_MARGIN - 2, STATS_MARGIN + width + 2,
+                STATS_MARGIN + lines.length * STATS_LINE_HEIGHT, COLOR_STATS_BACKGROUND);
+        for (int i = 0; i < lines.length; i++) {
+            context.drawTextWithShadow(textRenderer, lines[i], STATS_MARGIN, STATS_MARGIN + i * STATS_LINE_HEIGHT,
+                    COLOR_STATS_TEXT);
+        }
+    }
+
+    /**
+     * 渲染频谱柱，与进度条同宽，底边位于歌词上方
+     */
+    private void renderSpectrum(DrawContext context, int screenWidth, int baseY) {
+        float[] bars = audioManager.getSpectrum().bars();
+        int stride = PROGRESS_BAR_WIDTH / bars.length,
+                startX = (screenWidth - stride * bars.length) / 2,
+                bottom = baseY - SPECTRUM_GAP;
+        for (int i = 0; i < bars.length; i++) {
+            int height = Math.round(bars[i] * SPECTRUM_HEIGHT);
+            if (height <= 0) {
+                continue;
+            }
+            int x = startX + i * stride;
+            context.fill(x, bottom - height, x + stride - 1, bottom, COLOR_SPECTRUM);
+        }
+    }
+
     /**
      * 渲染进度条
      */
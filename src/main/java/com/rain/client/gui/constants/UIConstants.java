@@ -61,4 +61,6 @@ public final class UIConstants {
     public static final String ICON_PLAYING = "▶";
     
     public static final String ICON_DELETE = "✕";
+
+    public static final String ICON_CACHED = "✔";
 }
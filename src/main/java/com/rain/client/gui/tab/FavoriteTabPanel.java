@@ -134,12 +134,22 @@ public class FavoriteTabPanel implements TabPanel {
         
         // 绘制歌曲信息
         String displayText = "♥ " + track.getTitle() + " - " + track.getArtist();
+        // 离线模式下未缓存的歌曲无法播放，置灰显示
         RenderHelper.drawColoredText(
                 drawContext, textRenderer,
                 displayText,
                 UIConstants.PADDING + 5, itemY + 10,
-                UIConstants.COLOR_TEXT_PRIMARY
+                musicManager.isPlayable(track) ? UIConstants.COLOR_TEXT_PRIMARY : UIConstants.COLOR_TEXT_SECONDARY
         );
+        // 已完整缓存的标记
+        if (audioManager.isCachedLocally(track)) {
+            RenderHelper.drawColoredText(
+                    drawContext, textRenderer,
+                    UIConstants.ICON_CACHED,
+                    UIConstants.PADDING + 9 + textRenderer.getWidth(displayText), itemY + 10,
+                    UIConstants.COLOR_PRIMARY
+            );
+        }
         
         // 绘制操作按钮
         if (isHovered) {
@@ -207,14 +217,12 @@ public class FavoriteTabPanel implements TabPanel {
                     return true;
                 }
                 
-                // 点击播放
-                int playButtonX = context.getWidth() - UIConstants.PADDING - 100;
-                if (mouseX >= playButtonX && mouseX <= playButtonX + 40) {
-                    audioManager.playTrack(track);
+                // 离线模式下未缓存的歌曲不播放
+                if (!musicManager.isPlayable(track)) {
                     return true;
                 }
                 
-                // 点击其他区域，播放该歌曲
+                // 点击播放或其他区域，播放该歌曲
                 audioManager.playTrack(track);
                 return true;
             }
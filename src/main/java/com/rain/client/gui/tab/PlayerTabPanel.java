@@ -2,6 +2,7 @@ package com.rain.client.gui.tab;
 
 import com.rain.client.MusicPlayerClientMod;
 import com.rain.client.audio.AudioManager;
+import com.rain.client.audio.PlaybackState;
 import com.rain.client.gui.constants.UIConstants;
 import com.rain.client.gui.util.RenderHelper;
 import com.rain.client.manager.ClientMusicShareManager;
@@ -103,9 +104,9 @@ public class PlayerTabPanel implements TabPanel {
             audioManager.pause();
         } else if (audioManager.isPaused()) {
             audioManager.resume();
-        } else {
+        } else if (audioManager.getState() == PlaybackState.IDLE) {
             if (!musicManager.isPlaylistEmpty()) {
-                musicManager.playTrackAt(0);
+                musicManager.playFromStart();
             }
         }
         context.requestReinit();
@@ -182,6 +183,9 @@ public class PlayerTabPanel implements TabPanel {
         } else if (audioManager.isPaused()) {
             status = "已暂停";
             statusColor = UIConstants.COLOR_WARNING;
+        } else if (audioManager.getState() == PlaybackState.CONNECTING) {
+            status = PlaybackState.CONNECTING.getDisplayName();
+            statusColor = UIConstants.COLOR_WARNING;
         } else {
             status = "已停止";
             statusColor = UIConstants.COLOR_DANGER;
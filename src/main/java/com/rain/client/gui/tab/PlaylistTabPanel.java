@@ -1,11 +1,13 @@
 package com.rain.client.gui.tab;
 
 import com.rain.client.MusicPlayerClientMod;
+import com.rain.client.audio.AudioManager;
 import com.rain.client.gui.constants.UIConstants;
 import com.rain.client.gui.util.RenderHelper;
 import com.rain.client.manager.ClientMusicShareManager;
 import com.rain.client.manager.FavoriteManager;
 import com.rain.client.manager.MusicManager;
+import com.rain.client.manager.SettingsManager;
 import com.rain.client.model.MusicTrack;
 import com.rain.common.util.CollUtil;
 import net.minecraft.client.font.TextRenderer;
@@ -24,6 +26,8 @@ public class PlaylistTabPanel implements TabPanel {
 
     private final MusicManager musicManager;
 
+    private final AudioManager audioManager;
+
     private final FavoriteManager favoriteManager;
 
     private final ClientMusicShareManager shareManager;
@@ -39,6 +43,7 @@ public class PlaylistTabPanel implements TabPanel {
      */
     public PlaylistTabPanel(MusicManager musicManager) {
         this.musicManager = musicManager;
+        this.audioManager = MusicPlayerClientMod.getInstance().getAudioManager();
         this.favoriteManager = MusicPlayerClientMod.getInstance().getFavoriteManager();
         this.shareManager = MusicPlayerClientMod.getInstance().getShareManager();
     }
@@ -78,7 +83,7 @@ public class PlaylistTabPanel implements TabPanel {
     private void renderPlaylistHeader(DrawContext drawContext, int playlistSize) {
         RenderHelper.drawColoredText(
                 drawContext, textRenderer,
-                "播放列表 (" + playlistSize + " 首)",
+                "播放列表 (" + playlistSize + " 首)" + (SettingsManager.getInstance().isOfflineMode() ? " [离线]" : ""),
                 UIConstants.PADDING, 40,
                 UIConstants.COLOR_PRIMARY
         );
@@ -125,7 +130,8 @@ public class PlaylistTabPanel implements TabPanel {
             textColor = UIConstants.COLOR_WARNING;
         } else {
             displayText = (index + 1) + ". " + track.getTitle() + " - " + track.getArtist();
-            textColor = UIConstants.COLOR_TEXT_PRIMARY;
+            // 离线模式下未缓存的歌曲无法播放，置灰显示
+            textColor = musicManager.isPlayable(track) ? UIConstants.COLOR_TEXT_PRIMARY : UIConstants.COLOR_TEXT_SECONDARY;
         }
         RenderHelper.drawColoredText(
                 drawContext, textRenderer,
@@ -133,6 +139,15 @@ public class PlaylistTabPanel implements TabPanel {
                 UIConstants.PADDING + 5, itemY + 10,
                 textColor
         );
+        // 已完整缓存的标记
+        if (audioManager.isCachedLocally(track)) {
+            RenderHelper.drawColoredText(
+                    drawContext, textRenderer,
+                    UIConstants.ICON_CACHED,
+                    UIConstants.PADDING + 9 + textRenderer.getWidth(displayText), itemY + 10,
+                    UIConstants.COLOR_PRIMARY
+            );
+        }
         if (isHovered) {
             // 分享按钮
             String shareText = "[分享]";
@@ -194,7 +194,7 @@ public class SearchTabPanel implements TabPanel {
     }
 
     /**
-     * 渲染操作按钮（收藏、播放、添加、分类、分享）
+     * 渲染操作按钮（收藏、播放、试听、添加、分类、分享）
      */
     private void renderActionButtons(DrawContext drawContext, int itemY, int mouseX, boolean isHovered, MusicTrack track) {
         int rightX = context.getWidth() - UIConstants.PADDING;
@@ -222,9 +222,23 @@ public class SearchTabPanel implements TabPanel {
                 playButtonX, itemY + 10,
                 playColor
         );
+        // 试听按钮，正在试听这首时显示为停止
+        boolean previewing = isPreviewing(track);
+        String previewText = previewing ? "停止" : "试听";
+        int previewButtonX = playButtonX - textRenderer.getWidth(previewText) - 10;
+        int previewColor = previewing ? UIConstants.COLOR_DANGER : UIConstants.COLOR_TEXT_SECONDARY;
+        if (isHovered && mouseX >= previewButtonX && mouseX <= previewButtonX + textRenderer.getWidth(previewText)) {
+            previewColor = UIConstants.COLOR_PRIMARY;
+        }
+        RenderHelper.drawColoredText(
+                drawContext, textRenderer,
+                previewText,
+                previewButtonX, itemY + 10,
+                previewColor
+        );
         // 分享按钮
         String shareText = "[分享]";
-        int shareButtonX = playButtonX - textRenderer.getWidth(shareText) - 10;
+        int shareButtonX = previewButtonX - textRenderer.getWidth(shareText) - 10;
         int shareColor = (isHovered && mouseX >= shareButtonX && mouseX <= shareButtonX + textRenderer.getWidth(shareText))
                 ? UIConstants.COLOR_PRIMARY : UIConstants.COLOR_TEXT_SECONDARY;
         RenderHelper.drawColoredText(
@@ -492,10 +506,23 @@ public class SearchTabPanel implements TabPanel {
             audioManager.playTrack(track);
             return true;
         }
+
+        // 点击试听按钮：再次点击正在试听的歌曲时停止
+        boolean previewing = isPreviewing(track);
+        String previewText = previewing ? "停止" : "试听";
+        int previewButtonX = playButtonX - textRenderer.getWidth(previewText) - 10;
+        if (mouseX >= previewButtonX && mouseX <= previewButtonX + textRenderer.getWidth(previewText)) {
+            if (previewing) {
+                audioManager.stopPreview();
+            } else {
+                audioManager.previewTrack(track);
+            }
+            return true;
+        }
         
         // 点击分享按钮
         String shareText = "[分享]";
-        int shareButtonX = playButtonX - textRenderer.getWidth(shareText) - 10;
+        int shareButtonX = previewButtonX - textRenderer.getWidth(shareText) - 10;
         if (mouseX >= shareButtonX && mouseX <= shareButtonX + textRenderer.getWidth(shareText)) {
             shareManager.shareMusic(track);
             return true;
@@ -519,6 +546,14 @@ public class SearchTabPanel implements TabPanel {
         return false;
     }
 
+    /**
+     * 判断是否正在试听该歌曲
+     */
+    private boolean isPreviewing(MusicTrack track) {
+        MusicTrack previewTrack = audioManager.getPreviewTrack();
+        return !Objects.isNull(previewTrack) && previewTrack.getId().equals(track.getId());
+    }
+
     @Override
     public boolean handleScroll(double mouseX, double mouseY, double verticalAmount) {
         if (!CollUtil.isEmpty(searchResults)) {
@@ -4,6 +4,7 @@ import com.rain.client.MusicPlayerClientMod;
 import com.rain.client.gui.constants.UIConstants;
 import com.rain.client.gui.util.RenderHelper;
 import com.rain.client.manager.CookieManager;
+import com.rain.client.manager.SettingsManager;
 import com.rain.client.network.MusicAPIClient;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.font.TextRenderer;
@@ -17,9 +18,9 @@ import java.util.Objects;
 /**
  * 设置标签页面板
  * <p>
- * 提供Cookie管理功能和API策略选择功能，
+ * 提供Cookie管理功能、API策略选择功能和播放设置，
  * 用户可以保存和清除API请求所需的Cookie，
- * 以及选择不同的音乐平台API。
+ * 选择不同的音乐平台API，以及调整切歌时的淡入淡出时长。
  * </p>
  *
  * @author 落雨川
@@ -30,6 +31,8 @@ public class SettingsTabPanel implements TabPanel {
 
     private final CookieManager cookieManager;
 
+    private final SettingsManager settingsManager;
+
     private final MusicAPIClient apiClient;
 
     private TabPanelContext context;
@@ -47,6 +50,7 @@ public class SettingsTabPanel implements TabPanel {
      */
     public SettingsTabPanel() {
         this.cookieManager = CookieManager.getInstance();
+        this.settingsManager = SettingsManager.getInstance();
         this.apiClient = MusicPlayerClientMod.getInstance().getApiClient();
         this.availableStrategies = apiClient.getAvailableStrategies();
         // 查找当前策略在数组中的索引
@@ -99,6 +103,32 @@ public class SettingsTabPanel implements TabPanel {
         ).dimensions(UIConstants.PADDING + fieldWidth + 5, startY + 45, 90, UIConstants.BUTTON_HEIGHT).build());
         // API策略选择控件
         initApiStrategyControls(startY + 100);
+        // 播放设置控件
+        initPlaybackControls(startY + 170);
+    }
+
+    /**
+     * 初始化播放设置控件
+     */
+    private void initPlaybackControls(int startY) {
+        int fieldWidth = context.getWidth() - 2 * UIConstants.PADDING - 100;
+        // 减少淡入淡出时长
+        context.addWidget(ButtonWidget.builder(
+                Text.literal("-"),
+                button -> adjustCrossfade(-1)
+        ).dimensions(UIConstants.PADDING, startY + 15, 30, UIConstants.BUTTON_HEIGHT).build());
+        // 增加淡入淡出时长
+        context.addWidget(ButtonWidget.builder(
+                Text.literal("+"),
+                button -> adjustCrossfade(1)
+        ).dimensions(UIConstants.PADDING + fieldWidth + 5 + 60, startY + 15, 30, UIConstants.BUTTON_HEIGHT).build());
+    }
+
+    /**
+     * 调整淡入淡出时长
+     */
+    private void adjustCrossfade(int delta) {
+        settingsManager.setCrossfadeSeconds(settingsManager.getCrossfadeSeconds() + delta);
     }
 
     /**
@@ -196,8 +226,10 @@ public class SettingsTabPanel implements TabPanel {
         renderCookieStatus(drawContext, startY);
         // 绘制API策略选择区域
         renderApiStrategySection(drawContext, startY + 100);
+        // 绘制播放设置区域
+        renderPlaybackSection(drawContext, startY + 170);
         // 绘制说明信息
-        renderInstructions(drawContext, startY + 160);
+        renderInstructions(drawContext, startY + 220);
     }
 
     /**
@@ -233,6 +265,16 @@ public class SettingsTabPanel implements TabPanel {
         }
     }
 
+    /**
+     * 渲染播放设置区域
+     */
+    private void renderPlaybackSection(DrawContext drawContext, int startY) {
+        RenderHelper.drawPrimaryText(drawContext, textRenderer, "淡入淡出:", UIConstants.PADDING, startY);
+        int seconds = settingsManager.getCrossfadeSeconds();
+        String display = seconds > 0 ? seconds + " 秒" : "关闭";
+        RenderHelper.drawCenteredColoredText(drawContext, textRenderer, display, context.getWidth() / 2, startY + 20, UIConstants.COLOR_WARNING);
+    }
+
     /**
      * 渲染说明信息
      */
@@ -30,6 +30,8 @@ public final class DataPersistenceManager {
     private static final String PLAYLIST_FILE = "playlist.json";
     private static final String FAVORITES_FILE = "favorites.json";
     private static final String CATEGORIES_FILE = "categories.json";
+    private static final String SETTINGS_FILE = "settings.json";
+    private static final String LOUDNESS_FILE = "loudness.json";
 
     private static final long COOKIE_EXPIRY_DAYS = 3;
     private static final long COOKIE_EXPIRY_MILLIS = COOKIE_EXPIRY_DAYS * 24 * 60 * 60 * 1000;
@@ -107,6 +109,69 @@ public final class DataPersistenceManager {
         MusicPlayerClientMod.LOGGER.info("Cookie已删除");
     }
 
+    // ==================== 设置持久化 ====================
+
+    /**
+     * 保存播放设置
+     */
+    public void saveSettings(Map<String, Object> settings) {
+        try {
+            JSONObject data = new JSONObject(settings);
+            data.put("timestamp", System.currentTimeMillis());
+            writeJsonFile(SETTINGS_FILE, data);
+            MusicPlayerClientMod.LOGGER.info("播放设置已保存");
+        } catch (Exception e) {
+            MusicPlayerClientMod.LOGGER.error("保存播放设置失败", e);
+        }
+    }
+
+    /**
+     * 加载播放设置
+     *
+     * @return 设置项，文件不存在时返回null
+     */
+    public Map<String, Object> loadSettings() {
+        try {
+            JSONObject data = readJsonFile(SETTINGS_FILE);
+            if (Objects.isNull(data)) {
+                return null;
+            }
+            data.remove("timestamp");
+            return data.toMap();
+        } catch (Exception e) {
+            MusicPlayerClientMod.LOGGER.error("加载播放设置失败", e);
+            return null;
+        }
+    }
+
+    // ==================== 响度记录持久化 ====================
+
+    /**
+     * 保存音轨响度记录
+     */
+    public void saveLoudness(Map<String, Object> loudness) {
+        try {
+            writeJsonFile(LOUDNESS_FILE, new JSONObject(loudness));
+        } catch (Exception e) {
+            MusicPlayerClientMod.LOGGER.error("保存响度记录失败", e);
+        }
+    }
+
+    /**
+     * 加载音轨响度记录
+     *
+     * @return 歌曲ID到响度记录的映射，文件不存在时返回null
+     */
+    public Map<String, Object> loadLoudness() {
+        try {
+            JSONObject data = readJsonFile(LOUDNESS_FILE);
+            return Objects.isNull(data) ? null : data.toMap();
+        } catch (Exception e) {
+            MusicPlayerClientMod.LOGGER.error("加载响度记录失败", e);
+            return null;
+        }
+    }
+
     // ==================== 播放列表持久化 ====================
 
     /**
@@ -320,13 +385,15 @@ public final class DataPersistenceManager {
         json.put("title", track.getTitle());
         json.put("artist", track.getArtist());
         json.put("album", track.getAlbum());
-        json.put("url", track.getUrl());
         json.put("duration", track.getDuration());
         return json;
     }
 
     /**
      * JSON转MusicTrack
+     * <p>
+     * 播放地址带有效期，播放前才按音质解析；旧版本保存的url字段已失效，读取时忽略。
+     * </p>
      */
     private MusicTrack jsonToTrack(JSONObject json) {
         try {
@@ -335,7 +402,7 @@ public final class DataPersistenceManager {
                     json.getString("title"),
                     json.getString("artist"),
                     json.getString("album"),
-                    json.getString("url"),
+                    "",
                     json.getLong("duration")
             );
         } catch (Exception e) {
@@ -46,6 +46,11 @@ public class LyricManager {
             MusicPlayerClientMod.LOGGER.info("从缓存加载歌词: {}", track.getTitle());
             return;
         }
+        // 离线模式下不请求接口
+        if (SettingsManager.getInstance().isOfflineMode()) {
+            currentLyric = null;
+            return;
+        }
         // 异步获取歌词
         apiClient.getLyric(trackId).thenAccept(lyric -> {
             if (!Objects.isNull(lyric)) {
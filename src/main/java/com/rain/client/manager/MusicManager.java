@@ -10,6 +10,9 @@ import java.util.*;
 
 /**
  * 音乐管理器
+ * <p>
+ * 离线模式下选择上一首、下一首时跳过没有完整缓存的音轨，避免逐首等待连接超时。
+ * </p>
  *
  * @author 落雨川
  * @version 1.0
@@ -23,6 +26,11 @@ public final class MusicManager {
 
     private int currentIndex;
 
+    /**
+     * 预先决定的下一首索引，-1表示尚未决定；随机模式下保证预取的与实际播放的是同一首
+     */
+    private int nextIndex = -1;
+
     private PlaybackMode playbackMode;
 
     private final Random random;
@@ -67,6 +75,7 @@ public final class MusicManager {
             }
         }
         playlist.add(track);
+        resetNext();
         savePlaylist();
         MusicPlayerClientMod.LOGGER.info("已添加到播放列表: {}", track.getTitle());
         return true;
@@ -83,6 +92,7 @@ public final class MusicManager {
         if (currentIndex >= index && currentIndex > 0) {
             currentIndex--;
         }
+        resetNext();
         savePlaylist();
         return true;
     }
@@ -93,6 +103,7 @@ public final class MusicManager {
     public void clearPlaylist() {
         playlist.clear();
         currentIndex = -1;
+        resetNext();
         savePlaylist();
         MusicPlayerClientMod.LOGGER.info("播放列表已清空");
     }
@@ -105,8 +116,13 @@ public final class MusicManager {
             MusicPlayerClientMod.LOGGER.warn("无效的播放列表索引: {}", index);
             return;
         }
+        MusicTrack track = playlist.get(index);
+        if (!isPlayable(track)) {
+            MusicPlayerClientMod.LOGGER.info("离线模式下跳过未缓存的歌曲: {}", track.getTitle());
+            return;
+        }
         currentIndex = index;
-        MusicTrack track = playlist.get(currentIndex);
+        nextIndex = -1;
         audioManager.playTrack(track);
         savePlaylist();
     }
@@ -119,21 +135,152 @@ public final class MusicManager {
             MusicPlayerClientMod.LOGGER.warn("播放列表为空");
             return;
         }
-        switch (playbackMode) {
-            case SEQUENTIAL:
-                currentIndex = (currentIndex + 1) % playlist.size();
-                break;
-            case SHUFFLE:
-                currentIndex = random.nextInt(playlist.size());
-                break;
-            case REPEAT_ONE:
-                // 单曲循环，保持当前索引
-                break;
-            case REPEAT_ALL:
-                currentIndex = (currentIndex + 1) % playlist.size();
+        int index = resolveNextIndex();
+        if (index < 0) {
+            MusicPlayerClientMod.LOGGER.warn("离线模式下播放列表中没有已缓存的歌曲");
+            return;
+        }
+        playTrackAt(index);
+    }
+
+    /**
+     * 从播放列表开头播放第一首可播放的音轨
+     */
+    public void playFromStart() {
+        int index = findPlayable(-1, 1);
+        if (index < 0) {
+            MusicPlayerClientMod.LOGGER.warn("离线模式下播放列表中没有已缓存的歌曲");
+            return;
+        }
+        playTrackAt(index);
+    }
+
+    /**
+     * 判断音轨当前能否播放：离线模式下只有已完整缓存的音轨可以播放
+     */
+    public boolean isPlayable(MusicTrack track) {
+        return !SettingsManager.getInstance().isOfflineMode() || audioManager.isCachedLocally(track);
+    }
+
+    /**
+     * 开启或关闭离线模式，并重新决定下一首
+     */
+    public void setOfflineMode(boolean enabled) {
+        SettingsManager.getInstance().setOfflineMode(enabled);
+        resetNext();
+    }
+
+    /**
+     * 查看下一首将要播放的音轨（按当前播放模式），不改变播放状态
+     *
+     * @return 播放列表为空或没有可播放的音轨时返回null
+     */
+    public MusicTrack peekNext() {
+        if (CollUtil.isEmpty(playlist)) {
+            return null;
+        }
+        int index = resolveNextIndex();
+        return index < 0 ? null : playlist.get(index);
+    }
+
+    /**
+     * 查看接下来将要播放的若干首（按当前播放模式），不改变播放状态
+     * <p>
+     * 随机模式下只有已决定的下一首是确定的；单曲循环时只有当前这首。
+     * </p>
+     *
+     * @param count 最多返回的数量
+     */
+    public List<MusicTrack> peekUpcoming(int count) {
+        if (CollUtil.isEmpty(playlist) || count <= 0) {
+            return List.of();
+        }
+        int first = resolveNextIndex();
+        if (first < 0) {
+            return List.of();
+        }
+        int limit = switch (playbackMode) {
+            case SEQUENTIAL, REPEAT_ALL -> Math.min(count, playlist.size());
+            case SHUFFLE, REPEAT_ONE -> 1;
+        };
+        List<MusicTrack> upcoming = new ArrayList<>(limit);
+        for (int i = 0; i < limit; i++) {
+            upcoming.add(playlist.get((first + i) % playlist.size()));
+        }
+        return upcoming;
+    }
+
+    /**
+     * 确认已无缝切换到下一首，同步当前索引
+     */
+    public void confirmNext(MusicTrack track) {
+        for (int i = 0; i < playlist.size(); i++) {
+            if (playlist.get(i).getId().equals(track.getId())) {
+                currentIndex = i;
                 break;
+            }
+        }
+        nextIndex = -1;
+        savePlaylist();
+    }
+
+    /**
+     * 决定下一首的索引，结果会被保留直到真正播放或播放列表变化
+     *
+     * @return 没有可播放的音轨时返回-1
+     */
+    private int resolveNextIndex() {
+        if (nextIndex >= 0 && nextIndex < playlist.size()) {
+            return nextIndex;
         }
-        playTrackAt(currentIndex);
+        int current = Math.max(currentIndex, 0);
+        nextIndex = switch (playbackMode) {
+            case SEQUENTIAL, REPEAT_ALL -> findPlayable(currentIndex, 1);
+            case SHUFFLE -> randomPlayable();
+            // 单曲循环，保持当前索引
+            case REPEAT_ONE -> isPlayable(playlist.get(current)) ? current : findPlayable(current, 1);
+        };
+        return nextIndex;
+    }
+
+    /**
+     * 从指定索引出发按步长循环查找下一首可播放的音轨（不含起点）
+     *
+     * @return 没有可播放的音轨时返回-1
+     */
+    private int findPlayable(int from, int step) {
+        int size = playlist.size();
+        for (int i = 1; i <= size; i++) {
+            int index = Math.floorMod(from + i * step, size);
+            if (isPlayable(playlist.get(index))) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 在可播放的音轨中等概率随机选择一首（蓄水池抽样）
+     *
+     * @return 没有可播放的音轨时返回-1
+     */
+    private int randomPlayable() {
+        int chosen = -1,
+                seen = 0;
+        for (int i = 0; i < playlist.size(); i++) {
+            if (isPlayable(playlist.get(i)) && random.nextInt(++seen) == 0) {
+                chosen = i;
+            }
+        }
+        return chosen;
+    }
+
+    /**
+     * 播放列表或播放模式变化后，作废已决定的下一首及其预取
+     */
+    private void resetNext() {
+        nextIndex = -1;
+        audioManager.invalidatePrefetch();
     }
 
     /**
@@ -144,8 +291,12 @@ public final class MusicManager {
             MusicPlayerClientMod.LOGGER.warn("播放列表为空");
             return;
         }
-        currentIndex = (currentIndex - 1 + playlist.size()) % playlist.size();
-        playTrackAt(currentIndex);
+        int index = findPlayable(currentIndex, -1);
+        if (index < 0) {
+            MusicPlayerClientMod.LOGGER.warn("离线模式下播放列表中没有已缓存的歌曲");
+            return;
+        }
+        playTrackAt(index);
     }
 
     /**
@@ -161,6 +312,7 @@ public final class MusicManager {
         if (!Objects.isNull(currentTrack)) {
             currentIndex = playlist.indexOf(currentTrack);
         }
+        resetNext();
         savePlaylist();
         MusicPlayerClientMod.LOGGER.info("播放列表已随机排序");
     }
@@ -205,8 +357,9 @@ public final class MusicManager {
      */
     public PlaybackMode cyclePlaybackMode() {
         PlaybackMode[] modes = PlaybackMode.values();
-        int nextIndex = (playbackMode.ordinal() + 1) % modes.length;
-        playbackMode = modes[nextIndex];
+        int modeIndex = (playbackMode.ordinal() + 1) % modes.length;
+        playbackMode = modes[modeIndex];
+        resetNext();
         MusicPlayerClientMod.LOGGER.info("播放模式已切换为: {}", playbackMode);
         return playbackMode;
     }
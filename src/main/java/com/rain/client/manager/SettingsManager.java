@@ -0,0 +1,221 @@
+package com.rain.client.manager;
+
+import com.rain.client.MusicPlayerClientMod;
+import com.rain.common.config.ModConfig;
+import com.rain.common.enums.AudioQualityEnum;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 播放设置管理器 - 管理可由玩家调整并需要持久化的播放设置
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+public class SettingsManager {
+    /**
+     * 音质设置为自适应
+     */
+    public static final String AUTO_QUALITY = "auto";
+    private static volatile SettingsManager instance;
+    private volatile int crossfadeSeconds;
+    private volatile boolean loudnessNormalization = true;
+    private volatile String audioQuality = AUTO_QUALITY;
+    private volatile boolean spectrumVisualizer;
+    private volatile boolean offlineMode;
+    private volatile boolean statsOverlay;
+    private DataPersistenceManager persistenceManager;
+
+    private SettingsManager() {
+    }
+
+    public static SettingsManager getInstance() {
+        if (Objects.isNull(instance)) {
+            synchronized (SettingsManager.class) {
+                if (Objects.isNull(instance)) {
+                    instance = new SettingsManager();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 初始化持久化管理器
+     */
+    public void initialize(DataPersistenceManager persistenceManager) {
+        this.persistenceManager = persistenceManager;
+        loadSettings();
+    }
+
+    /**
+     * 获取淡入淡出时长（秒），0表示关闭
+     */
+    public int getCrossfadeSeconds() {
+        return crossfadeSeconds;
+    }
+
+    /**
+     * 获取淡入淡出时长（毫秒）
+     */
+    public long getCrossfadeMillis() {
+        return crossfadeSeconds * 1000L;
+    }
+
+    /**
+     * 设置淡入淡出时长（秒），超出范围时截断
+     */
+    public void setCrossfadeSeconds(int seconds) {
+        this.crossfadeSeconds = Math.clamp(seconds, 0, ModConfig.MAX_CROSSFADE_SECONDS);
+        saveSettings();
+        MusicPlayerClientMod.LOGGER.info("淡入淡出时长已设置为 {} 秒", crossfadeSeconds);
+    }
+
+    /**
+     * 是否按测得的响度均衡各音轨音量
+     */
+    public boolean isLoudnessNormalization() {
+        return loudnessNormalization;
+    }
+
+    /**
+     * 开启或关闭音量均衡，从下一首开始生效
+     */
+    public void setLoudnessNormalization(boolean enabled) {
+        this.loudnessNormalization = enabled;
+        saveSettings();
+        MusicPlayerClientMod.LOGGER.info("音量均衡已{}", enabled ? "开启" : "关闭");
+    }
+
+    /**
+     * 获取音质设置：{@link #AUTO_QUALITY} 或固定的音质等级
+     */
+    public String getAudioQuality() {
+        return audioQuality;
+    }
+
+    /**
+     * 是否按网络状况自动选择音质
+     */
+    public boolean isAdaptiveQuality() {
+        return AUTO_QUALITY.equals(audioQuality);
+    }
+
+    /**
+     * 设置音质，未知或超过可选上限的等级按自适应处理，从下一首开始生效
+     */
+    public void setAudioQuality(String quality) {
+        this.audioQuality = isSelectable(quality) ? quality : AUTO_QUALITY;
+        saveSettings();
+        MusicPlayerClientMod.LOGGER.info("音质已设置为 {}", audioQuality);
+    }
+
+    /**
+     * 是否在HUD上显示频谱
+     */
+    public boolean isSpectrumVisualizer() {
+        return spectrumVisualizer;
+    }
+
+    /**
+     * 开启或关闭HUD频谱，立即生效
+     */
+    public void setSpectrumVisualizer(boolean enabled) {
+        this.spectrumVisualizer = enabled;
+        saveSettings();
+        MusicPlayerClientMod.LOGGER.info("HUD频谱已{}", enabled ? "开启" : "关闭");
+    }
+
+    /**
+     * 是否处于离线模式：只播放已完整缓存的音轨，不访问网络
+     */
+    public boolean isOfflineMode() {
+        return offlineMode;
+    }
+
+    /**
+     * 开启或关闭离线模式，下一首起按新模式选择音轨
+     */
+    public void setOfflineMode(boolean enabled) {
+        this.offlineMode = enabled;
+        saveSettings();
+        MusicPlayerClientMod.LOGGER.info("离线模式已{}", enabled ? "开启" : "关闭");
+    }
+
+    /**
+     * 是否在屏幕左上角显示音频链路指标调试面板
+     */
+    public boolean isStatsOverlay() {
+        return statsOverlay;
+    }
+
+    /**
+     * 开启或关闭指标调试面板，立即生效
+     */
+    public void setStatsOverlay(boolean enabled) {
+        this.statsOverlay = enabled;
+        saveSettings();
+        MusicPlayerClientMod.LOGGER.info("指标调试面板已{}", enabled ? "开启" : "关闭");
+    }
+
+    /**
+     * 保存设置
+     */
+    private void saveSettings() {
+        if (Objects.isNull(persistenceManager)) {
+            return;
+        }
+        Map<String, Object> settings = new HashMap<>(8);
+        settings.put("crossfadeSeconds", crossfadeSeconds);
+        settings.put("loudnessNormalization", loudnessNormalization);
+        settings.put("audioQuality", audioQuality);
+        settings.put("spectrumVisualizer", spectrumVisualizer);
+        settings.put("offlineMode", offlineMode);
+        settings.put("statsOverlay", statsOverlay);
+        persistenceManager.saveSettings(settings);
+    }
+
+    /**
+     * 从本地加载设置
+     */
+    private void loadSettings() {
+        if (Objects.isNull(persistenceManager)) {
+            return;
+        }
+        Map<String, Object> settings = persistenceManager.loadSettings();
+        if (Objects.isNull(settings)) {
+            return;
+        }
+        if (settings.get("crossfadeSeconds") instanceof Number seconds) {
+            crossfadeSeconds = Math.clamp(seconds.intValue(), 0, ModConfig.MAX_CROSSFADE_SECONDS);
+        }
+        if (settings.get("loudnessNormalization") instanceof Boolean enabled) {
+            loudnessNormalization = enabled;
+        }
+        if (settings.get("audioQuality") instanceof String quality && isSelectable(quality)) {
+            audioQuality = quality;
+        }
+        if (settings.get("spectrumVisualizer") instanceof Boolean enabled) {
+            spectrumVisualizer = enabled;
+        }
+        if (settings.get("offlineMode") instanceof Boolean enabled) {
+            offlineMode = enabled;
+        }
+        if (settings.get("statsOverlay") instanceof Boolean enabled) {
+            statsOverlay = enabled;
+        }
+        MusicPlayerClientMod.LOGGER.info("播放设置已从本地加载");
+    }
+
+    /**
+     * 是否为不超过 {@link ModConfig#ADAPTIVE_QUALITY_CEILING} 的已知音质等级
+     */
+    private static boolean isSelectable(String quality) {
+        AudioQualityEnum level = AudioQualityEnum.fromLevel(quality),
+                ceiling = AudioQualityEnum.fromLevel(ModConfig.ADAPTIVE_QUALITY_CEILING);
+        return !Objects.isNull(level) && (Objects.isNull(ceiling) || level.compareTo(ceiling) <= 0);
+    }
+}
@@ -0,0 +1,67 @@
+package com.rain.client.mixin;
+
+import com.rain.client.MusicPlayerClientMod;
+import com.rain.client.gui.MusicHudRenderer;
+import net.minecraft.client.gui.Click;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.client.gui.screen.ChatScreen;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+import java.util.Objects;
+
+/**
+ * ChatScreen Mixin - 聊天界面中鼠标可见时，允许点击HUD进度条跳转
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+@Mixin(ChatScreen.class)
+public class ChatScreenMixin {
+
+    /**
+     * 渲染时更新进度条的悬停状态
+     */
+    @Inject(method = "render", at = @At("HEAD"))
+    private void onRender(DrawContext context, int mouseX, int mouseY, float deltaTicks, CallbackInfo ci) {
+        MusicHudRenderer hudRenderer = getHudRenderer();
+        if (!Objects.isNull(hudRenderer)) {
+            hudRenderer.updateHover(mouseX, mouseY);
+        }
+    }
+
+    /**
+     * 点击落在进度条上时执行跳转并消费该点击
+     */
+    @Inject(method = "mouseClicked", at = @At("HEAD"), cancellable = true)
+    private void onMouseClicked(Click click, boolean doubled, CallbackInfoReturnable<Boolean> cir) {
+        MusicHudRenderer hudRenderer = getHudRenderer();
+        if (!Objects.isNull(hudRenderer) && hudRenderer.handleClick(click.x(), click.y())) {
+            cir.setReturnValue(true);
+        }
+    }
+
+    /**
+     * 关闭聊天界面时清除悬停状态
+     */
+    @Inject(method = "removed", at = @At("HEAD"))
+    private void onRemoved(CallbackInfo ci) {
+        MusicPlayerClientMod mod = MusicPlayerClientMod.getInstance();
+        MusicHudRenderer hudRenderer = Objects.isNull(mod) ? null : mod.getHudRenderer();
+        if (!Objects.isNull(hudRenderer)) {
+            hudRenderer.clearHover();
+        }
+    }
+
+    private static MusicHudRenderer getHudRenderer() {
+        MusicPlayerClientMod mod = MusicPlayerClientMod.getInstance();
+        if (Objects.isNull(mod) || !mod.getAudioManager().isPlaying()) {
+            return null;
+        }
+        return mod.getHudRenderer();
+    }
+}
@@ -2,6 +2,7 @@ package com.rain.client.mixin;
 
 import com.rain.client.MusicPlayerClientMod;
 import com.rain.client.gui.MusicHudRenderer;
+import com.rain.client.manager.SettingsManager;
 import net.minecraft.client.gui.DrawContext;
 import net.minecraft.client.gui.hud.InGameHud;
 import net.minecraft.client.render.RenderTickCounter;
@@ -23,16 +24,22 @@ import java.util.Objects;
 public class InGameHudMixin {
 
     /**
-     * 在HUD渲染结束时注入音乐播放器HUD
+     * 在HUD渲染结束时注入音乐播放器HUD，调试面板不论是否在播放都会显示
      */
     @Inject(method = "render", at = @At("TAIL"))
     private void onRender(DrawContext context, RenderTickCounter tickCounter, CallbackInfo ci) {
         MusicPlayerClientMod mod = MusicPlayerClientMod.getInstance();
         if (!Objects.isNull(mod)) {
             MusicHudRenderer hudRenderer = mod.getHudRenderer();
-            if (!Objects.isNull(hudRenderer) && mod.getAudioManager().isPlaying()) {
+            if (Objects.isNull(hudRenderer)) {
+                return;
+            }
+            if (mod.getAudioManager().isPlaying()) {
                 hudRenderer.render(context, tickCounter.getDynamicDeltaTicks());
             }
+            if (SettingsManager.getInstance().isStatsOverlay()) {
+                hudRenderer.renderStatsOverlay(context);
+            }
         }
     }
 }
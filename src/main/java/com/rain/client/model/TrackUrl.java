@@ -0,0 +1,23 @@
+package com.rain.client.model;
+
+/**
+ * 带有效期的音轨播放地址
+ *
+ * @param url       播放地址，音轨不可播放时为null
+ * @param expiresAt 失效时间（毫秒时间戳）
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+public record TrackUrl(String url, long expiresAt) {
+
+    /**
+     * 在指定时间点之后的一段时间内是否仍然有效
+     *
+     * @param now    当前时间（毫秒时间戳）
+     * @param margin 需要保留的余量（毫秒）
+     */
+    public boolean isValid(long now, long margin) {
+        return url != null && !url.isEmpty() && expiresAt - now > margin;
+    }
+}
@@ -0,0 +1,163 @@
+package com.rain.client.network;
+
+import com.rain.client.MusicPlayerClientMod;
+import com.rain.common.config.ModConfig;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+
+/**
+ * API请求执行器
+ * <p>
+ * 所有接口请求经由这里按优先级排队，同时进行的请求不超过 {@link ModConfig#API_MAX_CONCURRENT_REQUESTS} 个。
+ * 每个请求在一个具名的虚拟线程上发起，请求返回的Future完成后才让出名额；
+ * 阻塞的同步请求同样占用名额直到返回。
+ * </p>
+ * <p>
+ * 有空余名额时总是先取优先级高的通道。低优先级的通道不能占满全部名额：
+ * 搜索至少给当前播放留出1个，预取留出2个，因此一批后台预取不会让点击播放排在它们后面。
+ * 每个通道排队的请求数不超过 {@link ModConfig#API_QUEUE_LIMIT}，超出时该请求直接以
+ * {@link RejectedExecutionException} 失败。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+public final class ApiExecutor {
+
+    /**
+     * 请求优先级，从高到低
+     */
+    public enum Priority {
+        /**
+         * 当前播放的音轨：播放地址、歌词
+         */
+        PLAYBACK(0),
+        /**
+         * 用户发起的搜索
+         */
+        SEARCH(1),
+        /**
+         * 后台预取
+         */
+        PREFETCH(2);
+
+        /**
+         * 该通道不能使用的名额数，留给更高优先级的通道
+         */
+        private final int reservedSlots;
+
+        Priority(int reservedSlots) {
+            this.reservedSlots = reservedSlots;
+        }
+    }
+
+    private static final String THREAD_NAME_PREFIX = "MusicPlayer-Api-";
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final ThreadFactory threadFactory = Thread.ofVirtual().name(THREAD_NAME_PREFIX, 0).factory();
+
+    private final Map<Priority, ArrayDeque<Runnable>> lanes = new EnumMap<>(Priority.class);
+
+    private int inFlight;
+
+    public ApiExecutor() {
+        for (Priority priority : PRIORITIES) {
+            lanes.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * 提交异步请求
+     *
+     * @param priority 优先级
+     * @param request  发起请求，在执行器的线程上调用；返回的Future完成前一直占用名额
+     * @return 请求的结果；通道已满时以 {@link RejectedExecutionException} 失败
+     */
+    public <T> CompletableFuture<T> submit(Priority priority, Supplier<CompletableFuture<T>> request) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        synchronized (this) {
+            ArrayDeque<Runnable> lane = lanes.get(priority);
+            if (lane.size() >= ModConfig.API_QUEUE_LIMIT) {
+                MusicPlayerClientMod.LOGGER.warn("{} 通道排队的请求已达上限，拒绝新请求", priority);
+                result.completeExceptionally(new RejectedExecutionException("API请求队列已满: " + priority));
+                return result;
+            }
+            lane.addLast(() -> run(request, result));
+        }
+        dispatch();
+        return result;
+    }
+
+    /**
+     * 提交同步（阻塞）请求
+     *
+     * @param priority 优先级
+     * @param request  在执行器的线程上阻塞执行
+     */
+    public <T> CompletableFuture<T> supply(Priority priority, Supplier<T> request) {
+        return submit(priority, () -> CompletableFuture.completedFuture(request.get()));
+    }
+
+    private <T> void run(Supplier<CompletableFuture<T>> request, CompletableFuture<T> result) {
+        CompletableFuture<T> future;
+        try {
+            future = request.get();
+        } catch (Throwable e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        if (Objects.isNull(future)) {
+            future = CompletableFuture.completedFuture(null);
+        }
+        future.whenComplete((value, error) -> {
+            release();
+            if (Objects.isNull(error)) {
+                result.complete(value);
+            } else {
+                result.completeExceptionally(error);
+            }
+        });
+    }
+
+    private void release() {
+        synchronized (this) {
+            inFlight--;
+        }
+        dispatch();
+    }
+
+    /**
+     * 在名额允许的范围内按优先级启动排队中的请求
+     */
+    private void dispatch() {
+        while (true) {
+            Runnable next;
+            synchronized (this) {
+                next = poll();
+                if (Objects.isNull(next)) {
+                    return;
+                }
+                inFlight++;
+            }
+            threadFactory.newThread(next).start();
+        }
+    }
+
+    private Runnable poll() {
+        for (Priority priority : PRIORITIES) {
+            ArrayDeque<Runnable> lane = lanes.get(priority);
+            if (!lane.isEmpty() && inFlight < ModConfig.API_MAX_CONCURRENT_REQUESTS - priority.reservedSlots) {
+                return lane.pollFirst();
+            }
+        }
+        return null;
+    }
+}
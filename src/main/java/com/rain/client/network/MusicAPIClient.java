@@ -8,11 +8,19 @@ import com.rain.client.network.strategy.MusicApiStrategyFactory;
 import com.rain.common.enums.MusicStrategyEnum;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * 音乐API客户端
+ * <p>
+ * 相同的搜索、歌词和播放地址请求进行中时不会重复发出：后来的调用方共用正在进行的请求，
+ * 请求完成后得到同一个结果（如连续点击搜索，或开始播放时加载歌词的同时歌词页也请求了同一首）。
+ * </p>
  *
  * @author 落雨川
  * @version 1.7
@@ -22,8 +30,19 @@ public final class MusicAPIClient {
 
     private final MusicApiStrategyFactory strategyFactory;
 
+    private final ApiExecutor executor;
+
+    private final TrackUrlResolver urlResolver;
+
+    /**
+     * 进行中的请求，请求完成后移除
+     */
+    private final Map<String, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+
     public MusicAPIClient() {
         this.strategyFactory = MusicApiStrategyFactory.getInstance();
+        this.executor = new ApiExecutor();
+        this.urlResolver = new TrackUrlResolver(strategyFactory, executor);
         MusicPlayerClientMod.LOGGER.info("MusicAPIClient 初始化，使用策略工厂");
     }
 
@@ -34,7 +53,12 @@ public final class MusicAPIClient {
         MusicApiStrategy currentStrategy = strategyFactory.getCurrentStrategy();
         if (!Objects.isNull(currentStrategy)) {
             MusicPlayerClientMod.LOGGER.info("使用 {} 策略搜索音乐: {}", currentStrategy.getStrategyName(), query);
-            return currentStrategy.searchMusic(query);
+            return singleFlight("search:" + currentStrategy.getStrategyName() + ":" + query, () ->
+                    executor.submit(ApiExecutor.Priority.SEARCH, () -> currentStrategy.searchMusic(query))
+                            .exceptionally(e -> {
+                                MusicPlayerClientMod.LOGGER.error("搜索音乐失败", e);
+                                return new SearchResult(query, List.of(), 0);
+                            }));
         } else {
             MusicPlayerClientMod.LOGGER.error("没有可用的音乐API策略");
             return CompletableFuture.completedFuture(new SearchResult(query, List.of(), 0));
@@ -42,19 +66,55 @@ public final class MusicAPIClient {
     }
 
     /**
-     * 获取歌词
+     * 获取歌词，歌词随当前音轨一同加载，按播放优先级请求
      */
     public CompletableFuture<Lyric> getLyric(String trackId) {
         MusicApiStrategy currentStrategy = strategyFactory.getCurrentStrategy();
         if (currentStrategy != null) {
             MusicPlayerClientMod.LOGGER.info("使用 {} 策略获取歌词: {}", currentStrategy.getStrategyName(), trackId);
-            return currentStrategy.getLyric(trackId);
+            return singleFlight("lyric:" + currentStrategy.getStrategyName() + ":" + trackId, () ->
+                    executor.submit(ApiExecutor.Priority.PLAYBACK, () -> currentStrategy.getLyric(trackId))
+                            .exceptionally(e -> {
+                                MusicPlayerClientMod.LOGGER.error("获取歌词失败", e);
+                                return null;
+                            }));
         } else {
             MusicPlayerClientMod.LOGGER.error("没有可用的音乐API策略");
             return CompletableFuture.completedFuture(null);
         }
     }
 
+    /**
+     * 按指定音质获取音轨的播放地址，缓存的地址失效时在调用线程上同步请求
+     * <p>
+     * 同一音轨同一音质的解析进行中时，等待并共用该次解析的结果。
+     * </p>
+     *
+     * @param priority 请求所走的通道：当前播放用 {@link ApiExecutor.Priority#PLAYBACK}，
+     *                 预取下一首、下载开头片段等后台调用用 {@link ApiExecutor.Priority#PREFETCH}
+     * @return 获取失败时返回null
+     */
+    public String getTrackUrl(String trackId, String quality, ApiExecutor.Priority priority) {
+        try {
+            return singleFlight("url:" + getCurrentStrategyEnum() + ":" + trackId + "_" + quality,
+                    () -> CompletableFuture.completedFuture(urlResolver.resolve(trackId, quality, priority))).join();
+        } catch (CompletionException e) {
+            MusicPlayerClientMod.LOGGER.error("获取播放地址失败", e.getCause());
+            return null;
+        }
+    }
+
+    /**
+     * 在后台批量刷新即将播放的音轨中缺失或即将失效的播放地址
+     */
+    public void refreshTrackUrls(List<String> trackIds, String quality) {
+        urlResolver.refreshAhead(trackIds, quality, ApiExecutor.Priority.PREFETCH)
+                .exceptionally(e -> {
+                    MusicPlayerClientMod.LOGGER.error("提前刷新播放地址失败", e);
+                    return null;
+                });
+    }
+
     /**
      * 设置当前使用的API策略
      *
@@ -62,7 +122,11 @@ public final class MusicAPIClient {
      * @return 是否设置成功
      */
     public boolean setStrategy(String strategyName) {
-        return strategyFactory.setCurrentStrategy(strategyName);
+        boolean success = strategyFactory.setCurrentStrategy(strategyName);
+        if (success) {
+            urlResolver.clear();
+        }
+        return success;
     }
 
     /**
@@ -79,4 +143,38 @@ public final class MusicAPIClient {
     public String[] getAvailableStrategies() {
         return strategyFactory.getAvailableStrategies();
     }
-}
\ No newline at end of file
+
+    /**
+     * 相同键的请求进行中时共用该请求，否则发起新请求
+     * <p>
+     * 每个调用方拿到的是共享请求的副本，取消自己的副本不会影响其他调用方。
+     * </p>
+     *
+     * @param key     请求的唯一标识
+     * @param request 发起请求，只由第一个调用方在其线程上调用
+     */
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> singleFlight(String key, Supplier<CompletableFuture<T>> request) {
+        CompletableFuture<T> shared = new CompletableFuture<>();
+        CompletableFuture<?> existing = inFlight.putIfAbsent(key, shared);
+        if (!Objects.isNull(existing)) {
+            MusicPlayerClientMod.LOGGER.debug("合并进行中的请求: {}", key);
+            return ((CompletableFuture<T>) existing).copy();
+        }
+        CompletableFuture<T> future;
+        try {
+            future = request.get();
+        } catch (Throwable e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((value, error) -> {
+            inFlight.remove(key, shared);
+            if (Objects.isNull(error)) {
+                shared.complete(value);
+            } else {
+                shared.completeExceptionally(error);
+            }
+        });
+        return shared.copy();
+    }
+}
@@ -0,0 +1,139 @@
+package com.rain.client.network;
+
+import com.rain.client.MusicPlayerClientMod;
+import com.rain.client.model.TrackUrl;
+import com.rain.client.network.strategy.MusicApiStrategy;
+import com.rain.client.network.strategy.MusicApiStrategyFactory;
+import com.rain.common.util.CollUtil;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 音轨播放地址解析器
+ * <p>
+ * 平台返回的播放地址带有有效期，不能随播放列表一起长期保存。
+ * 这里以“音轨ID + 音质”为键缓存地址及其失效时间，播放时才解析：
+ * 缓存仍然有效直接返回，否则同步请求一次。
+ * 当前音轨开始播放时，对即将播放的几首中缺失或即将失效的地址合并为一次批量请求提前刷新，
+ * 因此切歌时通常不需要再等待接口。
+ * 请求都经由 {@link ApiExecutor} 发出，由调用方指定通道：当前播放走 {@link ApiExecutor.Priority#PLAYBACK}，
+ * 预取与提前刷新走 {@link ApiExecutor.Priority#PREFETCH}。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+public final class TrackUrlResolver {
+
+    /**
+     * 剩余有效期不足该值的地址视为已失效，留出下载整首的时间
+     */
+    private static final long EXPIRY_MARGIN_MILLIS = 60 * 1000;
+
+    /**
+     * 批量刷新时，剩余有效期不足该值的地址会被提前刷新
+     */
+    private static final long REFRESH_WINDOW_MILLIS = 5 * 60 * 1000;
+
+    private final MusicApiStrategyFactory strategyFactory;
+
+    private final ApiExecutor executor;
+
+    private final Map<String, TrackUrl> cache = new ConcurrentHashMap<>();
+
+    public TrackUrlResolver(MusicApiStrategyFactory strategyFactory, ApiExecutor executor) {
+        this.strategyFactory = strategyFactory;
+        this.executor = executor;
+    }
+
+    /**
+     * 解析播放地址，缓存失效时在调用线程上等待请求完成
+     *
+     * @param priority 请求所走的通道
+     * @return 获取失败或音轨不可播放时返回null
+     */
+    public String resolve(String trackId, String quality, ApiExecutor.Priority priority) {
+        long now = System.currentTimeMillis();
+        TrackUrl cached = cache.get(key(trackId, quality));
+        if (!Objects.isNull(cached) && cached.isValid(now, EXPIRY_MARGIN_MILLIS)) {
+            return cached.url();
+        }
+        Map<String, TrackUrl> urls;
+        try {
+            urls = fetch(List.of(trackId), quality, priority).join();
+        } catch (CompletionException e) {
+            MusicPlayerClientMod.LOGGER.error("解析播放地址失败", e.getCause());
+            return null;
+        }
+        TrackUrl resolved = Objects.isNull(urls) ? null : urls.get(trackId);
+        return Objects.isNull(resolved) ? null : resolved.url();
+    }
+
+    /**
+     * 在后台批量刷新缺失或即将失效的地址
+     *
+     * @param trackIds 即将播放的音轨ID
+     * @param quality  音质等级
+     * @param priority 请求所走的通道
+     */
+    public CompletableFuture<Void> refreshAhead(List<String> trackIds, String quality, ApiExecutor.Priority priority) {
+        long now = System.currentTimeMillis();
+        cache.values().removeIf(trackUrl -> trackUrl.expiresAt() <= now);
+        List<String> stale = trackIds.stream()
+                .distinct()
+                .filter(trackId -> {
+                    TrackUrl cached = cache.get(key(trackId, quality));
+                    return Objects.isNull(cached) || !cached.isValid(now, REFRESH_WINDOW_MILLIS);
+                })
+                .toList();
+        if (CollUtil.isEmpty(stale)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return fetch(stale, quality, priority)
+                .thenAccept(urls -> {
+                    if (!Objects.isNull(urls)) {
+                        MusicPlayerClientMod.LOGGER.info("已提前刷新 {} 首音轨的播放地址 (音质: {})", urls.size(), quality);
+                    }
+                });
+    }
+
+    /**
+     * 清空缓存，切换API策略后原有地址不再适用
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * 在指定通道上请求播放地址并写入缓存，请求完成前占用该通道的名额
+     */
+    private CompletableFuture<Map<String, TrackUrl>> fetch(List<String> trackIds, String quality,
+                                                           ApiExecutor.Priority priority) {
+        MusicApiStrategy strategy = strategyFactory.getCurrentStrategy();
+        if (Objects.isNull(strategy)) {
+            MusicPlayerClientMod.LOGGER.error("没有可用的音乐API策略");
+            return CompletableFuture.completedFuture(null);
+        }
+        return executor.submit(priority, () -> strategy.getUrls(trackIds, quality)).thenApply(urls -> {
+            if (Objects.isNull(urls)) {
+                return null;
+            }
+            urls.forEach((trackId, trackUrl) -> {
+                if (!Objects.isNull(trackId) && !Objects.isNull(trackUrl.url())) {
+                    cache.put(key(trackId, quality), trackUrl);
+                }
+            });
+            return urls;
+        });
+    }
+
+    private static String key(String trackId, String quality) {
+        return trackId + "_" + quality;
+    }
+}
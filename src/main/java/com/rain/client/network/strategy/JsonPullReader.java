@@ -0,0 +1,464 @@
+package com.rain.client.network.strategy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * JSON拉取式读取器
+ * <p>
+ * 边从输入流读取边按记号推进，调用方只取出需要的字段，其余值用 {@link #skipValue()} 跳过，
+ * 不构建 {@code JSONObject} 树，被跳过的字符串也不会生成对象。
+ * 带 {@code opt} 前缀的方法与 org.json 的同名方法语义一致：类型不符时跳过该值并返回默认值。
+ * </p>
+ * <p>
+ * 格式错误时抛出 {@link IllegalStateException}。
+ * </p>
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+final class JsonPullReader implements Closeable {
+
+    /**
+     * 记号类型
+     */
+    enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    // ========== 嵌套作用域 ==========
+
+    private static final int EMPTY_ARRAY = 1;
+
+    private static final int NONEMPTY_ARRAY = 2;
+
+    private static final int EMPTY_OBJECT = 3;
+
+    private static final int DANGLING_NAME = 4;
+
+    private static final int NONEMPTY_OBJECT = 5;
+
+    private static final int EMPTY_DOCUMENT = 6;
+
+    private static final int NONEMPTY_DOCUMENT = 7;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int MAX_DEPTH = 256;
+
+    private final Reader in;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    private int pos;
+
+    private int limit;
+
+    private final int[] stack = new int[MAX_DEPTH];
+
+    private int stackSize;
+
+    /**
+     * 已看到但尚未取出的记号
+     */
+    private Token peeked;
+
+    /**
+     * 读取字符串与字面量时复用
+     */
+    private final StringBuilder text = new StringBuilder();
+
+    JsonPullReader(InputStream in) {
+        this.in = new InputStreamReader(in, StandardCharsets.UTF_8);
+        stack[stackSize++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * 查看下一个记号，不取出
+     */
+    Token peek() throws IOException {
+        if (Objects.isNull(peeked)) {
+            peeked = doPeek();
+        }
+        return peeked;
+    }
+
+    /**
+     * 当前对象或数组中是否还有元素
+     */
+    boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        stackSize--;
+    }
+
+    void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        stackSize--;
+    }
+
+    String nextName() throws IOException {
+        expect(Token.NAME);
+        return readString();
+    }
+
+    /**
+     * 下一个值是对象时进入该对象，否则跳过该值
+     *
+     * @return 是否已进入对象
+     */
+    boolean optBeginObject() throws IOException {
+        if (peek() == Token.BEGIN_OBJECT) {
+            beginObject();
+            return true;
+        }
+        skipValue();
+        return false;
+    }
+
+    /**
+     * 下一个值是数组时进入该数组，否则跳过该值
+     *
+     * @return 是否已进入数组
+     */
+    boolean optBeginArray() throws IOException {
+        if (peek() == Token.BEGIN_ARRAY) {
+            beginArray();
+            return true;
+        }
+        skipValue();
+        return false;
+    }
+
+    /**
+     * 读取字符串值，数字与布尔值按原文返回
+     *
+     * @param fallback 值为null、对象或数组时返回的默认值
+     */
+    String optString(String fallback) throws IOException {
+        Token token = peek();
+        if (token == Token.STRING) {
+            peeked = null;
+            return readString();
+        }
+        if (token == Token.NUMBER || token == Token.BOOLEAN) {
+            peeked = null;
+            return readLiteral();
+        }
+        skipValue();
+        return fallback;
+    }
+
+    /**
+     * 读取整数值，字符串形式的数字同样解析，小数截断
+     *
+     * @param fallback 值不是数字时返回的默认值
+     */
+    long optLong(long fallback) throws IOException {
+        Token token = peek();
+        if (token != Token.NUMBER && token != Token.STRING) {
+            skipValue();
+            return fallback;
+        }
+        peeked = null;
+        String value = token == Token.NUMBER ? readLiteral() : readString();
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            try {
+                return (long) Double.parseDouble(value);
+            } catch (NumberFormatException ignored) {
+                return fallback;
+            }
+        }
+    }
+
+    int optInt(int fallback) throws IOException {
+        return (int) optLong(fallback);
+    }
+
+    /**
+     * 跳过下一个值，对象与数组整体跳过
+     */
+    void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            Token token = peek();
+            peeked = null;
+            switch (token) {
+                case BEGIN_OBJECT -> {
+                    push(EMPTY_OBJECT);
+                    depth++;
+                }
+                case BEGIN_ARRAY -> {
+                    push(EMPTY_ARRAY);
+                    depth++;
+                }
+                case END_OBJECT, END_ARRAY -> {
+                    stackSize--;
+                    depth--;
+                }
+                case NAME, STRING -> skipString();
+                case NUMBER, BOOLEAN, NULL -> readLiteral();
+                case END_DOCUMENT -> throw syntaxError("意外的文档结尾");
+            }
+        } while (depth > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        peeked = null;
+        stackSize = 0;
+        in.close();
+    }
+
+    private Token doPeek() throws IOException {
+        int scope = stack[stackSize - 1];
+        if (scope == EMPTY_ARRAY) {
+            stack[stackSize - 1] = NONEMPTY_ARRAY;
+        } else if (scope == NONEMPTY_ARRAY) {
+            int c = nextNonWhitespace();
+            if (c == ']') {
+                return Token.END_ARRAY;
+            }
+            if (c != ',') {
+                throw syntaxError("数组中缺少逗号");
+            }
+        } else if (scope == EMPTY_OBJECT || scope == NONEMPTY_OBJECT) {
+            stack[stackSize - 1] = DANGLING_NAME;
+            if (scope == NONEMPTY_OBJECT) {
+                int c = nextNonWhitespace();
+                if (c == '}') {
+                    return Token.END_OBJECT;
+                }
+                if (c != ',') {
+                    throw syntaxError("对象中缺少逗号");
+                }
+            }
+            int c = nextNonWhitespace();
+            if (c == '"') {
+                return Token.NAME;
+            }
+            if (c == '}' && scope == EMPTY_OBJECT) {
+                return Token.END_OBJECT;
+            }
+            throw syntaxError("对象的键不是字符串");
+        } else if (scope == DANGLING_NAME) {
+            stack[stackSize - 1] = NONEMPTY_OBJECT;
+            if (nextNonWhitespace() != ':') {
+                throw syntaxError("键后缺少冒号");
+            }
+        } else if (scope == EMPTY_DOCUMENT) {
+            stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+        } else {
+            if (nextNonWhitespaceOrEof() == -1) {
+                return Token.END_DOCUMENT;
+            }
+            throw syntaxError("文档结尾有多余内容");
+        }
+        int c = nextNonWhitespace();
+        switch (c) {
+            case '{' -> {
+                return Token.BEGIN_OBJECT;
+            }
+            case '[' -> {
+                return Token.BEGIN_ARRAY;
+            }
+            case ']' -> {
+                if (scope == EMPTY_ARRAY) {
+                    return Token.END_ARRAY;
+                }
+                throw syntaxError("数组中有多余的逗号");
+            }
+            case '"' -> {
+                return Token.STRING;
+            }
+            case 't', 'f' -> {
+                pos--;
+                return Token.BOOLEAN;
+            }
+            case 'n' -> {
+                pos--;
+                return Token.NULL;
+            }
+            default -> {
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    pos--;
+                    return Token.NUMBER;
+                }
+                throw syntaxError("意外的字符 '" + (char) c + "'");
+            }
+        }
+    }
+
+    private void expect(Token expected) throws IOException {
+        Token token = peek();
+        if (token != expected) {
+            throw syntaxError("应为 " + expected + "，实际为 " + token);
+        }
+        peeked = null;
+    }
+
+    private void push(int scope) {
+        if (stackSize == stack.length) {
+            throw syntaxError("嵌套层数过深");
+        }
+        stack[stackSize++] = scope;
+    }
+
+    /**
+     * 读取字符串内容，起始引号已被读取
+     */
+    private String readString() throws IOException {
+        text.setLength(0);
+        while (true) {
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos++];
+                if (c == '"') {
+                    text.append(buffer, start, pos - 1 - start);
+                    return text.toString();
+                }
+                if (c == '\\') {
+                    text.append(buffer, start, pos - 1 - start);
+                    text.append(readEscape());
+                    start = pos;
+                }
+            }
+            text.append(buffer, start, pos - start);
+            if (!fill()) {
+                throw syntaxError("字符串未结束");
+            }
+        }
+    }
+
+    /**
+     * 跳过字符串内容，起始引号已被读取
+     */
+    private void skipString() throws IOException {
+        while (true) {
+            while (pos < limit) {
+                char c = buffer[pos++];
+                if (c == '"') {
+                    return;
+                }
+                if (c == '\\') {
+                    readEscape();
+                }
+            }
+            if (!fill()) {
+                throw syntaxError("字符串未结束");
+            }
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = read();
+        return switch (c) {
+            case 'u' -> {
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw syntaxError("无效的Unicode转义");
+                    }
+                    value = (value << 4) | digit;
+                }
+                yield (char) value;
+            }
+            case 'b' -> '\b';
+            case 'f' -> '\f';
+            case 'n' -> '\n';
+            case 'r' -> '\r';
+            case 't' -> '\t';
+            case '"', '\\', '/' -> (char) c;
+            default -> throw syntaxError("无效的转义字符");
+        };
+    }
+
+    /**
+     * 读取数字、布尔值或null的原文，遇到分隔符为止
+     */
+    private String readLiteral() throws IOException {
+        text.setLength(0);
+        while (true) {
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos];
+                if (c == ',' || c == '}' || c == ']' || c == ':' || isWhitespace(c)) {
+                    text.append(buffer, start, pos - start);
+                    return text.toString();
+                }
+                pos++;
+            }
+            text.append(buffer, start, pos - start);
+            if (!fill()) {
+                return text.toString();
+            }
+        }
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c = nextNonWhitespaceOrEof();
+        if (c == -1) {
+            throw syntaxError("意外的输入结尾");
+        }
+        return c;
+    }
+
+    private int nextNonWhitespaceOrEof() throws IOException {
+        while (pos < limit || fill()) {
+            char c = buffer[pos++];
+            if (!isWhitespace(c)) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            throw syntaxError("意外的输入结尾");
+        }
+        return buffer[pos++];
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            pos = limit = 0;
+            return false;
+        }
+        pos = 0;
+        limit = read;
+        return true;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private IllegalStateException syntaxError(String message) {
+        return new IllegalStateException("JSON格式错误: " + message);
+    }
+}
@@ -2,7 +2,10 @@ package com.rain.client.network.strategy;
 
 import com.rain.client.model.Lyric;
 import com.rain.client.model.SearchResult;
+import com.rain.client.model.TrackUrl;
 
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -30,6 +33,15 @@ public interface MusicApiStrategy {
      */
     CompletableFuture<Lyric> getLyric(String trackId);
 
+    /**
+     * 按指定音质获取音轨的播放地址
+     *
+     * @param trackIds 音轨ID
+     * @param quality  音质等级
+     * @return 音轨ID -> 带有效期的播放地址的CompletableFuture，请求失败时结果为null
+     */
+    CompletableFuture<Map<String, TrackUrl>> getUrls(List<String> trackIds, String quality);
+
     /**
      * 获取策略名称
      *
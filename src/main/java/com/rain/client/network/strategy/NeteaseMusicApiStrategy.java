@@ -5,13 +5,14 @@ import com.rain.client.manager.CookieManager;
 import com.rain.client.model.Lyric;
 import com.rain.client.model.MusicTrack;
 import com.rain.client.model.SearchResult;
+import com.rain.client.model.TrackUrl;
 import com.rain.common.config.ModConfig;
 import com.rain.common.enums.MusicStrategyEnum;
 import com.rain.common.util.CollUtil;
 import com.rain.common.util.HttpUtil;
-import org.json.JSONArray;
-import org.json.JSONObject;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 
@@ -32,6 +33,11 @@ public class NeteaseMusicApiStrategy extends AbstractMusicApiStrategy {
 
     private static final String ARTIST_SEPARATOR = ", ";
 
+    /**
+     * 响应中缺少有效期（expi）时按20分钟计
+     */
+    private static final long DEFAULT_URL_EXPIRY_SECONDS = 1200;
+
     private final String apiBaseUrl;
 
     public NeteaseMusicApiStrategy() {
@@ -46,21 +52,16 @@ public class NeteaseMusicApiStrategy extends AbstractMusicApiStrategy {
      */
     @Override
     public CompletableFuture<SearchResult> searchMusic(String query) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                String url = apiBaseUrl + "/search?keywords=" +
-                        HttpUtil.encodeParam(query) + "&limit=" +
-                        ModConfig.SEARCH_RESULTS_LIMIT;
-                Map<String, String> headers = buildHeaders();
-                String responseBody = HttpUtil.get(url, headers);
-                MusicPlayerClientMod.LOGGER.info("搜索音乐: {}", query);
-                MusicPlayerClientMod.LOGGER.debug("搜索响应: {}", responseBody);
-                return parseSearchResponse(query, responseBody);
-            } catch (Exception e) {
-                MusicPlayerClientMod.LOGGER.error("搜索音乐失败", e);
-                return new SearchResult(query, new ArrayList<>(), 0);
-            }
-        });
+        String url = apiBaseUrl + "/search?keywords=" +
+                HttpUtil.encodeParam(query) + "&limit=" +
+                ModConfig.SEARCH_RESULTS_LIMIT;
+        MusicPlayerClientMod.LOGGER.info("搜索音乐: {}", query);
+        return HttpUtil.getStreamAsync(url, buildHeaders())
+                .thenApply(responseBody -> parseSearchResponse(query, responseBody))
+                .exceptionally(e -> {
+                    MusicPlayerClientMod.LOGGER.error("搜索音乐失败", e);
+                    return new SearchResult(query, new ArrayList<>(), 0);
+                });
     }
 
     /**
@@ -70,52 +71,39 @@ public class NeteaseMusicApiStrategy extends AbstractMusicApiStrategy {
      */
     @Override
     public CompletableFuture<Lyric> getLyric(String trackId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                String url = apiBaseUrl + "/lyric/new?id=" + HttpUtil.encodeParam(trackId);
-                Map<String, String> headers = buildHeaders();
-                MusicPlayerClientMod.LOGGER.info("获取歌词: {}", trackId);
-                String responseBody = HttpUtil.get(url, headers);
-                return parseLyricResponse(responseBody);
-            } catch (Exception e) {
-                MusicPlayerClientMod.LOGGER.error("获取歌词失败", e);
-                return null;
-            }
-        });
+        String url = apiBaseUrl + "/lyric/new?id=" + HttpUtil.encodeParam(trackId);
+        MusicPlayerClientMod.LOGGER.info("获取歌词: {}", trackId);
+        return HttpUtil.getStreamAsync(url, buildHeaders())
+                .thenApply(this::parseLyricResponse)
+                .exceptionally(e -> {
+                    MusicPlayerClientMod.LOGGER.error("获取歌词失败", e);
+                    return null;
+                });
     }
 
     /**
-     * 获取音乐URL
-     *
-     * @param trackId 音轨id
-     * @return url
-     */
-    public String getUrl(String trackId) {
-        Map<String, String> resMap;
-        return CollUtil.isEmpty(resMap = getUrls(List.of(trackId))) ? null : resMap.get(trackId);
-    }
-
-    /**
-     * 获取音乐URL
+     * 按指定音质获取音乐URL
      *
      * @param trackIds 音轨ids
-     * @return 音轨id -> url
+     * @param quality  音质等级
+     * @return 音轨id -> 带有效期的url，请求失败时为null
      */
-    public Map<String, String> getUrls(List<String> trackIds) {
-        try {
-            if (CollUtil.isEmpty(trackIds)) return null;
-            String ids = String.join(",", trackIds);
-            String url = apiBaseUrl + "/song/url/v1?id=" +
-                    HttpUtil.encodeParam(ids) + "&level=" +
-                    ModConfig.AUDIO_QUALITY;
-            Map<String, String> headers = buildHeaders();
-            MusicPlayerClientMod.LOGGER.info("获取歌曲URL: {} (音质: {}", ids, ModConfig.AUDIO_QUALITY);
-            String responseBody = HttpUtil.get(url, headers);
-            return parseTrackDetailResponse(responseBody);
-        } catch (Exception e) {
-            MusicPlayerClientMod.LOGGER.error("获取歌曲URL失败", e);
-            return null;
+    @Override
+    public CompletableFuture<Map<String, TrackUrl>> getUrls(List<String> trackIds, String quality) {
+        if (CollUtil.isEmpty(trackIds)) {
+            return CompletableFuture.completedFuture(null);
         }
+        String ids = String.join(",", trackIds);
+        String url = apiBaseUrl + "/song/url/v1?id=" +
+                HttpUtil.encodeParam(ids) + "&level=" +
+                HttpUtil.encodeParam(quality);
+        MusicPlayerClientMod.LOGGER.info("获取歌曲URL: {} (音质: {})", ids, quality);
+        return HttpUtil.getStreamAsync(url, buildHeaders())
+                .thenApply(this::parseTrackDetailResponse)
+                .exceptionally(e -> {
+                    MusicPlayerClientMod.LOGGER.error("获取歌曲URL失败", e);
+                    return null;
+                });
     }
 
     /**
@@ -139,21 +127,30 @@ public class NeteaseMusicApiStrategy extends AbstractMusicApiStrategy {
 
     /**
      * 解析搜索响应
+     * <p>
+     * 响应以流的形式逐个记号读取，只取出 result.songs 中用到的字段和 code，其余内容直接跳过。
+     * 播放地址不在这里获取，由 {@link com.rain.client.network.TrackUrlResolver} 按音质在播放前解析。
+     * </p>
      */
-    private SearchResult parseSearchResponse(String query, String responseBody) {
-        try {
-            JSONObject json = new JSONObject(responseBody);
-            if (!(json.optInt("code") == API_SUCCESS_CODE)) {
+    private SearchResult parseSearchResponse(String query, InputStream responseBody) {
+        try (JsonPullReader reader = new JsonPullReader(responseBody)) {
+            int code = 0, totalResults = -1;
+            List<MusicTrack> tracks = new ArrayList<>();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "code" -> code = reader.optInt(0);
+                    case "result" -> totalResults = parseResult(reader, tracks);
+                    default -> reader.skipValue();
+                }
+            }
+            if (code != API_SUCCESS_CODE) {
                 MusicPlayerClientMod.LOGGER.warn("搜索API返回异常响应");
                 return new SearchResult(query, new ArrayList<>(), 0);
             }
-            JSONObject result = json.optJSONObject("result");
-            if (Objects.isNull(result))
-                return new SearchResult(query, new ArrayList<>(), 0);
-            List<MusicTrack> tracks = parseTracksFromResult(result);
-            int totalResults = result.optInt("songCount", tracks.size());
+            int total = totalResults < 0 ? tracks.size() : totalResults;
             MusicPlayerClientMod.LOGGER.info("找到 {} 首歌曲，关键词: {}", tracks.size(), query);
-            return new SearchResult(query, tracks, totalResults);
+            return new SearchResult(query, tracks, total);
         } catch (Exception e) {
             MusicPlayerClientMod.LOGGER.error("解析搜索响应失败", e);
             return new SearchResult(query, new ArrayList<>(), 0);
@@ -162,122 +159,184 @@ public class NeteaseMusicApiStrategy extends AbstractMusicApiStrategy {
 
     /**
      * 从搜索结果中解析音轨列表
+     *
+     * @return songCount，缺失时返回-1
      */
-    private List<MusicTrack> parseTracksFromResult(JSONObject result) {
-        List<MusicTrack> tracks = new ArrayList<>();
-        JSONArray songs = result.optJSONArray("songs");
-        if (CollUtil.isEmpty(songs)) {
-            return tracks;
+    private int parseResult(JsonPullReader reader, List<MusicTrack> tracks) throws IOException {
+        int songCount = -1;
+        if (!reader.optBeginObject()) {
+            return songCount;
+        }
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "songCount" -> songCount = reader.optInt(-1);
+                case "songs" -> parseSongs(reader, tracks);
+                default -> reader.skipValue();
+            }
         }
-        int limit = Math.min(songs.length(), ModConfig.SEARCH_RESULTS_LIMIT);
-        List<String> trackIds = new ArrayList<>(limit);
-        for (int i = 0; i < limit; i++) {
-            JSONObject songJson = songs.getJSONObject(i);
-            MusicTrack track = parseTrack(songJson);
+        reader.endObject();
+        return songCount;
+    }
+
+    private void parseSongs(JsonPullReader reader, List<MusicTrack> tracks) throws IOException {
+        if (!reader.optBeginArray()) {
+            return;
+        }
+        for (int i = 0; reader.hasNext(); i++) {
+            if (i >= ModConfig.SEARCH_RESULTS_LIMIT) {
+                reader.skipValue();
+                continue;
+            }
+            MusicTrack track = parseTrack(reader);
             if (!Objects.isNull(track)) {
                 tracks.add(track);
-                trackIds.add(track.getId());
             }
         }
-        Map<String, String> urls = getUrls(trackIds);
-        if (!CollUtil.isEmpty(urls)) {
-            tracks.forEach(i
-                    -> i.setUrl(urls.get(i.getId())));
-        }
-        return tracks;
+        reader.endArray();
     }
 
     /**
      * 解析单个音轨信息
      */
-    private MusicTrack parseTrack(JSONObject songJson) {
-        try {
-            String id = String.valueOf(songJson.optLong("id")),
-                    name = songJson.optString("name", UNKNOWN_SONG_TITLE),
-                    artist = parseArtists(songJson.optJSONArray("artists")),
-                    album = parseAlbum(songJson.optJSONObject("album"));
-            long duration = songJson.optLong("duration", 0);
-            return new MusicTrack(id, name, artist, album, "", duration);
-        } catch (Exception e) {
-            MusicPlayerClientMod.LOGGER.error("解析歌曲信息失败", e);
+    private MusicTrack parseTrack(JsonPullReader reader) throws IOException {
+        if (!reader.optBeginObject()) {
             return null;
         }
+        String id = "0", name = UNKNOWN_SONG_TITLE, artist = UNKNOWN_ARTIST, album = "";
+        long duration = 0;
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id" -> id = String.valueOf(reader.optLong(0));
+                case "name" -> name = reader.optString(UNKNOWN_SONG_TITLE);
+                case "artists" -> artist = parseArtists(reader);
+                case "album" -> album = parseAlbum(reader);
+                case "duration" -> duration = reader.optLong(0);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new MusicTrack(id, name, artist, album, "", duration);
     }
 
     /**
      * 解析艺术家信息
      */
-    private String parseArtists(JSONArray artists) {
-        if (CollUtil.isEmpty(artists)) {
+    private String parseArtists(JsonPullReader reader) throws IOException {
+        if (!reader.optBeginArray()) {
             return UNKNOWN_ARTIST;
         }
         StringBuilder artistNames = new StringBuilder();
-        for (int i = 0; i < artists.length(); i++) {
-            JSONObject artistObj = artists.getJSONObject(i);
-            String name = artistObj.optString("name");
+        while (reader.hasNext()) {
+            String name = parseName(reader);
             if (!name.isEmpty()) {
-                if (i > 0) {
+                if (!artistNames.isEmpty()) {
                     artistNames.append(ARTIST_SEPARATOR);
                 }
                 artistNames.append(name);
             }
         }
+        reader.endArray();
         return !artistNames.isEmpty() ? artistNames.toString() : UNKNOWN_ARTIST;
     }
 
     /**
      * 解析专辑信息
      */
-    private String parseAlbum(JSONObject albumObj) {
-        return Objects.isNull(albumObj) ? "" : albumObj.optString("name", "");
+    private String parseAlbum(JsonPullReader reader) throws IOException {
+        return parseName(reader);
     }
 
     /**
-     * 解析音轨详情响应
+     * 读取对象的name字段，不是对象或缺少该字段时返回空字符串
      */
-    private Map<String, String> parseTrackDetailResponse(String responseBody) {
-        try {
-            JSONObject json = new JSONObject(responseBody);
-            if (!(json.optInt("code") == API_SUCCESS_CODE)) {
-                return null;
-            }
-            JSONArray data = json.optJSONArray("data");
-            if (CollUtil.isEmpty(data)) {
-                return null;
+    private String parseName(JsonPullReader reader) throws IOException {
+        if (!reader.optBeginObject()) {
+            return "";
+        }
+        String name = "";
+        while (reader.hasNext()) {
+            if ("name".equals(reader.nextName())) {
+                name = reader.optString("");
+            } else {
+                reader.skipValue();
             }
-            HashMap<String, String> resMap = new HashMap<>();
-            for (int i = 0; i < data.length(); i++) {
-                JSONObject obj = data.getJSONObject(i);
-                String url = obj.optString("url", null), id = obj.optString("id", null);
-                resMap.put(id, url);
+        }
+        reader.endObject();
+        return name;
+    }
+
+    /**
+     * 解析音轨详情响应
+     */
+    private Map<String, TrackUrl> parseTrackDetailResponse(InputStream responseBody) {
+        try (JsonPullReader reader = new JsonPullReader(responseBody)) {
+            int code = 0;
+            HashMap<String, TrackUrl> resMap = new HashMap<>();
+            long now = System.currentTimeMillis();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "code" -> code = reader.optInt(0);
+                    case "data" -> {
+                        if (reader.optBeginArray()) {
+                            while (reader.hasNext()) {
+                                parseTrackUrl(reader, resMap, now);
+                            }
+                            reader.endArray();
+                        }
+                    }
+                    default -> reader.skipValue();
+                }
             }
-            return resMap;
+            return code != API_SUCCESS_CODE || CollUtil.isEmpty(resMap) ? null : resMap;
         } catch (Exception e) {
             MusicPlayerClientMod.LOGGER.error("解析歌曲详情响应失败", e);
             return null;
         }
     }
 
+    private void parseTrackUrl(JsonPullReader reader, Map<String, TrackUrl> resMap, long now) throws IOException {
+        if (!reader.optBeginObject()) {
+            return;
+        }
+        String url = null, id = null;
+        // expi为地址剩余有效秒数
+        long expiry = 0;
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "url" -> url = reader.optString(null);
+                case "id" -> id = reader.optString(null);
+                case "expi" -> expiry = reader.optLong(0);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (expiry <= 0) {
+            expiry = DEFAULT_URL_EXPIRY_SECONDS;
+        }
+        resMap.put(id, new TrackUrl(url, now + expiry * 1000));
+    }
+
     /**
-     * 解析歌词响应
+     * 解析歌词响应，只取出原文与翻译的lyric字段
      */
-    private Lyric parseLyricResponse(String responseBody) {
-        try {
-            JSONObject json = new JSONObject(responseBody);
-            if (!(json.optInt("code") == API_SUCCESS_CODE)) {
-                return null;
-            }
-            // 获取原文歌词
-            String lrcContent = "";
-            JSONObject lrcObj = json.optJSONObject("lrc");
-            if (!Objects.isNull(lrcObj)) {
-                lrcContent = lrcObj.optString("lyric", "");
+    private Lyric parseLyricResponse(InputStream responseBody) {
+        try (JsonPullReader reader = new JsonPullReader(responseBody)) {
+            int code = 0;
+            String lrcContent = "", translationContent = "";
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "code" -> code = reader.optInt(0);
+                    // 原文歌词
+                    case "lrc" -> lrcContent = parseLyricContent(reader);
+                    // 翻译歌词
+                    case "tlyric" -> translationContent = parseLyricContent(reader);
+                    default -> reader.skipValue();
+                }
             }
-            // 获取翻译歌词
-            String translationContent = "";
-            JSONObject tLrcObj = json.optJSONObject("tlyric");
-            if (!Objects.isNull(tLrcObj)) {
-                translationContent = tLrcObj.optString("lyric", "");
+            if (code != API_SUCCESS_CODE) {
+                return null;
             }
             // 解析歌词
             List<Lyric.LyricLine> lines = this.parseLrc(Map.of("content", lrcContent)),
@@ -288,4 +347,20 @@ public class NeteaseMusicApiStrategy extends AbstractMusicApiStrategy {
             return null;
         }
     }
-}
\ No newline at end of file
+
+    private String parseLyricContent(JsonPullReader reader) throws IOException {
+        if (!reader.optBeginObject()) {
+            return "";
+        }
+        String content = "";
+        while (reader.hasNext()) {
+            if ("lyric".equals(reader.nextName())) {
+                content = reader.optString("");
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return content;
+    }
+}
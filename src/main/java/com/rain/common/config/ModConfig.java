@@ -29,6 +29,16 @@ public final class ModConfig {
      */
     public static final int CONNECT_TIMEOUT = 10000;
 
+    /**
+     * 同时进行的API请求数上限
+     */
+    public static final int API_MAX_CONCURRENT_REQUESTS = 4;
+
+    /**
+     * 每个优先级通道排队的API请求数上限
+     */
+    public static final int API_QUEUE_LIMIT = 32;
+
     // ========== 播放列表配置 ==========
     
     /**
@@ -48,6 +58,117 @@ public final class ModConfig {
      */
     public static final String AUDIO_QUALITY = "exhigh";
 
+    /**
+     * 自适应音质与固定音质可选的最高等级；无损音源为FLAC，由内置的FLAC解码器播放。
+     * 不开放高解析度无损（约2500kbps），几首就会占满本地音频缓存
+     */
+    public static final String ADAPTIVE_QUALITY_CEILING = "lossless";
+
+    /**
+     * 本地音频缓存容量上限（字节）
+     */
+    public static final long AUDIO_CACHE_MAX_BYTES = 512L * 1024 * 1024;
+
+    /**
+     * 音频流读取停滞多久视为断流并重新连接（毫秒），需小于PCM缓冲区时长
+     */
+    public static final int STREAM_STALL_TIMEOUT_MILLIS = 3000;
+
+    /**
+     * 音频流断流后连续重连的最大次数
+     */
+    public static final int STREAM_MAX_RECONNECTS = 5;
+
+    /**
+     * 每首开始播放时提前刷新播放地址的后续音轨数
+     */
+    public static final int URL_REFRESH_AHEAD_TRACKS = 5;
+
+    /**
+     * 距当前音轨结束多久开始预取下一首（毫秒）
+     */
+    public static final long PREFETCH_LEAD_MILLIS = 15000;
+
+    /**
+     * 预取下一首时预先缓冲的字节数
+     */
+    public static final int PREFETCH_BUFFER_BYTES = 512 * 1024;
+
+    /**
+     * 预先下载开头片段的音轨数（先取播放列表接下来的几首，不足时以收藏补足）
+     */
+    public static final int HEAD_SEGMENT_TRACKS = 8;
+
+    /**
+     * 每个开头片段覆盖的播放时长（秒），按音质的标称码率换算为字节数
+     */
+    public static final int HEAD_SEGMENT_SECONDS = 5;
+
+    /**
+     * 内存中开头片段的总预算（字节）
+     */
+    public static final long HEAD_SEGMENT_MAX_BYTES = 8L * 1024 * 1024;
+
+    /**
+     * 解码与输出之间PCM缓冲区的时长（秒）
+     */
+    public static final int PCM_BUFFER_SECONDS = 5;
+
+    /**
+     * 优先通过游戏的OpenAL音频引擎输出，关闭后使用JavaSound
+     */
+    public static final boolean PREFER_OPENAL_OUTPUT = true;
+
+    /**
+     * HUD频谱的柱子数量
+     */
+    public static final int SPECTRUM_BARS = 30;
+
+    /**
+     * 淡入淡出时长上限（秒）
+     */
+    public static final int MAX_CROSSFADE_SECONDS = 12;
+
+    /**
+     * 音量均衡的目标响度（LUFS）
+     */
+    public static final double LOUDNESS_TARGET_LUFS = -14.0;
+
+    /**
+     * 音量均衡最多提升的增益（dB），提升量同时受音轨峰值限制
+     */
+    public static final double LOUDNESS_MAX_BOOST_DB = 6.0;
+
+    /**
+     * 音量均衡最多衰减的增益（dB）
+     */
+    public static final double LOUDNESS_MAX_CUT_DB = 15.0;
+
+    /**
+     * 试听片段的时长（秒），只请求这段时长对应的字节范围
+     */
+    public static final int PREVIEW_SECONDS = 15;
+
+    /**
+     * 试听的音量（线性增益）
+     */
+    public static final float PREVIEW_VOLUME = 0.7f;
+
+    /**
+     * 试听期间正在播放的歌曲压低到的音量（线性增益）
+     */
+    public static final float PREVIEW_DUCK_GAIN = 0.25f;
+
+    /**
+     * 压低与恢复正在播放的歌曲音量的过渡时长（毫秒）
+     */
+    public static final int PREVIEW_DUCK_MILLIS = 300;
+
+    /**
+     * 试听片段开头淡入、结尾淡出的时长（毫秒）
+     */
+    public static final int PREVIEW_FADE_MILLIS = 500;
+
     // ========== MOD配置 ==========
 
     public static final String MOD_ID = "lycMusicPlayer";
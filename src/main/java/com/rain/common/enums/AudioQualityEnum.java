@@ -0,0 +1,63 @@
+package com.rain.common.enums;
+
+import java.util.Objects;
+
+/**
+ * 音质等级，按码率从低到高排列
+ *
+ * @author 落雨川
+ * @version 1.7
+ * @since 1.7
+ */
+public enum AudioQualityEnum {
+
+    STANDARD("standard", 128, "标准"),
+    HIGHER("higher", 192, "较高"),
+    EXHIGH("exhigh", 320, "极高"),
+    LOSSLESS("lossless", 1000, "无损"),
+    HIRES("hires", 2500, "高解析度无损"),
+    ;
+
+    private final String level;
+    private final int bitrateKbps;
+    private final String description;
+
+    /**
+     * 构造音质等级
+     *
+     * @param level       接口使用的等级名
+     * @param bitrateKbps 标称码率（kbps），无损按常见的平均码率估计
+     * @param description 显示名称
+     */
+    AudioQualityEnum(String level, int bitrateKbps, String description) {
+        this.level = level;
+        this.bitrateKbps = bitrateKbps;
+        this.description = description;
+    }
+
+    public String getLevel() {
+        return level;
+    }
+
+    public int getBitrateKbps() {
+        return bitrateKbps;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * 按等级名查找
+     *
+     * @return 未知的等级名返回null
+     */
+    public static AudioQualityEnum fromLevel(String level) {
+        for (AudioQualityEnum quality : values()) {
+            if (Objects.equals(quality.level, level)) {
+                return quality;
+            }
+        }
+        return null;
+    }
+}
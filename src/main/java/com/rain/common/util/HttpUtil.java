@@ -4,16 +4,36 @@ import com.rain.common.config.ModConfig;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 /**
  * HTTP工具类
+ * <p>
+ * 所有请求共用同一个 {@link HttpClient}：连接在请求之间保持并复用，HTTPS下与服务器协商HTTP/2，
+ * 同一主机的并发请求在一条连接上多路复用。{@link #getAsync} 发出请求后立即返回，不占用调用线程等待I/O。
+ * </p>
+ * <p>
+ * 请求声明接受gzip与deflate压缩。响应头到达后即以流的形式读取响应体，边接收边解压，
+ * 不先把压缩数据整体存入字节数组：{@link #getAsync} 读完后按UTF-8一次解码为字符串，
+ * {@link #getStreamAsync} 则把解压流直接交给解析器，不经过字符串。
+ * 响应体流必须关闭，否则连接不会归还；解压用的 {@link Inflater} 在流关闭时一并释放。
+ * </p>
  *
  * @author 落雨川
  * @version 1.0
@@ -21,48 +41,166 @@ import java.util.Objects;
  */
 public final class HttpUtil {
 
-    private static final int BUFFER_SIZE = 8192;
     private static final String DEFAULT_ACCEPT_HEADER = "application/json";
 
+    private static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+
+    private static final String ACCEPTED_ENCODINGS = "gzip, deflate";
+
+    private static final int HTTP_OK_MIN = 200;
+
+    private static final int HTTP_OK_MAX = 299;
+
+    private static final String THREAD_NAME_PREFIX = "MusicPlayer-Http-";
+
+    /**
+     * 连接管理与响应回调在具名的虚拟线程上执行，不占用公共线程池
+     */
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .executor(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(THREAD_NAME_PREFIX, 0).factory()))
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofMillis(ModConfig.CONNECT_TIMEOUT))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
     private HttpUtil() {
     }
 
+    /**
+     * 同步GET请求，阻塞到响应接收完毕
+     *
+     * @throws RuntimeException 请求失败或状态码不是2xx
+     */
     public static String get(String url, Map<String, String> headers) {
-        HttpURLConnection connection = null;
         try {
-            URL parsedUrl = new URL(url);
-            connection = (HttpURLConnection) parsedUrl.openConnection();
-            configureConnection(connection, headers);
-            try (InputStream in = connection.getInputStream()) {
-                return readStream(in);
-            }
+            HttpResponse<InputStream> response = CLIENT.send(buildRequest(url, headers),
+                    HttpResponse.BodyHandlers.ofInputStream());
+            return bodyOf(response);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
         } catch (Exception e) {
             throw new RuntimeException(e);
-        } finally {
-            if (!Objects.isNull(connection)) {
-                connection.disconnect();
-            }
         }
     }
 
-    private static String readStream(InputStream in) throws IOException {
-        byte[] buffer = new byte[BUFFER_SIZE];
-        StringBuilder response = new StringBuilder();
-        int bytesRead;
-        while ((bytesRead = in.read(buffer)) != -1) {
-            response.append(new String(buffer, 0, bytesRead, StandardCharsets.UTF_8));
+    /**
+     * 异步GET请求，响应体在HttpClient的线程上读取并解码
+     *
+     * @return 响应体；请求失败或状态码不是2xx时以异常完成
+     */
+    public static CompletableFuture<String> getAsync(String url, Map<String, String> headers) {
+        return sendAsync(url, headers).thenApply(HttpUtil::bodyOf);
+    }
+
+    /**
+     * 异步GET请求，以流的形式交出解压后的响应体，供解析器直接读取
+     *
+     * @return 解压后的响应体流，读取时随网络接收推进，用完必须关闭；
+     * 请求失败或状态码不是2xx时以异常完成
+     */
+    public static CompletableFuture<InputStream> getStreamAsync(String url, Map<String, String> headers) {
+        return sendAsync(url, headers).thenApply(HttpUtil::streamOf);
+    }
+
+    private static CompletableFuture<HttpResponse<InputStream>> sendAsync(String url, Map<String, String> headers) {
+        HttpRequest request;
+        try {
+            request = buildRequest(url, headers);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
         }
-        return response.toString();
+        return CLIENT.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
     }
 
-    private static void configureConnection(HttpURLConnection conn, Map<String, String> headers) throws IOException {
-        conn.setRequestMethod("GET");
-        conn.setConnectTimeout(ModConfig.CONNECT_TIMEOUT);
-        conn.setReadTimeout(ModConfig.READ_TIMEOUT);
-        conn.setUseCaches(true);
-        conn.setInstanceFollowRedirects(true);
+    private static HttpRequest buildRequest(String url, Map<String, String> headers) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(ModConfig.READ_TIMEOUT))
+                .GET();
         if (!CollUtil.isEmpty(headers)) {
-            headers.forEach(conn::setRequestProperty);
+            headers.forEach(builder::header);
+        }
+        if (CollUtil.isEmpty(headers) || !headers.containsKey(ACCEPT_ENCODING_HEADER)) {
+            builder.header(ACCEPT_ENCODING_HEADER, ACCEPTED_ENCODINGS);
+        }
+        return builder.build();
+    }
+
+    private static String bodyOf(HttpResponse<InputStream> response) {
+        try (InputStream in = streamOf(response)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 检查状态码，按Content-Encoding包装解压流；失败时关闭响应体
+     */
+    private static InputStream streamOf(HttpResponse<InputStream> response) {
+        InputStream raw = response.body();
+        try {
+            int status = response.statusCode();
+            if (status < HTTP_OK_MIN || status > HTTP_OK_MAX) {
+                throw new IOException("HTTP状态码 " + status + ": " + response.uri());
+            }
+            String encoding = response.headers().firstValue("Content-Encoding").orElse("")
+                    .trim().toLowerCase(Locale.ROOT);
+            return switch (encoding) {
+                case "gzip", "x-gzip" -> new GZIPInputStream(raw);
+                case "deflate" -> inflate(raw);
+                default -> raw;
+            };
+        } catch (IOException e) {
+            closeQuietly(raw);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 规范要求deflate带zlib头，部分服务器发送的是不带头的原始deflate数据，先看开头两个字节再决定
+     */
+    private static InputStream inflate(InputStream raw) throws IOException {
+        PushbackInputStream in = new PushbackInputStream(raw, 2);
+        byte[] header = in.readNBytes(2);
+        in.unread(header);
+        return new InflatingStream(in, new Inflater(!hasZlibHeader(header)));
+    }
+
+    private static boolean hasZlibHeader(byte[] header) {
+        if (header.length < 2) {
+            return false;
+        }
+        int cmf = header[0] & 0xFF,
+                flg = header[1] & 0xFF;
+        return (cmf & 0x0F) == 8 && ((cmf << 8) | flg) % 31 == 0;
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ignored) {
+            // 已经在报告更早的错误
+        }
+    }
+
+    /**
+     * 关闭时释放自带的 {@link Inflater}：传入自定义Inflater时 {@link InflaterInputStream#close()} 不会调用其end()，
+     * 本地内存要等到GC才回收
+     */
+    private static final class InflatingStream extends InflaterInputStream {
+
+        InflatingStream(InputStream in, Inflater inflater) {
+            super(in, inflater);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                inf.end();
+            }
         }
     }
 
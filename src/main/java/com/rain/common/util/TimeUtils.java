@@ -11,6 +11,8 @@ public final class TimeUtils {
 
     private static final long MILLISECONDS_PER_SECOND = 1000;
     private static final long SECONDS_PER_MINUTE = 60;
+    private static final long NANOS_PER_MICROSECOND = 1000;
+    private static final long NANOS_PER_MILLISECOND = 1_000_000;
 
     private TimeUtils() {
     }
@@ -27,4 +29,20 @@ public final class TimeUtils {
                 seconds = totalSeconds % SECONDS_PER_MINUTE;
         return String.format("%d:%02d", minutes, seconds);
     }
+
+    /**
+     * 将纳秒耗时格式化为便于阅读的单位：不足1毫秒显示微秒，不足100毫秒保留一位小数
+     *
+     * @param nanos 纳秒数
+     * @return 格式化的耗时字符串，如 850µs、12.3ms、1520ms
+     */
+    public static String formatNanos(long nanos) {
+        if (nanos < NANOS_PER_MILLISECOND) {
+            return nanos / NANOS_PER_MICROSECOND + "µs";
+        }
+        if (nanos < 100 * NANOS_PER_MILLISECOND) {
+            return String.format("%.1fms", (double) nanos / NANOS_PER_MILLISECOND);
+        }
+        return nanos / NANOS_PER_MILLISECOND + "ms";
+    }
 }
\ No newline at end of file